@@ -0,0 +1,15 @@
+#!/bin/bash
+
+# Runs product-query-plans.sql at 1M and 10M rows against the mysqldb container of docker-compose,
+# the plans and timings are written to query-plans-<rows>.txt
+container=${MYSQL_CONTAINER:-mysqldb}
+password=${MYSQL_PASSWORD:-pass123}
+cd "$(dirname "$0")" || exit
+
+for rows in 1000000 10000000; do
+  echo "Running the product query plans with $rows rows..."
+  { echo "create database if not exists efuture_bench; set @rows = $rows;"; cat product-query-plans.sql; } \
+    | docker exec -i "$container" mysql -uroot -p"$password" --table > "query-plans-$rows.txt" || exit
+done
+
+echo "Query plans written to $(pwd)/query-plans-*.txt"
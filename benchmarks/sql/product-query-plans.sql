@@ -0,0 +1,80 @@
+-- Query plans and latency of the product repository queries, before and after the V2 indexes.
+-- Run through product-query-plans.sh, which sets @rows and creates the efuture_bench schema.
+-- Rows are spread over 1000 categories with prices between 0 and 999.99, one in ten of them soft deleted.
+
+use efuture_bench;
+
+drop table if exists product;
+create table product
+(
+    price       decimal(38, 2) not null,
+    id          bigint auto_increment
+        primary key,
+    category    varchar(255)   null,
+    description varchar(255)   null,
+    name        varchar(255)   not null,
+    status      varchar(255)   null
+);
+
+drop table if exists digits;
+create table digits
+(
+    d int not null primary key
+);
+insert into digits
+values (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+
+set @load = concat(
+        'insert into product (id, name, description, price, category, status) ',
+        'select n + 1, concat(''product '', n), concat(''description of product '', n), ',
+        '       (n * 7919 % 100000) / 100, concat(''category-'', n % 1000), if(n % 10 = 0, ''D'', ''A'') ',
+        'from (select d0.d + 10 * d1.d + 100 * d2.d + 1000 * d3.d + 10000 * d4.d + 100000 * d5.d ',
+        '             + 1000000 * d6.d as n ',
+        '      from digits d0, digits d1, digits d2, digits d3, digits d4, digits d5, digits d6) numbers ',
+        'where n < ', @rows);
+prepare load_products from @load;
+execute load_products;
+deallocate prepare load_products;
+analyze table product;
+
+select concat('rows: ', count(*)) as `before indexes`
+from product;
+
+-- category page (findByCategoryAndStatusAndIdGreaterThanOrderByIdAsc), first and a deep page
+explain analyze
+select * from product where category = 'category-42' and status = 'A' and id > 0 order by id limit 100;
+explain analyze
+select * from product where category = 'category-42' and status = 'A' and id > @rows * 9 div 10
+order by id limit 100;
+-- premium products (findByStatusAndPriceGreaterThanEqualOrderByPrice)
+explain analyze
+select * from product where status = 'A' and price >= 500 order by price;
+-- narrow price range (findByStatusAndPriceBetweenOrderByPriceAscIdAsc)
+explain analyze
+select * from product where status = 'A' and price between 100 and 101 order by price, id;
+
+-- V2__product_query_indexes.sql
+update product set status = 'A' where status is null;
+alter table product
+    modify status char(1) character set ascii not null,
+    add index idx_product_status_category_id (status, category, id),
+    add index idx_product_status_price_id (status, price, id);
+analyze table product;
+
+select concat('rows: ', count(*)) as `after indexes`
+from product;
+
+explain analyze
+select * from product where category = 'category-42' and status = 'A' and id > 0 order by id limit 100;
+explain analyze
+select * from product where category = 'category-42' and status = 'A' and id > @rows * 9 div 10
+order by id limit 100;
+explain analyze
+select * from product where status = 'A' and price >= 500 order by price;
+explain analyze
+select * from product where status = 'A' and price between 100 and 101 order by price, id;
+
+-- table and index sizes
+select table_name, round(data_length / 1024 / 1024) as data_mb, round(index_length / 1024 / 1024) as index_mb
+from information_schema.tables
+where table_schema = 'efuture_bench' and table_name = 'product';
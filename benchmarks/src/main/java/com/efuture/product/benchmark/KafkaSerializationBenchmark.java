@@ -0,0 +1,91 @@
+package com.efuture.product.benchmark;
+
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.events.kafka.EventFormat;
+import com.efuture.events.kafka.ProductCreationEventDeserializer;
+import com.efuture.events.kafka.ProductCreationEventSerializer;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static com.efuture.product.util.Constants.CARD_EVENT_TOPIC;
+
+/**
+ * Value (de)serialization of the product events: the previous Spring JsonSerializer with type headers, and the
+ * shared serializer in the binary and the JSON format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaSerializationBenchmark {
+
+    private JsonSerializer<ProductCreationEvent> springJsonSerializer;
+    private ProductCreationEventSerializer binarySerializer;
+    private ProductCreationEventSerializer jsonSerializer;
+    private ProductCreationEventDeserializer deserializer;
+    private ProductCreationEvent event;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        springJsonSerializer = new JsonSerializer<>();
+        binarySerializer = new ProductCreationEventSerializer(EventFormat.BINARY);
+        jsonSerializer = new ProductCreationEventSerializer(EventFormat.JSON);
+        deserializer = new ProductCreationEventDeserializer();
+        event = ProductCreationEvent.builder()
+                .productId("123456")
+                .name("hand bag - 2")
+                .price(new BigDecimal("2500.00"))
+                .category("fashion")
+                .build();
+        binary = binarySerializer.serialize(CARD_EVENT_TOPIC, event);
+        json = jsonSerializer.serialize(CARD_EVENT_TOPIC, event);
+    }
+
+    @TearDown
+    public void tearDown() {
+        springJsonSerializer.close();
+    }
+
+    @Benchmark
+    public byte[] serializeWithTypeHeaders() {
+        return springJsonSerializer.serialize(CARD_EVENT_TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binarySerializer.serialize(CARD_EVENT_TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return jsonSerializer.serialize(CARD_EVENT_TOPIC, event);
+    }
+
+    @Benchmark
+    public ProductCreationEvent deserializeBinary() {
+        return deserializer.deserialize(CARD_EVENT_TOPIC, binary);
+    }
+
+    @Benchmark
+    public ProductCreationEvent deserializeJson() {
+        return deserializer.deserialize(CARD_EVENT_TOPIC, json);
+    }
+}
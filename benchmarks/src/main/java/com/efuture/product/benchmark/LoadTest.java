@@ -0,0 +1,122 @@
+package com.efuture.product.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop HTTP load test of a running catalogue-service, used to compare the platform-thread and the
+ * virtual-thread execution modes. Each client sends its next request as soon as the previous one completed,
+ * for the warmup and then the measured duration, and the run reports the throughput and latency percentiles.
+ * Options are given as key=value pairs:
+ * url (default http://localhost:8081/api/products/category/fashion?size=100), token, clients (default 200),
+ * warmup (default 10s) and duration (default 30s).
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option[1]);
+        }
+        URI uri = URI.create(options.getOrDefault("url",
+                "http://localhost:8081/api/products/category/fashion?size=100"));
+        String token = options.get("token");
+        int clients = Integer.parseInt(options.getOrDefault("clients", "200"));
+        Duration warmup = Duration.parse("PT" + options.getOrDefault("warmup", "10s"));
+        Duration duration = Duration.parse("PT" + options.getOrDefault("duration", "30s"));
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri).GET().timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            requestBuilder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = requestBuilder.build();
+
+        System.out.printf("%s with %d clients, warmup %s, duration %s%n", uri, clients, warmup, duration);
+        try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+             ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            long measureFrom = System.nanoTime() + warmup.toNanos();
+            long measureTo = measureFrom + duration.toNanos();
+            List<Future<Result>> futures = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                futures.add(workers.submit(() -> run(client, request, measureFrom, measureTo)));
+            }
+            Result total = new Result();
+            for (Future<Result> future : futures) {
+                total.merge(future.get());
+            }
+            report(total, duration);
+        }
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, long measureFrom, long measureTo) {
+        Result result = new Result();
+        long now;
+        while ((now = System.nanoTime()) < measureTo) {
+            boolean ok;
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                ok = status < 400;
+            } catch (Exception e) {
+                ok = false;
+            }
+            if (now >= measureFrom) {
+                result.record(System.nanoTime() - now, ok);
+            }
+        }
+        return result;
+    }
+
+    private static void report(Result result, Duration duration) {
+        long[] latencies = Arrays.copyOf(result.latencies, result.count);
+        Arrays.sort(latencies);
+        System.out.printf("requests: %d, errors: %d%n", result.count, result.errors);
+        System.out.printf("throughput: %.1f req/s%n", result.count / (duration.toMillis() / 1000.0));
+        System.out.printf("latency ms: p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                percentile(latencies, 99.9), percentile(latencies, 100));
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class Result {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        void record(long latency, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void merge(Result other) {
+            latencies = Arrays.copyOf(latencies, Math.max(latencies.length, count + other.count));
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+    }
+}
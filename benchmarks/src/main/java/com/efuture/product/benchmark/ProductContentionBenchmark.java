@@ -0,0 +1,131 @@
+package com.efuture.product.benchmark;
+
+import com.efuture.product.entity.Product;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.SessionFactory;
+import org.hibernate.StaleStateException;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of concurrent read-modify-write updates of the same products, the way updateProduct changes a
+ * product: with the optimistic version check of the product entity, where the writer that loses the check reads
+ * the product again and retries, against a pessimistic row lock taken by the read (select ... for update), which
+ * serializes the writers of a product. hotProducts is the number of products the writers share.
+ * Hibernate runs over an in-memory H2 database, so the results compare the two approaches rather than predict
+ * the throughput of MySQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ProductContentionBenchmark {
+
+    private static final BigDecimal PRICE_STEP = new BigDecimal("0.01");
+
+    @Param({"1", "16", "1024"})
+    private int hotProducts;
+
+    private HikariDataSource dataSource;
+    private SessionFactory sessionFactory;
+    private long firstId;
+
+    /**
+     * Optimistic writers that had to start over, reported next to the throughput
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Conflicts {
+        public long retries;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        //row locks wait for the writers ahead in the queue instead of failing
+        dataSource.setJdbcUrl("jdbc:h2:mem:contention;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000");
+        dataSource.setMaximumPoolSize(Runtime.getRuntime().availableProcessors() * 4);
+        Configuration configuration = new Configuration().addAnnotatedClass(Product.class);
+        configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+        configuration.getProperties().put(AvailableSettings.HBM2DDL_AUTO, "create");
+        sessionFactory = configuration.buildSessionFactory();
+
+        firstId = sessionFactory.fromTransaction(session -> {
+            Long first = null;
+            for (int i = 0; i < hotProducts; i++) {
+                Product product = new Product();
+                product.setName("hot product " + i);
+                product.setCategory("fashion");
+                product.setPrice(new BigDecimal(100));
+                product.setStatus("A");
+                session.persist(product);
+                if (first == null) {
+                    first = product.getId();
+                }
+            }
+            return first;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public BigDecimal optimistic(Conflicts conflicts) {
+        long id = nextId();
+        while (true) {
+            try {
+                return sessionFactory.fromTransaction(session -> {
+                    Product product = session.find(Product.class, id);
+                    product.setPrice(product.getPrice().add(PRICE_STEP));
+                    //the version check runs with the update statement of the flush
+                    session.flush();
+                    return product.getPrice();
+                });
+            } catch (OptimisticLockException | StaleStateException e) {
+                conflicts.retries++;
+            }
+        }
+    }
+
+    @Benchmark
+    public BigDecimal pessimistic() {
+        long id = nextId();
+        return sessionFactory.fromTransaction(session -> {
+            Product product = session.find(Product.class, id, LockModeType.PESSIMISTIC_WRITE);
+            product.setPrice(product.getPrice().add(PRICE_STEP));
+            return product.getPrice();
+        });
+    }
+
+    private long nextId() {
+        return firstId + ThreadLocalRandom.current().nextInt(hotProducts);
+    }
+}
@@ -0,0 +1,59 @@
+package com.efuture.product.benchmark;
+
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.product.benchmark.support.Fixtures;
+import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductView;
+import com.efuture.product.entity.Product;
+import com.efuture.product.mapper.ProductMapper;
+import com.efuture.product.mapper.ProductMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the MapStruct generated mapper on the read and create paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductMapperBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int size;
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+    private List<Product> products;
+    private List<ProductView> productViews;
+
+    @Setup
+    public void setUp() {
+        products = Fixtures.products(size);
+        productViews = Fixtures.productViews(size);
+    }
+
+    @Benchmark
+    public List<ProductInformation> mapToProductInformationList() {
+        return productMapper.mapToProductInformationList(productViews);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public ProductCreationEvent mapToProductCreationEvent() {
+        return productMapper.mapToProductCreationEvent(products.get(0));
+    }
+}
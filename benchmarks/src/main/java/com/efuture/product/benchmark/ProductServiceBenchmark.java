@@ -0,0 +1,116 @@
+package com.efuture.product.benchmark;
+
+import com.efuture.product.benchmark.support.Fixtures;
+import com.efuture.product.benchmark.support.InMemoryRepositories;
+import com.efuture.product.cache.ProductListVersions;
+import com.efuture.product.cache.ProductQueryCache;
+import com.efuture.product.dto.CreateProductRequest;
+import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductPage;
+import com.efuture.product.dto.UpdateProductRequest;
+import com.efuture.product.entity.Product;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.index.FacetIndex;
+import com.efuture.product.index.PriceIndex;
+import com.efuture.product.index.SearchIndex;
+import com.efuture.product.mapper.ProductMapper;
+import com.efuture.product.mapper.ProductMapperImpl;
+import com.efuture.product.metrics.ProductMetrics;
+import com.efuture.product.repository.ProductRepository;
+import com.efuture.product.service.OutboxService;
+import com.efuture.product.service.ProductService;
+import com.efuture.product.util.Response;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end cost of the product service methods over in-memory repositories: mapping, validation,
+ * outbox serialization and the read-through cache, without the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int catalogueSize;
+
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    private ProductService productService;
+    private final CreateProductRequest createProductRequest =
+            new CreateProductRequest("hand bag - 2", "bag in different colours", 2500.0, "fashion");
+    private final UpdateProductRequest updateProductRequest =
+            new UpdateProductRequest("cross body bag", null, 1500.0);
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        NavigableMap<Long, Product> store = InMemoryRepositories.newStore();
+        Fixtures.products(catalogueSize).forEach(product -> store.put(product.getId(), product));
+
+        ProductRepository productRepository = InMemoryRepositories.productRepository(store);
+        ProductMapper productMapper = new ProductMapperImpl();
+        OutboxService outboxService = new OutboxService(InMemoryRepositories.outboxEventRepository(),
+                new ObjectMapper());
+        ProductListVersions productListVersions = new ProductListVersions(
+                InMemoryRepositories.productListVersionRepository(), InMemoryRepositories.transactionManager(),
+                Duration.ofSeconds(1));
+        ProductQueryCache productQueryCache = new ProductQueryCache(cacheEnabled, 10_000, Duration.ofMinutes(5),
+                productListVersions, new SimpleMeterRegistry());
+        //the price, search and facet indexes are disabled, so they never open a transaction
+        PriceIndex priceIndex = new PriceIndex(false, productRepository, productMapper, null, null);
+        SearchIndex searchIndex = new SearchIndex(false, productRepository, productMapper, null, null);
+        FacetIndex facetIndex = new FacetIndex(false, productRepository, null, null);
+        productService = new ProductService(productRepository, productMapper, outboxService,
+                InMemoryRepositories.entityManager(), productQueryCache, priceIndex, searchIndex, facetIndex,
+                event -> {
+                    //the change events reach the outbox as in the application context
+                    if (event instanceof ProductChangedEvent changed) {
+                        outboxService.onProductChanged(changed);
+                    }
+                }, new ProductMetrics(new SimpleMeterRegistry()), InMemoryRepositories.transactionManager());
+    }
+
+    @Benchmark
+    public Response<ProductInformation> createProduct() {
+        return productService.createProduct(createProductRequest);
+    }
+
+    @Benchmark
+    public Response<ProductInformation> updateProduct() {
+        long productId = ThreadLocalRandom.current().nextLong(1, catalogueSize + 1);
+        return productService.updateProduct(productId, null, updateProductRequest);
+    }
+
+    @Benchmark
+    public Response<ProductPage> getProductByCategory() {
+        return productService.getProductByCategory("fashion", null, 100);
+    }
+
+    @Benchmark
+    public Response<List<ProductInformation>> getPremiumProducts() {
+        return productService.getPremiumProducts();
+    }
+}
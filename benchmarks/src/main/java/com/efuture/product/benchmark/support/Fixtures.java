@@ -0,0 +1,59 @@
+package com.efuture.product.benchmark.support;
+
+import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductView;
+import com.efuture.product.entity.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static com.efuture.product.util.Constants.ProductStatus.ACTIVE;
+
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param size number of products
+     * @return active products with ids 1..size, in two categories and with prices spread between 0 and 1000
+     */
+    public static List<Product> products(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setName("product " + i);
+            product.setDescription("description of product " + i + " in several colours - red, black, brown");
+            product.setPrice(BigDecimal.valueOf(random.nextInt(100_000), 2));
+            product.setCategory(i % 2 == 0 ? "fashion" : "electronics");
+            product.setStatus(ACTIVE.getValue());
+            products.add(product);
+        }
+        return products;
+    }
+
+    public static ProductView view(Product product) {
+        return new ProductView(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getCategory(), product.getStatus());
+    }
+
+    public static List<ProductView> productViews(int size) {
+        return products(size).stream().map(Fixtures::view).toList();
+    }
+
+    public static List<ProductInformation> productInformationList(int size) {
+        return products(size).stream()
+                .map(product -> ProductInformation.builder()
+                        .productId(String.valueOf(product.getId()))
+                        .name(product.getName())
+                        .description(product.getDescription())
+                        .price(product.getPrice().doubleValue())
+                        .status(product.getStatus())
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,126 @@
+package com.efuture.product.benchmark.support;
+
+import com.efuture.product.entity.OutboxEvent;
+import com.efuture.product.entity.Product;
+import com.efuture.product.repository.OutboxEventRepository;
+import com.efuture.product.repository.ProductListVersionRepository;
+import com.efuture.product.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Map backed stand-ins for the Spring Data repositories, the entity manager and the transaction manager,
+ * implementing only the methods the product service calls, so that the service can be benchmarked without a
+ * database.
+ */
+public final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    public static ProductRepository productRepository(NavigableMap<Long, Product> products) {
+        AtomicLong ids = new AtomicLong(products.isEmpty() ? 0 : products.lastKey());
+        Function<Object[], Object> save = args -> {
+            Product product = (Product) args[0];
+            if (product.getId() == null) {
+                product.setId(ids.incrementAndGet());
+            }
+            //as the version check of the flush
+            product.setVersion(product.getVersion() == null ? 0 : product.getVersion() + 1);
+            products.put(product.getId(), product);
+            return product;
+        };
+        return proxy(ProductRepository.class, Map.of(
+                "save", save,
+                "saveAndFlush", save,
+                "saveAll", args -> {
+                    List<Object> saved = new ArrayList<>();
+                    ((Iterable<?>) args[0]).forEach(product -> saved.add(save.apply(new Object[]{product})));
+                    return saved;
+                },
+                "findById", args -> Optional.ofNullable(products.get((Long) args[0])),
+                "findByCategoryAndStatusAndIdGreaterThanOrderByIdAsc", args -> products
+                        .tailMap((Long) args[2], false).values().stream()
+                        .filter(product -> product.getCategory().equals(args[0])
+                                && product.getStatus().equals(args[1]))
+                        .limit(((Limit) args[3]).max())
+                        .map(Fixtures::view)
+                        .toList(),
+                "findByStatusAndPriceGreaterThanEqualOrderByPrice", args -> products.values().stream()
+                        .filter(product -> product.getStatus().equals(args[0])
+                                && product.getPrice().compareTo((BigDecimal) args[1]) >= 0)
+                        .sorted(Comparator.comparing(Product::getPrice))
+                        .map(Fixtures::view)
+                        .toList()));
+    }
+
+    public static OutboxEventRepository outboxEventRepository() {
+        AtomicLong ids = new AtomicLong();
+        Function<Object[], Object> save = args -> {
+            OutboxEvent outboxEvent = (OutboxEvent) args[0];
+            outboxEvent.setId(ids.incrementAndGet());
+            return outboxEvent;
+        };
+        return proxy(OutboxEventRepository.class, Map.of(
+                "save", save,
+                "saveAll", args -> {
+                    List<Object> saved = new ArrayList<>();
+                    ((Iterable<?>) args[0]).forEach(event -> saved.add(save.apply(new Object[]{event})));
+                    return saved;
+                }));
+    }
+
+    public static ProductListVersionRepository productListVersionRepository() {
+        //the benchmark publishes no product changes, so the lists stay at their first version
+        return proxy(ProductListVersionRepository.class, Map.of(
+                "findVersion", args -> null,
+                "increment", args -> null));
+    }
+
+    public static EntityManager entityManager() {
+        return proxy(EntityManager.class, Map.of(
+                "flush", args -> null,
+                "clear", args -> null));
+    }
+
+    public static PlatformTransactionManager transactionManager() {
+        return proxy(PlatformTransactionManager.class, Map.of(
+                "getTransaction", args -> new SimpleTransactionStatus(),
+                "commit", args -> null,
+                "rollback", args -> null));
+    }
+
+    public static NavigableMap<Long, Product> newStore() {
+        return new TreeMap<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> implementation = methods.get(method.getName());
+            if (implementation != null) {
+                return implementation.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + " (in memory)";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+        });
+    }
+}
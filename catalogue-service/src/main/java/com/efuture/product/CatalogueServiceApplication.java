@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.info.Info;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @EntityScan("com.efuture.product")
@@ -15,6 +16,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
                 description = "This service handles product details"
         )
 )
+@EnableScheduling
 @EnableTransactionManagement
 @SpringBootApplication
 public class CatalogueServiceApplication {
@@ -0,0 +1,222 @@
+package com.efuture.product.cache;
+
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.repository.ProductListVersionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Versions of the cached product lists, kept in the product_list_version table so that all instances agree on
+ * them. A product change bumps the versions of its category and, if it was or became premium, of the premium
+ * list, once per list and transaction, and every change bumps the catalogue version which the in-memory indexes
+ * compare their state with. The versions are cached for a short TTL, so an instance sees the changes of the other
+ * instances within that TTL, and its own changes right after commit.
+ * The bumps run in a short transaction of their own once the writing transaction has committed, so the version
+ * rows, which every write of a list or of the catalogue updates, are only locked for that update rather than for
+ * the whole writing transaction. Until the bump, the lists keep their previous version while the change is
+ * already visible; lists bumped by a failed bump are bumped again with the next change of this instance.
+ * The catalogue versions bumped by this instance are recorded, so that an index which applied the local changes
+ * from their after-commit events, which run before the bump, does not count them as changes to catch up with.
+ */
+@Slf4j
+@Component
+public class ProductListVersions {
+
+    static final String PREMIUM_LIST = "premium";
+    static final String CATALOGUE_LIST = "catalogue";
+
+    private final ProductListVersionRepository productListVersionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final Cache<String, Long> versions;
+    //lists whose bump failed, retried with the next bump
+    private final Set<String> failedLists = ConcurrentHashMap.newKeySet();
+    //catalogue versions bumped by the changes of this instance
+    private final NavigableSet<Long> localCatalogueVersions = new ConcurrentSkipListSet<>();
+
+    public ProductListVersions(ProductListVersionRepository productListVersionRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${catalogue.list-versions.ttl:1s}") Duration ttl) {
+        this.productListVersionRepository = productListVersionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        //the bumps run after the writing transaction has completed, which may still be bound to the thread
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * @param category category
+     * @return version of the category pages, moved forward on every change of a product in the category
+     */
+    public long getCategoryVersion(String category) {
+        return getVersion(categoryList(category));
+    }
+
+    /**
+     * @return version of the premium product list, moved forward on every change of a premium product
+     */
+    public long getPremiumVersion() {
+        return getVersion(PREMIUM_LIST);
+    }
+
+    /**
+     * @return version of the whole catalogue, moved forward on every product change; it is re-read with every
+     * other list version, so it is never older than a list version handed out before
+     */
+    public long getCatalogueVersion() {
+        return getVersion(CATALOGUE_LIST);
+    }
+
+    /**
+     * Read the catalogue version in the current transaction, bypassing the cache: the changes up to it were
+     * committed before their bump, so they are visible in a snapshot taken by this read; a later change may be
+     * visible as well
+     * @return version of the whole catalogue
+     */
+    public long readCatalogueVersion() {
+        long version = findVersion(CATALOGUE_LIST);
+        cacheVersion(CATALOGUE_LIST, version);
+        return version;
+    }
+
+    /**
+     * Move a catalogue version forward over the versions right after it which were bumped by the changes of this
+     * instance, and forget the local versions up to the result
+     * @param version catalogue version whose changes were applied
+     * @return the last version of the run of local versions following it, the version itself if there is none
+     */
+    public long skipLocalVersions(long version) {
+        long skipped = version;
+        while (localCatalogueVersions.remove(skipped + 1)) {
+            skipped++;
+        }
+        localCatalogueVersions.headSet(skipped, true).clear();
+        return skipped;
+    }
+
+    /**
+     * Bump the versions of the lists touched by a product change, once the writing transaction has committed
+     * @param event product change, published inside the writing transaction
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        Set<String> lists = new TreeSet<>();
+        if (event.category() != null) {
+            lists.add(categoryList(event.category()));
+        }
+        if (event.affectsPremium()) {
+            lists.add(PREMIUM_LIST);
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            bump(lists);
+            return;
+        }
+        pendingLists().addAll(lists);
+    }
+
+    private long getVersion(String list) {
+        Long cached = versions.getIfPresent(list);
+        if (cached != null) {
+            return cached;
+        }
+        long[] read = readOnlyTransaction.execute(status -> new long[]{findVersion(list),
+                CATALOGUE_LIST.equals(list) ? 0 : findVersion(CATALOGUE_LIST)});
+        if (!CATALOGUE_LIST.equals(list)) {
+            //a product list is never served from an index state older than its version
+            cacheVersion(CATALOGUE_LIST, read[1]);
+        }
+        cacheVersion(list, read[0]);
+        return read[0];
+    }
+
+    private long findVersion(String list) {
+        Long version = productListVersionRepository.findVersion(list);
+        return version == null ? 0L : version;
+    }
+
+    //versions only move forward, a read which raced with a newer one is not cached over it
+    private void cacheVersion(String list, long version) {
+        versions.asMap().merge(list, version, Math::max);
+    }
+
+    /**
+     * Bump the list versions, and the catalogue version last, in a transaction of their own, record the catalogue
+     * version of the bump as local, then drop the cached versions so that the next read of this instance loads
+     * the new ones
+     */
+    private void bump(Set<String> lists) {
+        Set<String> bumped = new TreeSet<>(lists);
+        for (String failed : failedLists) {
+            if (failedLists.remove(failed)) {
+                bumped.add(failed);
+            }
+        }
+        try {
+            long catalogueVersion = writeTransaction.execute(status -> {
+                bumped.forEach(productListVersionRepository::increment);
+                productListVersionRepository.increment(CATALOGUE_LIST);
+                //the row stays locked until the commit, so this is the version of this bump
+                return findVersion(CATALOGUE_LIST);
+            });
+            localCatalogueVersions.add(catalogueVersion);
+        } catch (RuntimeException e) {
+            failedLists.addAll(bumped);
+            log.error("Failed to bump the versions of the lists:{}, they are bumped with the next change", bumped, e);
+        }
+        invalidate(bumped);
+    }
+
+    private void invalidate(Set<String> lists) {
+        versions.invalidateAll(lists);
+        versions.invalidate(CATALOGUE_LIST);
+    }
+
+    /**
+     * @return lists to bump when the current transaction commits, registering the commit hooks on first use
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> pendingLists() {
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        //sorted, so that concurrent transactions lock the version rows in the same order
+        Set<String> lists = new TreeSet<>();
+        TransactionSynchronizationManager.bindResource(this, lists);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ProductListVersions.this);
+                if (status == STATUS_COMMITTED) {
+                    bump(lists);
+                }
+            }
+        });
+        return lists;
+    }
+
+    private static String categoryList(String category) {
+        return "category/" + category;
+    }
+}
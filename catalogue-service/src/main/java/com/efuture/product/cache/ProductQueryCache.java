@@ -0,0 +1,143 @@
+package com.efuture.product.cache;
+
+import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductPage;
+import com.efuture.product.event.ProductChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of the mapped category pages and the premium product list.
+ * Entries are keyed by the shared version of their list from {@link ProductListVersions}, so an entry cached
+ * before a change made by any instance is not served once the new version is seen, and the pages of older
+ * versions are left to the size and TTL eviction rather than looked up on every change. Each list also has a local
+ * generation counter which is moved forward after commit by the local product changes, so a load which raced with
+ * a local write is not stored.
+ */
+@Slf4j
+@Component
+public class ProductQueryCache {
+
+    private final boolean enabled;
+    private final ProductListVersions productListVersions;
+    private final Cache<CategoryPageKey, ProductPage> categoryPages;
+    private final Cache<Long, List<ProductInformation>> premiumProducts;
+    private final Map<String, AtomicLong> categoryGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong premiumGeneration = new AtomicLong();
+
+    public ProductQueryCache(@Value("${catalogue.cache.enabled:true}") boolean enabled,
+                             @Value("${catalogue.cache.maximum-size:10000}") long maximumSize,
+                             @Value("${catalogue.cache.ttl:5m}") Duration ttl,
+                             ProductListVersions productListVersions, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.productListVersions = productListVersions;
+        this.categoryPages = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.premiumProducts = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, categoryPages, "products.category");
+        CaffeineCacheMetrics.monitor(meterRegistry, premiumProducts, "products.premium");
+    }
+
+    /**
+     * Get a category page from the cache, loading and caching it on a miss
+     * @param category category
+     * @param after cursor of the page
+     * @param size page size
+     * @param loader loads the page from the database
+     * @return product page
+     */
+    public ProductPage getCategoryPage(String category, long after, int size, Supplier<ProductPage> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        CategoryPageKey key = new CategoryPageKey(category, after, size,
+                productListVersions.getCategoryVersion(category));
+        ProductPage cached = categoryPages.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        AtomicLong generation = categoryGenerations.computeIfAbsent(category, c -> new AtomicLong());
+        long loadedGeneration = generation.get();
+        ProductPage page = loader.get();
+        if (generation.get() == loadedGeneration) {
+            categoryPages.put(key, page);
+        }
+        return page;
+    }
+
+    /**
+     * Get the premium product list from the cache, loading and caching it on a miss
+     * @param loader loads the list from the database
+     * @return premium product list
+     */
+    public List<ProductInformation> getPremiumProducts(Supplier<List<ProductInformation>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        long version = productListVersions.getPremiumVersion();
+        List<ProductInformation> cached = premiumProducts.getIfPresent(version);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedGeneration = premiumGeneration.get();
+        List<ProductInformation> products = loader.get();
+        if (premiumGeneration.get() == loadedGeneration) {
+            premiumProducts.put(version, products);
+        }
+        return products;
+    }
+
+    /**
+     * Invalidate the category pages of the changed product, and the premium list if the product was or
+     * became premium, in O(1) per change so that bulk changes do not scan the cache for every product
+     * @param event product change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.category() != null) {
+            invalidateCategory(event.category());
+        }
+        if (event.affectsPremium()) {
+            invalidatePremium();
+        }
+    }
+
+    /**
+     * Invalidate the cached pages of a category: the committed change has bumped the category version, so the
+     * pages keyed by the previous version are not served anymore, and a load in flight is not cached
+     * @param category category
+     */
+    public void invalidateCategory(String category) {
+        categoryGenerations.computeIfAbsent(category, c -> new AtomicLong()).incrementAndGet();
+        log.debug("invalidated cached pages of category:{}", category);
+    }
+
+    public void invalidatePremium() {
+        premiumGeneration.incrementAndGet();
+        premiumProducts.invalidateAll();
+        log.debug("invalidated cached premium products");
+    }
+
+    private record CategoryPageKey(String category, long after, int size, long version) {
+    }
+}
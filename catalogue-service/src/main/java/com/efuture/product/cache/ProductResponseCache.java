@@ -0,0 +1,131 @@
+package com.efuture.product.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the serialized category page and premium list responses, with conditional GET support.
+ * The strong ETag of a list is its shared version from {@link ProductListVersions}, so every instance gives the
+ * same ETag for the same list content. A request whose If-None-Match still matches the current
+ * version is answered with 304 without loading or serializing anything; otherwise the response bytes are served
+ * from the cache, keyed by the version so the entries of older versions are never served and age out by
+ * size and TTL.
+ */
+@Component
+public class ProductResponseCache {
+
+    private static final String PREMIUM_KEY = "premium";
+
+    private final boolean enabled;
+    private final ProductListVersions productListVersions;
+    private final ObjectMapper objectMapper;
+    private final Cache<ResponseKey, byte[]> responses;
+    private final Counter categoryNotModified;
+    private final Counter premiumNotModified;
+
+    public ProductResponseCache(@Value("${catalogue.response-cache.enabled:true}") boolean enabled,
+                                @Value("${catalogue.response-cache.maximum-size:64MB}") DataSize maximumSize,
+                                @Value("${catalogue.response-cache.ttl:5m}") Duration ttl,
+                                ProductListVersions productListVersions, ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.productListVersions = productListVersions;
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((ResponseKey key, byte[] body) -> body.length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "products.responses");
+        this.categoryNotModified = notModifiedCounter(meterRegistry, "category");
+        this.premiumNotModified = notModifiedCounter(meterRegistry, PREMIUM_KEY);
+    }
+
+    /**
+     * Get the serialized category page response
+     * @param category category
+     * @param after cursor of the page as requested
+     * @param size page size as requested
+     * @param request request holding the If-None-Match header
+     * @param loader loads the response body
+     * @return 304 if the client copy is current, otherwise 200 with the json body and the ETag
+     */
+    public ResponseEntity<byte[]> getCategoryPage(String category, Long after, Integer size, WebRequest request,
+                                                  Supplier<?> loader) {
+        return respond("category/" + category, after, size, () -> productListVersions.getCategoryVersion(category),
+                categoryNotModified, request, loader);
+    }
+
+    /**
+     * Get the serialized premium product list response
+     * @param request request holding the If-None-Match header
+     * @param loader loads the response body
+     * @return 304 if the client copy is current, otherwise 200 with the json body and the ETag
+     */
+    public ResponseEntity<byte[]> getPremiumProducts(WebRequest request, Supplier<?> loader) {
+        return respond(PREMIUM_KEY, null, null, productListVersions::getPremiumVersion, premiumNotModified, request,
+                loader);
+    }
+
+    private ResponseEntity<byte[]> respond(String list, Long after, Integer size, LongSupplier currentVersion,
+                                           Counter notModified, WebRequest request, Supplier<?> loader) {
+        long version = currentVersion.getAsLong();
+        String eTag = "\"" + version + "\"";
+        if (request.checkNotModified(eTag)) {
+            notModified.increment();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        ResponseKey key = new ResponseKey(list, after, size, version);
+        byte[] body = enabled ? responses.getIfPresent(key) : null;
+        if (body == null) {
+            body = serialize(loader.get());
+            //a body loaded while the version moved may already hold the change, it is only cached for the version
+            //it was loaded at when nothing changed in between
+            if (enabled && currentVersion.getAsLong() == version) {
+                responses.put(key, body);
+            }
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private byte[] serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Counter notModifiedCounter(MeterRegistry meterRegistry, String list) {
+        return Counter.builder("catalogue.response.not.modified")
+                .tag("list", list)
+                .description("Conditional list requests answered with 304")
+                .register(meterRegistry);
+    }
+
+    private record ResponseKey(String list, Long after, Integer size, long version) {
+    }
+}
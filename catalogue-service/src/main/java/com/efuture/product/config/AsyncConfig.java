@@ -0,0 +1,27 @@
+package com.efuture.product.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Timeout of the asynchronous requests, which are the category streams and the catalogue exports. Without it the
+ * container default of 30 seconds applies and a longer stream is cut off after its 200 status was sent.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    private final Duration streamTimeout;
+
+    public AsyncConfig(@Value("${catalogue.stream.timeout:1h}") Duration streamTimeout) {
+        this.streamTimeout = streamTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(streamTimeout.toMillis());
+    }
+}
@@ -1,44 +1,80 @@
 package com.efuture.product.config;
 
 
-import com.efuture.product.dto.ProductCreationEvent;
+import com.efuture.events.ProductEvent;
+import com.efuture.events.kafka.ProductCreationEventSerializer;
+import com.efuture.events.kafka.ProductEventSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
-import java.util.HashMap;
 import java.util.Map;
 
-import static com.efuture.product.util.Constants.KAFKA_BOOTSTRAP_SERVERS;
+import static com.efuture.product.util.Constants.CARD_EVENT_TOPIC;
+import static com.efuture.product.util.Constants.PRODUCT_CHANGE_TOPIC;
 
 
+/**
+ * Kafka producer and topic configuration.
+ * The producer is built from the spring.kafka.producer.* properties, so batching, compression, idempotence and
+ * in-flight limits are tuned in configuration; the high-throughput profile holds the tuned values.
+ * Event values are written in the compact binary format, or as JSON when catalogue.kafka.event-format is json.
+ * The change topic is log compacted: as the last change event of a product holds its whole state, the topic
+ * keeps the current catalogue, deleted products included, and a consumer can bootstrap from its beginning.
+ */
 @Configuration
 public class KafkaProducerConfig {
 
     @Bean
-    public ProducerFactory<String, ProductCreationEvent> producerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, KAFKA_BOOTSTRAP_SERVERS);
+    public ProducerFactory<String, ProductEvent> producerFactory(
+            KafkaProperties kafkaProperties, SslBundles sslBundles, MeterRegistry meterRegistry,
+            @Value("${catalogue.kafka.event-format:binary}") String eventFormat) {
+        Map<String, Object> configProps = kafkaProperties.buildProducerProperties(sslBundles);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ProductEventSerializer.class);
+        configProps.put(ProductCreationEventSerializer.FORMAT_CONFIG, eventFormat);
+        DefaultKafkaProducerFactory<String, ProductEvent> producerFactory =
+                new DefaultKafkaProducerFactory<>(configProps);
+        //expose the producer client metrics (batch size, compression rate, request latency) through Micrometer
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return producerFactory;
     }
 
 
     @Bean
-    public KafkaTemplate<String, ProductCreationEvent> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, ProductEvent> kafkaTemplate(
+            ProducerFactory<String, ProductEvent> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 
     @Bean
-    public NewTopic topic1() {
-        return new NewTopic("product-topic", 1, (short) 1);
+    public NewTopic topic1(@Value("${catalogue.kafka.topic.partitions:1}") int partitions,
+                           @Value("${catalogue.kafka.topic.replicas:1}") short replicas) {
+        return TopicBuilder.name(CARD_EVENT_TOPIC)
+                .partitions(partitions)
+                .replicas(replicas)
+                .build();
+    }
+
+    @Bean
+    public NewTopic productChangeTopic(@Value("${catalogue.kafka.topic.partitions:1}") int partitions,
+                                      @Value("${catalogue.kafka.topic.replicas:1}") short replicas) {
+        return TopicBuilder.name(PRODUCT_CHANGE_TOPIC)
+                .partitions(partitions)
+                .replicas(replicas)
+                .compact()
+                .build();
     }
 
 }
@@ -0,0 +1,107 @@
+package com.efuture.product.config;
+
+import com.efuture.product.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replica routing, enabled when catalogue.datasource.replica-urls is set.
+ * The primary pool is configured from spring.datasource.*, the replica pools share its credentials and its
+ * spring.datasource.hikari.* settings. Each replica also gets a single connection pool for its health checks,
+ * which gives up after the health check timeout.
+ */
+@Configuration
+@ConditionalOnProperty(name = "catalogue.datasource.replica-urls")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource, DataSourceProperties properties,
+            Environment environment, MeterRegistry meterRegistry,
+            @Value("${catalogue.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${catalogue.datasource.replica-pool-size:10}") int replicaPoolSize,
+            @Value("${catalogue.datasource.replica-max-lag:5s}") Duration replicaMaxLag,
+            @Value("${catalogue.datasource.primary-reads-after-write:10s}") Duration primaryReadsAfterWrite,
+            @Value("${catalogue.datasource.replica-health-check-timeout:1s}") Duration healthCheckTimeout) {
+        Binder binder = Binder.get(environment);
+        List<DataSource> replicas = new ArrayList<>();
+        List<DataSource> healthChecks = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String url = replicaUrls.get(i).trim();
+            HikariDataSource replica = replicaPool(properties, url);
+            //same pool settings as the primary, except for the name, the size and the read-only flag
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+            healthChecks.add(healthCheckPool(properties, url, "replica-" + i + "-health", healthCheckTimeout));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, healthChecks, replicaMaxLag,
+                primaryReadsAfterWrite, meterRegistry);
+    }
+
+    /**
+     * Single connection pool for the health checks of a replica, failing fast when the replica is unreachable
+     * @param properties primary data source properties, for the credentials
+     * @param url replica url
+     * @param poolName pool name
+     * @param timeout connection, validation and socket timeout
+     * @return health check pool
+     */
+    static HikariDataSource healthCheckPool(DataSourceProperties properties, String url, String poolName,
+                                            Duration timeout) {
+        HikariDataSource healthCheck = replicaPool(properties, url);
+        healthCheck.setPoolName(poolName);
+        healthCheck.setMaximumPoolSize(1);
+        healthCheck.setMinimumIdle(0);
+        healthCheck.setReadOnly(true);
+        //HikariCP does not accept timeouts below 250ms
+        long timeoutMillis = Math.max(250, timeout.toMillis());
+        healthCheck.setConnectionTimeout(timeoutMillis);
+        healthCheck.setValidationTimeout(timeoutMillis);
+        //an unreachable replica must not fail the start
+        healthCheck.setInitializationFailTimeout(-1);
+        //Connector/J timeouts of the TCP connect and of the status query
+        healthCheck.addDataSourceProperty("connectTimeout", timeoutMillis);
+        healthCheck.addDataSourceProperty("socketTimeout", timeoutMillis);
+        return healthCheck;
+    }
+
+    private static HikariDataSource replicaPool(DataSourceProperties properties, String url) {
+        return properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        //JPA takes the connection before the transaction is marked read-only, defer it to the first statement
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -1,5 +1,6 @@
 package com.efuture.product.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -18,11 +19,14 @@ public class SecurityConfig {
 
     private final CustomAccessDeniedHandler accessDeniedHandler;
     private final AuthenticationEntryPoint authenticationEntryPoint;
+    private final int managementPort;
 
     public SecurityConfig(CustomAccessDeniedHandler accessDeniedHandler,
-                          AuthenticationEntryPoint authenticationEntryPoint) {
+                          AuthenticationEntryPoint authenticationEntryPoint,
+                          @Value("${management.server.port:-1}") int managementPort) {
         this.accessDeniedHandler = accessDeniedHandler;
         this.authenticationEntryPoint = authenticationEntryPoint;
+        this.managementPort = managementPort;
     }
 
     @Bean
@@ -36,9 +40,17 @@ public class SecurityConfig {
                                 "/v2/api-docs",
                                 "/webjars/**",
                                 "/v3/api-docs/**",
-                                "/api/card/**")
+                                "/api/card/**",
+                                "/actuator/health")
                         .permitAll()
-                        .requestMatchers(HttpMethod.GET, "/api/products/premium", "/api/products/category/**")
+                        //the metrics are only public on the management port, which is not exposed
+                        .requestMatchers(request -> request.getLocalPort() == managementPort
+                                && "/actuator/prometheus".equals(request.getRequestURI()))
+                        .permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/products/premium", "/api/products/price",
+                                "/api/products/search", "/api/products/facets", "/api/products/category/**")
+                        .hasAnyRole("Admin","User")
+                        .requestMatchers(HttpMethod.POST, "/api/products/lookup")
                         .hasAnyRole("Admin","User")
                         .anyRequest().hasRole("Admin")
                 )
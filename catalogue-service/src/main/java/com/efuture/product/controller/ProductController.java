@@ -1,67 +1,230 @@
 package com.efuture.product.controller;
 
+import com.efuture.product.cache.ProductResponseCache;
+import com.efuture.product.dto.BulkCreateProductRequest;
+import com.efuture.product.dto.BulkDeleteRequest;
+import com.efuture.product.dto.BulkRepriceRequest;
+import com.efuture.product.dto.BulkUpdateResult;
+import com.efuture.product.dto.CategoryFacet;
 import com.efuture.product.dto.CreateProductRequest;
 import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductLookup;
+import com.efuture.product.dto.ProductLookupRequest;
 import com.efuture.product.dto.UpdateProductRequest;
+import com.efuture.product.exception.InvalidRequestException;
+import com.efuture.product.service.ProductExportService;
 import com.efuture.product.service.ProductService;
 import com.efuture.product.util.Response;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.List;
 
+import static com.efuture.product.util.Constants.ErrorDescription.INVALID_IF_MATCH_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorMsg.INVALID_IF_MATCH;
+
+@Slf4j
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
+    private static final String EXPORT_CONTENT_TYPE = "application/gzip";
+    private static final String EXPORT_FILE_NAME = "products.ndjson.gz";
+
     private final ProductService productService;
+    private final ProductExportService productExportService;
+    private final ProductResponseCache productResponseCache;
+    private final ObjectMapper objectMapper;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductExportService productExportService,
+                             ProductResponseCache productResponseCache, ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productExportService = productExportService;
+        this.productResponseCache = productResponseCache;
+        //stream documents are written by one generator, which keeps the target stream open and only flushes it
+        //when closed
+        this.objectMapper = objectMapper.copy()
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
-    @ResponseStatus(HttpStatus.CREATED)
     @PostMapping
-    public Response<ProductInformation> createProduct(
+    public ResponseEntity<Response<ProductInformation>> createProduct(
             @Valid @RequestBody CreateProductRequest createProductRequest) {
-        return productService.createProduct(createProductRequest);
+        return withVersion(HttpStatus.CREATED, productService.createProduct(createProductRequest));
+    }
+
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/bulk")
+    public Response<List<ProductInformation>> createProducts(
+            @Valid @RequestBody BulkCreateProductRequest bulkCreateProductRequest) {
+        return productService.createProducts(bulkCreateProductRequest);
     }
 
     @ResponseStatus(HttpStatus.OK)
+    @PostMapping("/bulk/reprice")
+    public Response<BulkUpdateResult> repriceProducts(
+            @Valid @RequestBody BulkRepriceRequest bulkRepriceRequest) {
+        return productService.repriceProducts(bulkRepriceRequest);
+    }
+
+    @ResponseStatus(HttpStatus.OK)
+    @PostMapping("/bulk/delete")
+    public Response<BulkUpdateResult> deleteProducts(
+            @Valid @RequestBody BulkDeleteRequest bulkDeleteRequest) {
+        return productService.deleteProducts(bulkDeleteRequest);
+    }
+
     @PatchMapping("/{product_id}")
-    public Response<ProductInformation> updateProduct(
+    public ResponseEntity<Response<ProductInformation>> updateProduct(
             @PathVariable("product_id") Long productId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateProductRequest updateProductRequest) {
-        return productService.updateProduct(productId, updateProductRequest);
+        return withVersion(HttpStatus.OK,
+                productService.updateProduct(productId, expectedVersion(ifMatch), updateProductRequest));
     }
 
-    @ResponseStatus(HttpStatus.OK)
     @DeleteMapping("/{product_id}")
-    public Response<ProductInformation> deleteProduct(
-            @PathVariable("product_id") Long productId) {
-        return productService.deleteProduct(productId);
+    public ResponseEntity<Response<ProductInformation>> deleteProduct(
+            @PathVariable("product_id") Long productId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withVersion(HttpStatus.OK, productService.deleteProduct(productId, expectedVersion(ifMatch)));
     }
 
-    @ResponseStatus(HttpStatus.OK)
     @GetMapping("/category/{category}")
-    public Response<List<ProductInformation>> getProductsByCategory(
+    public ResponseEntity<byte[]> getProductsByCategory(
+            @NotBlank(message = "Category is mandatory") @PathVariable("category") String category,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "size", required = false) Integer size,
+            WebRequest request) {
+        return productResponseCache.getCategoryPage(category, after, size, request,
+                () -> productService.getProductByCategory(category, after, size));
+    }
+
+    @GetMapping(value = "/category/{category}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsByCategory(
             @NotBlank(message = "Category is mandatory") @PathVariable("category") String category) {
-        return productService.getProductByCategory(category);
+        //write one json document per line as the rows come off the cursor, through the buffer of one generator
+        //for the whole response, flushed once done
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                productService.streamProductsByCategory(category, productInformation -> {
+                    try {
+                        objectMapper.writeValue(generator, productInformation);
+                        generator.writeRaw('\n');
+                        return true;
+                    } catch (IOException e) {
+                        //the client went away or the request timed out, stop reading the cursor
+                        log.debug("Stopped streaming category {}: {}", category, e.getMessage());
+                        return false;
+                    }
+                });
+            } catch (IOException e) {
+                log.debug("Failed to flush the stream of category {}: {}", category, e.getMessage());
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping(value = "/export", produces = EXPORT_CONTENT_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = productExportService::export;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(EXPORT_CONTENT_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(EXPORT_FILE_NAME).build().toString())
+                .body(body);
     }
 
     @GetMapping("/premium")
-    public Response<List<ProductInformation>> getPremiumProducts() {
-        return productService.getPremiumProducts();
+    public ResponseEntity<byte[]> getPremiumProducts(WebRequest request) {
+        return productResponseCache.getPremiumProducts(request, productService::getPremiumProducts);
+    }
+
+    @GetMapping("/facets")
+    public Response<List<CategoryFacet>> getFacets(
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "edges", required = false) List<BigDecimal> edges) {
+        return productService.getFacets(category, edges);
+    }
+
+    @GetMapping("/search")
+    public Response<List<ProductInformation>> searchProducts(
+            @RequestParam(value = "q") String query,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return productService.searchProducts(query, size);
     }
 
+    @ResponseStatus(HttpStatus.OK)
+    @PostMapping("/lookup")
+    public Response<ProductLookup> getProductsByIds(
+            @Valid @RequestBody ProductLookupRequest productLookupRequest) {
+        return productService.getProductsByIds(productLookupRequest.productIds());
+    }
+
+    @GetMapping("/price")
+    public Response<List<ProductInformation>> getProductsByPriceRange(
+            @RequestParam(value = "min", defaultValue = "0") BigDecimal minPrice,
+            @RequestParam(value = "max", required = false) BigDecimal maxPrice) {
+        return productService.getProductsByPriceRange(minPrice, maxPrice);
+    }
 
+    /**
+     * Parse the If-Match header of a single product change
+     * @param ifMatch header value, an ETag of the product or *
+     * @return expected product version, null if any version may be changed
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        //strong ETags only, If-Match never matches a weak one
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                //reported below
+            }
+        }
+        throw new InvalidRequestException(INVALID_IF_MATCH, String.format(INVALID_IF_MATCH_DESCRIPTION, ifMatch));
+    }
+
+    /**
+     * Answer with the product version as the ETag, to be sent back as If-Match by the next change
+     */
+    private static ResponseEntity<Response<ProductInformation>> withVersion(HttpStatus status,
+                                                                            Response<ProductInformation> response) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+        if (response.getData() != null && response.getData().getVersion() != null) {
+            builder.eTag("\"" + response.getData().getVersion() + "\"");
+        }
+        return builder.body(response);
+    }
 }
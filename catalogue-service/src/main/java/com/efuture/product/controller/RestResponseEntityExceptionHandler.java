@@ -1,7 +1,10 @@
 package com.efuture.product.controller;
 
 import com.efuture.product.exception.InvalidRequestException;
+import com.efuture.product.exception.PreconditionFailedException;
+import com.efuture.product.exception.ServiceUnavailableException;
 import com.efuture.product.util.Response;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -17,7 +20,12 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.efuture.product.util.Constants.ErrorDescription.CONCURRENT_UPDATE_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorMsg.CONCURRENT_UPDATE;
 import static com.efuture.product.util.Constants.ResponseCodes.STATUS_BAD_REQUEST;
+import static com.efuture.product.util.Constants.ResponseCodes.STATUS_CONFLICT;
+import static com.efuture.product.util.Constants.ResponseCodes.STATUS_PRECONDITION_FAILED;
+import static com.efuture.product.util.Constants.ResponseCodes.STATUS_SERVICE_UNAVAILABLE;
 
 @ControllerAdvice
 public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
@@ -35,6 +43,48 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Object> handlePreconditionFailedException(
+            PreconditionFailedException ex, WebRequest request) {
+
+        Response<String> response = Response.<String>builder()
+                .status(STATUS_PRECONDITION_FAILED)
+                .message(ex.getMessage())
+                .data(ex.getDescription())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(response);
+    }
+
+    //the version check of the flush failed: another request changed the product after it was read
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex, WebRequest request) {
+
+        Response<String> response = Response.<String>builder()
+                .status(STATUS_CONFLICT)
+                .message(CONCURRENT_UPDATE)
+                .data(CONCURRENT_UPDATE_DESCRIPTION)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Object> handleServiceUnavailableException(
+            ServiceUnavailableException ex, WebRequest request) {
+
+        Response<String> response = Response.<String>builder()
+                .status(STATUS_SERVICE_UNAVAILABLE)
+                .message(ex.getMessage())
+                .data(ex.getDescription())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(response);
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex, HttpHeaders headers, HttpStatusCode status, WebRequest request) {
         List<String> errors = new ArrayList<>();
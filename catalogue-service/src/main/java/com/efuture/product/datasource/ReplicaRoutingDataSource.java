@@ -0,0 +1,193 @@
+package com.efuture.product.datasource;
+
+import com.efuture.product.event.ProductChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions to the replicas, round robin, and everything else to the primary.
+ * A replica takes reads only while its last health check found replication running with a lag within the
+ * tolerance; when no replica is healthy, reads fall back to the primary. Replicas start unhealthy until their
+ * first check. The read-only flag is only known once the transaction has started, so this data source has to
+ * be wrapped in a LazyConnectionDataSourceProxy.
+ * After a user writes a product through this instance, the reads of that user go to the primary for a while, so
+ * that they see their own write while the replicas catch up. The window is kept per authenticated user rather than
+ * for the whole instance, so one write does not move the reads of every other user to the primary; those see the
+ * write once their replica has applied it, within the replica lag tolerance.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    //users who wrote a product within the window, by name
+    private final Cache<String, Boolean> recentWriters;
+
+    /**
+     * @param primary primary pool
+     * @param replicaDataSources replica pools serving the reads
+     * @param healthCheckDataSources pools of the health checks, one per replica, with short timeouts so that an
+     *                               unreachable replica does not hold up the checks
+     * @param maxLag replication lag above which a replica takes no reads
+     * @param primaryReadsAfterWrite time the reads of a user go to the primary after a product write of that user
+     * @param meterRegistry meter registry
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                    List<DataSource> healthCheckDataSources, Duration maxLag,
+                                    Duration primaryReadsAfterWrite, MeterRegistry meterRegistry) {
+        this.maxLag = maxLag;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(primaryReadsAfterWrite)
+                .build();
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicaDataSources.get(i), healthCheckDataSources.get(i));
+            replicas.add(replica);
+            targetDataSources.put(replica.key, replica.dataSource);
+            Gauge.builder("catalogue.datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", replica.key)
+                    .baseUnit("seconds")
+                    .description("Replication lag of the replica at its last health check, NaN if unknown")
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicas.isEmpty()
+                || isRecentWriter(currentUser())) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                return replica.key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * Route the reads of the writing user to the primary after a product write of this instance
+     * @param event product change, published inside the writing transaction
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        String writer = currentUser();
+        if (writer == null) {
+            return;
+        }
+        recentWriters.put(writer, Boolean.TRUE);
+        //the commit may come long after the event, the window is started again once the transaction completes
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, writer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ReplicaRoutingDataSource.this);
+                    recentWriters.put(writer, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    private boolean isRecentWriter(String user) {
+        return user != null && recentWriters.getIfPresent(user) != null;
+    }
+
+    //name of the authenticated user of the current request, null outside of a request
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || !authentication.isAuthenticated() ? null : authentication.getName();
+    }
+
+    /**
+     * Check the replication state and lag of every replica
+     */
+    @Scheduled(fixedDelayString = "${catalogue.datasource.replica-health-check-interval:5s}")
+    public void checkReplicas() {
+        replicas.forEach(this::check);
+    }
+
+    @PreDestroy
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            for (DataSource dataSource : List.of(replica.dataSource, replica.healthCheckDataSource)) {
+                if (dataSource instanceof AutoCloseable closeable) {
+                    closeable.close();
+                }
+            }
+        }
+    }
+
+    private void check(Replica replica) {
+        double lag = Double.NaN;
+        try (Connection connection = replica.healthCheckDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet status = statement.executeQuery("SHOW REPLICA STATUS")) {
+            //no row when replication is not configured, a null lag when it is stopped
+            if (status.next()) {
+                long secondsBehindSource = status.getLong("Seconds_Behind_Source");
+                lag = status.wasNull() ? Double.NaN : secondsBehindSource;
+            }
+        } catch (SQLException e) {
+            log.debug("health check of {} failed", replica.key, e);
+        }
+        boolean healthy = !Double.isNaN(lag) && lag <= maxLag.toSeconds();
+        if (healthy != replica.healthy) {
+            if (healthy) {
+                log.info("{} is healthy, lag:{}s, routing reads to it", replica.key, lag);
+            } else {
+                log.warn("{} is unhealthy, lag:{}s, routing its reads to the primary", replica.key, lag);
+            }
+        }
+        replica.lagSeconds = lag;
+        replica.healthy = healthy;
+    }
+
+    private static final class Replica {
+        private final String key;
+        private final DataSource dataSource;
+        private final DataSource healthCheckDataSource;
+        private volatile boolean healthy;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(String key, DataSource dataSource, DataSource healthCheckDataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+            this.healthCheckDataSource = healthCheckDataSource;
+        }
+    }
+}
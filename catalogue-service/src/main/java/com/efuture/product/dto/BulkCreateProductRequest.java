@@ -0,0 +1,16 @@
+package com.efuture.product.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+import static com.efuture.product.util.Constants.MAX_BULK_SIZE;
+
+public record BulkCreateProductRequest(
+        @NotEmpty(message = "Products are mandatory")
+        @Size(max = MAX_BULK_SIZE, message = "At most " + MAX_BULK_SIZE + " products can be created at once")
+        List<@Valid CreateProductRequest> products
+) {
+}
@@ -0,0 +1,20 @@
+package com.efuture.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+import static com.efuture.product.util.Constants.MAX_BULK_SIZE;
+
+/**
+ * Soft delete the active products of a category or of an id set
+ */
+public record BulkDeleteRequest(
+        String category,
+        @JsonProperty("product_ids")
+        @Size(max = MAX_BULK_SIZE, message = "At most " + MAX_BULK_SIZE + " products can be deleted at once")
+        List<@NotNull(message = "Product id is mandatory") Long> productIds
+) {
+}
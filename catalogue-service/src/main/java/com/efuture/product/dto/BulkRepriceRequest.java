@@ -0,0 +1,26 @@
+package com.efuture.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+import static com.efuture.product.util.Constants.MAX_BULK_SIZE;
+
+/**
+ * Reprice the active products of a category or of an id set, either to an absolute price or by a percentage
+ */
+public record BulkRepriceRequest(
+        String category,
+        @JsonProperty("product_ids")
+        @Size(max = MAX_BULK_SIZE, message = "At most " + MAX_BULK_SIZE + " products can be updated at once")
+        List<@NotNull(message = "Product id is mandatory") Long> productIds,
+        @Min(value = 0, message = "Price value should be grater than or equal to zero")
+        Double price,
+        @DecimalMin(value = "-100", inclusive = false, message = "Percentage should be greater than -100")
+        Double percentage
+) {
+}
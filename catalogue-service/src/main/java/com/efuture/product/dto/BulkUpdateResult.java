@@ -0,0 +1,23 @@
+package com.efuture.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateResult {
+    //products changed by all statements
+    private int updated;
+    //products changed by each chunked statement, in execution order
+    @JsonProperty("chunk_counts")
+    private List<Integer> chunkCounts;
+}
@@ -0,0 +1,23 @@
+package com.efuture.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryFacet {
+    private String category;
+    //active products of the category
+    private int count;
+    @JsonProperty("price_histogram")
+    private List<PriceBucket> priceHistogram;
+}
@@ -0,0 +1,24 @@
+package com.efuture.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PriceBucket {
+    //inclusive lower bound
+    private BigDecimal from;
+    //exclusive upper bound, absent for the last bucket
+    private BigDecimal to;
+    private int count;
+}
@@ -22,4 +22,5 @@ public class ProductInformation {
     private String description;
     private double price;
     private String status;
+    private Long version;
 }
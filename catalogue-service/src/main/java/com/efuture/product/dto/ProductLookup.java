@@ -0,0 +1,23 @@
+package com.efuture.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductLookup {
+    //found products in the order of the requested ids, each product once
+    private List<ProductInformation> products;
+    //requested ids which are unknown or deleted
+    @JsonProperty("missing_ids")
+    private List<Long> missingIds;
+}
@@ -0,0 +1,18 @@
+package com.efuture.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+import static com.efuture.product.util.Constants.MAX_LOOKUP_SIZE;
+
+public record ProductLookupRequest(
+        @JsonProperty("product_ids")
+        @NotEmpty(message = "Product ids are mandatory")
+        @Size(max = MAX_LOOKUP_SIZE, message = "At most " + MAX_LOOKUP_SIZE + " products can be looked up at once")
+        List<@NotNull(message = "Product id is mandatory") Long> productIds
+) {
+}
@@ -1,4 +1,4 @@
-package com.efuture.notification.dto;
+package com.efuture.product.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -7,21 +7,18 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import lombok.ToString;
 
-import java.math.BigDecimal;
+import java.util.List;
 
-@ToString
 @Getter
 @Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class ProductCreationEvent {
-    @JsonProperty("product_id")
-    private String productId;
-    private String name;
-    private BigDecimal price;
-    private String category;
+public class ProductPage {
+    private List<ProductInformation> products;
+    //id of the last product in this page, absent when there are no more pages
+    @JsonProperty("next_cursor")
+    private Long nextCursor;
 }
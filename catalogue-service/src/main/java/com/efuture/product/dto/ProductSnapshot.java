@@ -0,0 +1,13 @@
+package com.efuture.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+/**
+ * Product line of the catalogue export, a projection of the columns a downstream copy of the catalogue needs.
+ * The version is the optimistic lock version of the product at the snapshot.
+ */
+public record ProductSnapshot(@JsonProperty("product_id") Long id, String name, String description,
+                              BigDecimal price, String category, Long version) {
+}
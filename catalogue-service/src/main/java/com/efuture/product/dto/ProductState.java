@@ -0,0 +1,11 @@
+package com.efuture.product.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of the current state of a product, deleted or not, with its version, from which the in-memory
+ * indexes are loaded and refreshed.
+ */
+public record ProductState(Long id, String name, String description, BigDecimal price, String category,
+                           String status, Long version) {
+}
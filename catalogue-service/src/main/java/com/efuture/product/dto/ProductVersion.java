@@ -0,0 +1,8 @@
+package com.efuture.product.dto;
+
+/**
+ * Projection of the id and version of a changed product, by which the refresh of the in-memory indexes tells the
+ * changes it has not applied yet.
+ */
+public record ProductVersion(Long id, Long version) {
+}
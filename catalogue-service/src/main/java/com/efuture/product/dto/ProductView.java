@@ -0,0 +1,12 @@
+package com.efuture.product.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of a product, selecting only the columns the read endpoints return.
+ * Projections are not managed by the persistence context, so large results are neither dirty checked nor
+ * kept in the first-level cache.
+ */
+public record ProductView(Long id, String name, String description, BigDecimal price, String category,
+                          String status) {
+}
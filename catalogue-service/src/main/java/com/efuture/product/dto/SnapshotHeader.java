@@ -0,0 +1,24 @@
+package com.efuture.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotHeader {
+    //watermark: the snapshot has every change committed before it, the change topic every change after it
+    @JsonProperty("snapshot_at")
+    private Instant snapshotAt;
+    //topic to continue from once the snapshot is loaded
+    @JsonProperty("change_topic")
+    private String changeTopic;
+}
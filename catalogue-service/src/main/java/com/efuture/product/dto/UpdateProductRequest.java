@@ -1,11 +1,16 @@
 package com.efuture.product.dto;
 
+import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.Min;
 
+import static com.efuture.product.util.Constants.MAX_PRICE_VALUE;
+
 public record UpdateProductRequest(
         String name,
         String description,
         @Min(value = 0, message = "Price value should be grater than or equal to zero")
+        @DecimalMax(value = MAX_PRICE_VALUE,
+                message = "Price value should be less than or equal to " + MAX_PRICE_VALUE)
         double price
 ) {
 }
@@ -5,19 +5,29 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "product")
+@Table(name = "product", indexes = {
+        @Index(name = "idx_product_status_category_id", columnList = "status, category, id"),
+        @Index(name = "idx_product_status_price_id", columnList = "status, price, id"),
+        @Index(name = "idx_product_updated_at_version", columnList = "updated_at, version")
+})
 public class Product {
+    //pooled sequence ids (a table on MySQL) let Hibernate batch inserts, which IDENTITY ids prevent
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_id_generator")
+    @SequenceGenerator(name = "product_id_generator", sequenceName = "product_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -33,6 +43,15 @@ public class Product {
     @Column(name = "category")
     private String category;
 
-    @Column(name = "status")
+    @Column(name = "status", nullable = false, columnDefinition = "char(1)")
     private String status;
+
+    //checked and incremented by every update, concurrent updates of the same product fail instead of overwriting
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    //set by the database on every insert and update
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
 }
@@ -0,0 +1,21 @@
+package com.efuture.product.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "product_list_version")
+public class ProductListVersion {
+    @Id
+    @Column(name = "list_key")
+    private String listKey;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+}
@@ -0,0 +1,77 @@
+package com.efuture.product.event;
+
+import com.efuture.product.dto.ProductSnapshot;
+import com.efuture.product.dto.ProductState;
+import com.efuture.product.entity.Product;
+
+import java.math.BigDecimal;
+
+import static com.efuture.product.util.Constants.PREMIUM_PRODUCT_PRICE_LIMIT;
+
+/**
+ * Application event published by the write paths of the product service.
+ * Listeners keeping derived read models (caches, indexes) up to date receive it after the transaction commits.
+ * @param type change type
+ * @param productId product id
+ * @param category product category
+ * @param name product name
+ * @param description product description
+ * @param price current price
+ * @param previousPrice price before the change, same as the current price when it did not change
+ * @param status current product status
+ * @param version product version after the change, the sequence of its change events
+ */
+public record ProductChangedEvent(
+        ChangeType type,
+        Long productId,
+        String category,
+        String name,
+        String description,
+        BigDecimal price,
+        BigDecimal previousPrice,
+        String status,
+        Long version
+) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static ProductChangedEvent of(ChangeType type, Product product, BigDecimal previousPrice) {
+        return new ProductChangedEvent(type, product.getId(), product.getCategory(), product.getName(),
+                product.getDescription(), product.getPrice(), previousPrice, product.getStatus(),
+                product.getVersion());
+    }
+
+    public static ProductChangedEvent of(ChangeType type, ProductSnapshot product, BigDecimal previousPrice,
+                                         String status) {
+        return new ProductChangedEvent(type, product.id(), product.category(), product.name(),
+                product.description(), product.price(), previousPrice, status, product.version());
+    }
+
+    public static ProductChangedEvent of(ChangeType type, Product product) {
+        return of(type, product, product.getPrice());
+    }
+
+    /**
+     * @param product state of a product read from the database
+     * @return the change to that state, as an update of unknown previous price
+     */
+    public static ProductChangedEvent of(ProductState product) {
+        return new ProductChangedEvent(ChangeType.UPDATED, product.id(), product.category(), product.name(),
+                product.description(), product.price(), product.price(), product.status(), product.version());
+    }
+
+    /**
+     * @return true if the product was or is now part of the premium product list
+     */
+    public boolean affectsPremium() {
+        return isPremium(price) || isPremium(previousPrice);
+    }
+
+    private static boolean isPremium(BigDecimal price) {
+        return price != null && price.compareTo(PREMIUM_PRODUCT_PRICE_LIMIT) >= 0;
+    }
+}
@@ -0,0 +1,14 @@
+package com.efuture.product.exception;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class ServiceUnavailableException extends RuntimeException {
+    private String description;
+    public ServiceUnavailableException(String message, String description) {
+        super(message);
+        this.description = description;
+    }
+}
@@ -0,0 +1,44 @@
+package com.efuture.product.index;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Versions of the products applied to an index, the deleted products included, so that a change which is not
+ * newer than the applied state of its product is dropped: the after commit listeners of concurrent transactions
+ * and the refreshes from the database deliver the changes of a product in any order.
+ * The class is not thread safe, it is guarded by the lock of its owner.
+ */
+class AppliedVersions {
+
+    private final Map<Long, Long> versions = new HashMap<>();
+
+    /**
+     * Record the version of a change, unless an equal or newer one was applied
+     * @param productId product id
+     * @param version product version after the change, null if unknown
+     * @return true if the change is to be applied
+     */
+    boolean advance(Long productId, Long version) {
+        if (!isNewer(productId, version)) {
+            return false;
+        }
+        if (version != null) {
+            versions.put(productId, version);
+        }
+        return true;
+    }
+
+    /**
+     * @param productId product id
+     * @param version product version after a change, null if unknown
+     * @return true if no equal or newer version was applied
+     */
+    boolean isNewer(Long productId, Long version) {
+        if (version == null) {
+            return true;
+        }
+        Long applied = versions.get(productId);
+        return applied == null || applied < version;
+    }
+}
@@ -0,0 +1,190 @@
+package com.efuture.product.index;
+
+import com.efuture.product.cache.ProductListVersions;
+import com.efuture.product.dto.ProductVersion;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static com.efuture.product.util.Constants.LOOKUP_CHUNK_SIZE;
+
+/**
+ * Tracks the product changes committed by the other instances and delivers them to the in-memory indexes, with
+ * one refresh shared by all of them. The changes of this instance reach the indexes from their after-commit
+ * listeners.
+ * The shared {@link Checkpoint} holds the catalogue version of {@link ProductListVersions}, which every product
+ * change bumps after its commit, and the database time less a margin. Once the catalogue version moves past it,
+ * other than by the local changes, the indexes are behind, and the refresh reads the products updated since the
+ * checkpoint time. The margin covers the writes committed after the checkpoint whose updates ran before it, so it
+ * has to exceed the write transaction timeout, catalogue.write-timeout, after which such a write is rolled back.
+ * The refresh reads the ids and versions of the updated products first, and the state of the products only for
+ * the versions it has not delivered yet, in chunks.
+ */
+@Slf4j
+@Component
+public class CatalogueChanges {
+
+    private final ProductRepository productRepository;
+    private final ProductListVersions productListVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration margin;
+    private final List<Consumer<List<ProductChangedEvent>>> subscribers = new CopyOnWriteArrayList<>();
+
+    //versions of the products delivered to the indexes, guarded by itself
+    private final AppliedVersions deliveredVersions = new AppliedVersions();
+    //catalogue version whose changes the indexes have, and time from which the later changes are read
+    private volatile Checkpoint checkpoint;
+
+    public CatalogueChanges(ProductRepository productRepository, ProductListVersions productListVersions,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${catalogue.index.refresh-margin:150s}") Duration margin,
+                            @Value("${catalogue.write-timeout:120}") int writeTimeoutSeconds) {
+        if (margin.compareTo(Duration.ofSeconds(writeTimeoutSeconds)) <= 0) {
+            throw new IllegalArgumentException("catalogue.index.refresh-margin " + margin
+                    + " has to exceed the write transaction timeout catalogue.write-timeout " + writeTimeoutSeconds
+                    + "s, or a write committing after a refresh can be missed");
+        }
+        this.productRepository = productRepository;
+        this.productListVersions = productListVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.margin = margin;
+    }
+
+    /**
+     * Subscribe an index to the changes of the other instances
+     * @param subscriber applies a chunk of changes, called by the refresh
+     */
+    void subscribe(Consumer<List<ProductChangedEvent>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Start tracking the changes, as the first reads of the transaction loading an index, so that every change
+     * missing from the loaded snapshot is delivered by a later refresh
+     */
+    public void track() {
+        if (checkpoint != null) {
+            return;
+        }
+        Checkpoint first = checkpoint();
+        synchronized (this) {
+            if (checkpoint == null) {
+                checkpoint = first;
+            }
+        }
+    }
+
+    /**
+     * @return true if the indexes have the changes of all instances, as seen within the list version TTL
+     */
+    public boolean isCurrent() {
+        long catalogueVersion = productListVersions.getCatalogueVersion();
+        synchronized (this) {
+            if (checkpoint == null) {
+                return false;
+            }
+            long applied = productListVersions.skipLocalVersions(checkpoint.version());
+            if (applied != checkpoint.version()) {
+                checkpoint = new Checkpoint(applied, checkpoint.updatedSince());
+            }
+            return catalogueVersion <= applied;
+        }
+    }
+
+    /**
+     * Record the versions of the local changes, which the indexes apply from their own listeners
+     * @param event product change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (deliveredVersions) {
+            deliveredVersions.advance(event.productId(), event.version());
+        }
+    }
+
+    /**
+     * Deliver the changes committed since the checkpoint once the catalogue version has moved past it
+     */
+    @Scheduled(fixedDelayString = "${catalogue.index.refresh-interval:1s}")
+    public void refresh() {
+        Checkpoint since = checkpoint;
+        if (subscribers.isEmpty() || since == null || isCurrent()) {
+            return;
+        }
+        Checkpoint next;
+        try {
+            next = transactionTemplate.execute(status -> {
+                Checkpoint taken = checkpoint();
+                List<ProductVersion> changed = productRepository.findVersionByUpdatedAtGreaterThanEqual(
+                        since.updatedSince());
+                List<Long> ids = undelivered(changed);
+                for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+                    deliver(productRepository.findStateByIdIn(
+                            ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size()))).stream()
+                            .map(ProductChangedEvent::of)
+                            .toList());
+                }
+                log.debug("Refreshed the indexes with {} of {} changed products", ids.size(), changed.size());
+                return taken;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh the in-memory indexes, retrying at the next refresh", e);
+            return;
+        }
+        synchronized (this) {
+            //the local changes skipped meanwhile may be past the version read by the refresh
+            checkpoint = new Checkpoint(Math.max(next.version(), checkpoint.version()), next.updatedSince());
+        }
+    }
+
+    /**
+     * Take a checkpoint, as the first reads of the current transaction so that the rows read after it are at
+     * least of the catalogue version of the checkpoint
+     * @return checkpoint
+     */
+    Checkpoint checkpoint() {
+        LocalDateTime now = productRepository.currentTimestamp();
+        return new Checkpoint(productListVersions.readCatalogueVersion(), now.minus(margin));
+    }
+
+    //ids of the changed products whose version has not been delivered
+    private List<Long> undelivered(List<ProductVersion> changed) {
+        List<Long> ids = new ArrayList<>();
+        synchronized (deliveredVersions) {
+            for (ProductVersion product : changed) {
+                if (deliveredVersions.isNewer(product.id(), product.version())) {
+                    ids.add(product.id());
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void deliver(List<ProductChangedEvent> events) {
+        subscribers.forEach(subscriber -> subscriber.accept(events));
+        synchronized (deliveredVersions) {
+            events.forEach(event -> deliveredVersions.advance(event.productId(), event.version()));
+        }
+    }
+
+    /**
+     * @param version catalogue version the index state is at
+     * @param updatedSince time from which the products changed after the version are to be read
+     */
+    record Checkpoint(long version, LocalDateTime updatedSince) {
+    }
+}
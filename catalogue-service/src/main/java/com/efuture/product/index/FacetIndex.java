@@ -0,0 +1,222 @@
+package com.efuture.product.index;
+
+import com.efuture.product.dto.CategoryFacet;
+import com.efuture.product.dto.PriceBucket;
+import com.efuture.product.dto.ProductState;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import static com.efuture.product.index.PriceRangeIndex.toCents;
+import static com.efuture.product.util.Constants.ProductStatus.ACTIVE;
+
+/**
+ * In-memory facets of the active products: the product count and a price histogram of every category.
+ * Each category keeps its prices in a {@link PriceRangeIndex}, so the count is its size and a histogram bucket is
+ * two binary searches, and a facet query costs O(categories x buckets x log(products of a category)) whatever the
+ * bucket edges are. Like the {@link PriceIndex}, it is loaded from the database once the application is ready,
+ * kept up to date from the product change events after each commit and refreshed with the changes of the other
+ * instances. Until the load completes, queries return an empty result; as there is no database fallback, the
+ * changes of the other instances are counted after the next refresh.
+ */
+@Slf4j
+@Component
+public class FacetIndex {
+
+    private final boolean enabled;
+    private final ProductRepository productRepository;
+    private final CatalogueChanges catalogueChanges;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private NavigableMap<String, PriceRangeIndex> categories = new TreeMap<>();
+    private Map<Long, Entry> entries = new HashMap<>();
+    private AppliedVersions versions = new AppliedVersions();
+    //changes committed while the index is being loaded, replayed on top of the loaded snapshot
+    private final List<ProductChangedEvent> pendingChanges = new ArrayList<>();
+    private boolean loading;
+    private volatile boolean ready;
+
+    public FacetIndex(@Value("${catalogue.facet-index.enabled:true}") boolean enabled,
+                      ProductRepository productRepository, CatalogueChanges catalogueChanges,
+                      PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.productRepository = productRepository;
+        this.catalogueChanges = catalogueChanges;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        if (enabled) {
+            catalogueChanges.subscribe(this::applyChanges);
+        }
+    }
+
+    /**
+     * Load all active products
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        withWriteLock(() -> loading = true);
+        long start = System.nanoTime();
+        NavigableMap<String, PriceRangeIndex> loadedCategories = new TreeMap<>();
+        Map<Long, Entry> loadedEntries = new HashMap<>();
+        AppliedVersions loadedVersions = new AppliedVersions();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                catalogueChanges.track();
+                try (Stream<ProductState> products = productRepository
+                        .streamStateByStatusOrderByIdAsc(ACTIVE.getValue())) {
+                    products.forEach(product -> {
+                        add(loadedCategories, loadedEntries, product.id(), product.category(), product.price());
+                        loadedVersions.advance(product.id(), product.version());
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to load the facet index, product facets are unavailable", e);
+            withWriteLock(() -> {
+                loading = false;
+                pendingChanges.clear();
+            });
+            return;
+        }
+        withWriteLock(() -> {
+            categories = loadedCategories;
+            entries = loadedEntries;
+            versions = loadedVersions;
+            pendingChanges.forEach(this::apply);
+            pendingChanges.clear();
+            loading = false;
+            ready = true;
+        });
+        log.info("Loaded {} active products of {} categories into the facet index in {} ms", loadedEntries.size(),
+                loadedCategories.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Count the active products per category and price bucket
+     * @param category only this category, null for all categories
+     * @param edges ascending bucket edges; the buckets are [0, first edge), [edge, next edge) and [last edge, inf)
+     * @return facets ordered by category, empty if the index is not loaded
+     */
+    public Optional<List<CategoryFacet>> findFacets(String category, List<BigDecimal> edges) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        //a price p in cents is below an edge e exactly when p < ceil(e in cents)
+        long[] edgeCents = edges.stream()
+                .mapToLong(edge -> toCents(edge, RoundingMode.CEILING))
+                .toArray();
+        lock.readLock().lock();
+        try {
+            Map<String, PriceRangeIndex> selected = category == null ? categories
+                    : categories.containsKey(category) ? Map.of(category, categories.get(category)) : Map.of();
+            List<CategoryFacet> facets = new ArrayList<>(selected.size());
+            selected.forEach((name, prices) -> facets.add(CategoryFacet.builder()
+                    .category(name)
+                    .count(prices.size())
+                    .priceHistogram(histogram(prices, edges, edgeCents))
+                    .build()));
+            return Optional.of(facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        applyChanges(List.of(event));
+    }
+
+    //changes of this instance, or of the other instances delivered by the refresh
+    private void applyChanges(List<ProductChangedEvent> events) {
+        withWriteLock(() -> {
+            if (ready) {
+                events.forEach(this::apply);
+            } else if (loading) {
+                pendingChanges.addAll(events);
+            }
+        });
+    }
+
+    private void apply(ProductChangedEvent event) {
+        if (!versions.advance(event.productId(), event.version())) {
+            return;
+        }
+        //the previous category and price are taken from the entry, so the event only has to carry the new state
+        Entry previous = entries.remove(event.productId());
+        if (previous != null) {
+            PriceRangeIndex prices = categories.get(previous.category());
+            prices.remove(previous.price(), event.productId());
+            if (prices.size() == 0) {
+                categories.remove(previous.category());
+            }
+        }
+        if (ACTIVE.getValue().equals(event.status())) {
+            add(categories, entries, event.productId(), event.category(), event.price());
+        }
+    }
+
+    private static void add(Map<String, PriceRangeIndex> categories, Map<Long, Entry> entries, long id,
+                            String category, BigDecimal price) {
+        //products created before the category became mandatory are left out of the facets
+        if (category == null) {
+            return;
+        }
+        long cents = toCents(price, RoundingMode.HALF_UP);
+        categories.computeIfAbsent(category, c -> new PriceRangeIndex()).add(cents, id);
+        entries.put(id, new Entry(category, cents));
+    }
+
+    private static List<PriceBucket> histogram(PriceRangeIndex prices, List<BigDecimal> edges, long[] edgeCents) {
+        List<PriceBucket> buckets = new ArrayList<>(edges.size() + 1);
+        for (int i = 0; i <= edges.size(); i++) {
+            long min = i == 0 ? 0 : edgeCents[i - 1];
+            long max = i == edges.size() ? Long.MAX_VALUE : edgeCents[i] - 1;
+            buckets.add(PriceBucket.builder()
+                    .from(i == 0 ? BigDecimal.ZERO : edges.get(i - 1))
+                    .to(i == edges.size() ? null : edges.get(i))
+                    .count(prices.countBetween(min, max))
+                    .build());
+        }
+        return buckets;
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Entry(String category, long price) {
+    }
+}
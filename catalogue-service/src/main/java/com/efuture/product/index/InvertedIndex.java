@@ -0,0 +1,225 @@
+package com.efuture.product.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index of the product name, category and description terms.
+ * Terms are lower cased and stripped of accents. A query term matches the same term, the terms it is a prefix of,
+ * and the terms one edit (insertion, deletion, substitution or transposition) away from it, found through an index
+ * of the single-character deletions of every term. All query terms have to match; documents are ranked by the sum
+ * of a saturated, field weighted term frequency times the inverse document frequency, with prefix and typo matches
+ * counting less than exact ones. The class is not thread safe.
+ */
+public class InvertedIndex {
+
+    static final int NAME_WEIGHT = 3;
+    static final int CATEGORY_WEIGHT = 2;
+    static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    //shorter query terms match too many terms as a prefix or with a typo
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_TYPO_LENGTH = 4;
+    //terms a prefix expands to at most
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final double PREFIX_FACTOR = 0.5;
+    private static final double TYPO_FACTOR = 0.3;
+    //term frequency saturation, as in BM25
+    private static final double K1 = 1.2;
+
+    //term -> document -> weighted term frequency, sorted for the prefix lookups
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    //single-character deletion of a term -> terms
+    private final Map<String, Set<String>> deletions = new HashMap<>();
+    //document -> terms, for removals
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+
+    /**
+     * Add or replace a document
+     * @param id product id
+     * @param name product name
+     * @param category product category, may be null
+     * @param description product description, may be null
+     */
+    public void add(long id, String name, String category, String description) {
+        remove(id);
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(name).forEach(term -> frequencies.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(category).forEach(term -> frequencies.merge(term, CATEGORY_WEIGHT, Integer::sum));
+        tokenize(description).forEach(term -> frequencies.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+        frequencies.forEach((term, frequency) -> {
+            Map<Long, Integer> documents = postings.get(term);
+            if (documents == null) {
+                documents = new HashMap<>();
+                postings.put(term, documents);
+                deletionsOf(term).forEach(deletion -> deletions.computeIfAbsent(deletion, d -> new HashSet<>())
+                        .add(term));
+            }
+            documents.put(id, frequency);
+        });
+        documentTerms.put(id, frequencies.keySet());
+    }
+
+    /**
+     * Remove a document
+     * @param id product id
+     * @return false if the document was not indexed
+     */
+    public boolean remove(long id) {
+        Set<String> terms = documentTerms.remove(id);
+        if (terms == null) {
+            return false;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> documents = postings.get(term);
+            documents.remove(id);
+            if (documents.isEmpty()) {
+                postings.remove(term);
+                for (String deletion : deletionsOf(term)) {
+                    Set<String> deletedFrom = deletions.get(deletion);
+                    deletedFrom.remove(term);
+                    if (deletedFrom.isEmpty()) {
+                        deletions.remove(deletion);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the documents matching all query terms
+     * @param query free text
+     * @param limit maximum number of results
+     * @return document ids, best match first and by id for equal scores
+     */
+    public List<Long> search(String query, int limit) {
+        Map<Long, Double> scores = null;
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            Map<Long, Double> termScores = new HashMap<>();
+            expand(term, (match, factor) -> {
+                Map<Long, Integer> documents = postings.get(match);
+                double idf = Math.log(1 + (double) documentTerms.size() / documents.size());
+                documents.forEach((id, frequency) -> termScores.merge(id,
+                        factor * idf * frequency * (K1 + 1) / (frequency + K1), Math::max));
+            });
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+        if (scores == null) {
+            return List.of();
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        return documentTerms.size();
+    }
+
+    /**
+     * Hand the indexed terms a query term matches to the consumer, with the factor of the kind of match
+     */
+    private void expand(String term, BiConsumer<String, Double> consumer) {
+        Map<String, Double> matches = new HashMap<>();
+        if (postings.containsKey(term)) {
+            matches.put(term, 1.0);
+        }
+        if (term.length() >= MIN_PREFIX_LENGTH) {
+            postings.subMap(term, false, term + Character.MAX_VALUE, false).keySet().stream()
+                    .limit(MAX_PREFIX_EXPANSIONS)
+                    .forEach(match -> matches.putIfAbsent(match, PREFIX_FACTOR));
+        }
+        if (term.length() >= MIN_TYPO_LENGTH) {
+            Set<String> candidates = new HashSet<>(deletions.getOrDefault(term, Set.of()));
+            for (String deletion : deletionsOf(term)) {
+                if (postings.containsKey(deletion)) {
+                    candidates.add(deletion);
+                }
+                candidates.addAll(deletions.getOrDefault(deletion, Set.of()));
+            }
+            candidates.stream()
+                    .filter(candidate -> isOneEditAway(term, candidate))
+                    .forEach(match -> matches.putIfAbsent(match, TYPO_FACTOR));
+        }
+        matches.forEach(consumer);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(normalized)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private static Set<String> deletionsOf(String term) {
+        //only terms which can be a typo match of a long enough query term
+        if (term.length() < MIN_TYPO_LENGTH - 1) {
+            return Set.of();
+        }
+        //repeated letters give the same variant
+        Set<String> variants = new HashSet<>();
+        for (int i = 0; i < term.length(); i++) {
+            variants.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return variants;
+    }
+
+    /**
+     * @return true if the terms differ by exactly one insertion, deletion, substitution or adjacent transposition
+     */
+    static boolean isOneEditAway(String a, String b) {
+        if (a.equals(b) || Math.abs(a.length() - b.length()) > 1) {
+            return false;
+        }
+        int prefix = 0;
+        while (prefix < Math.min(a.length(), b.length()) && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        if (a.length() != b.length()) {
+            String longer = a.length() > b.length() ? a : b;
+            String shorter = longer == a ? b : a;
+            return longer.substring(prefix + 1).equals(shorter.substring(prefix));
+        }
+        if (a.substring(prefix + 1).equals(b.substring(prefix + 1))) {
+            return true;
+        }
+        return prefix + 1 < a.length()
+                && a.charAt(prefix) == b.charAt(prefix + 1)
+                && a.charAt(prefix + 1) == b.charAt(prefix)
+                && a.substring(prefix + 2).equals(b.substring(prefix + 2));
+    }
+}
@@ -0,0 +1,226 @@
+package com.efuture.product.index;
+
+import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductState;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.mapper.ProductMapper;
+import com.efuture.product.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import static com.efuture.product.index.PriceRangeIndex.toCents;
+import static com.efuture.product.util.Constants.ProductStatus.ACTIVE;
+
+/**
+ * In-memory price index of the active products.
+ * It is loaded from the database once the application is ready and kept up to date from the product change
+ * events after each commit, dropping the changes older than the indexed version of their product. The changes
+ * committed by the other instances are read from the database by a periodic refresh, see
+ * {@link CatalogueChanges}. Until the load completes, and while changes are committed that the index has not
+ * caught up with, queries return an empty result and callers fall back to the database.
+ */
+@Slf4j
+@Component
+public class PriceIndex {
+
+    private final boolean enabled;
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final CatalogueChanges catalogueChanges;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private PriceRangeIndex index = new PriceRangeIndex();
+    private Map<Long, Entry> entries = new HashMap<>();
+    private AppliedVersions versions = new AppliedVersions();
+    //changes committed while the index is being loaded, replayed on top of the loaded snapshot
+    private final List<ProductChangedEvent> pendingChanges = new ArrayList<>();
+    private boolean loading;
+    private volatile boolean ready;
+
+    public PriceIndex(@Value("${catalogue.price-index.enabled:true}") boolean enabled,
+                      ProductRepository productRepository, ProductMapper productMapper,
+                      CatalogueChanges catalogueChanges, PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.catalogueChanges = catalogueChanges;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        if (enabled) {
+            catalogueChanges.subscribe(this::applyChanges);
+        }
+    }
+
+    /**
+     * Load all active products, ordered by price so that every insert is an append
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        withWriteLock(() -> loading = true);
+        long start = System.nanoTime();
+        PriceRangeIndex loadedIndex = new PriceRangeIndex();
+        Map<Long, Entry> loadedEntries = new HashMap<>();
+        AppliedVersions loadedVersions = new AppliedVersions();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                catalogueChanges.track();
+                try (Stream<ProductState> products = productRepository
+                        .streamStateByStatusOrderByPriceAscIdAsc(ACTIVE.getValue())) {
+                    products.forEach(product -> {
+                        long price = toCents(product.price(), RoundingMode.HALF_UP);
+                        loadedIndex.add(price, product.id());
+                        loadedEntries.put(product.id(),
+                                new Entry(price, productMapper.mapToProductInformation(product)));
+                        loadedVersions.advance(product.id(), product.version());
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to load the price index, premium products are served from the database", e);
+            withWriteLock(() -> {
+                loading = false;
+                pendingChanges.clear();
+            });
+            return;
+        }
+        withWriteLock(() -> {
+            index = loadedIndex;
+            entries = loadedEntries;
+            versions = loadedVersions;
+            pendingChanges.forEach(this::apply);
+            pendingChanges.clear();
+            loading = false;
+            ready = true;
+        });
+        log.info("Loaded {} active products into the price index in {} ms", loadedIndex.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Find active products within a price range
+     * @param minPrice inclusive lower bound
+     * @param maxPrice inclusive upper bound, null for no upper bound
+     * @return products ordered by price and id, empty if the index is not loaded or behind
+     */
+    public Optional<List<ProductInformation>> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (!isCurrent()) {
+            return Optional.empty();
+        }
+        long min = toCents(minPrice, RoundingMode.CEILING);
+        long max = maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice, RoundingMode.FLOOR);
+        lock.readLock().lock();
+        try {
+            long[] ids = index.idsBetween(min, max);
+            List<ProductInformation> products = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                products.add(entries.get(id).productInformation());
+            }
+            return Optional.of(products);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find active products by id
+     * @param ids product ids
+     * @return the indexed products among the ids by id, empty if the index is not loaded or behind
+     */
+    public Optional<Map<Long, ProductInformation>> findByIds(Collection<Long> ids) {
+        if (!isCurrent()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, ProductInformation> products = new HashMap<>();
+            for (Long id : ids) {
+                Entry entry = entries.get(id);
+                if (entry != null) {
+                    products.put(id, entry.productInformation());
+                }
+            }
+            return Optional.of(products);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //applied before the list versions are bumped, whose catalogue version then counts as applied, see
+    //ProductListVersions
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        applyChanges(List.of(event));
+    }
+
+    //changes of this instance, or of the other instances delivered by the refresh
+    private void applyChanges(List<ProductChangedEvent> events) {
+        withWriteLock(() -> {
+            if (ready) {
+                events.forEach(this::apply);
+            } else if (loading) {
+                pendingChanges.addAll(events);
+            }
+        });
+    }
+
+    //loaded and not behind the changes of the other instances
+    private boolean isCurrent() {
+        return ready && catalogueChanges.isCurrent();
+    }
+
+    private void apply(ProductChangedEvent event) {
+        if (!versions.advance(event.productId(), event.version())) {
+            return;
+        }
+        Entry previous = entries.remove(event.productId());
+        if (previous != null) {
+            index.remove(previous.price(), event.productId());
+        }
+        if (ACTIVE.getValue().equals(event.status())) {
+            long price = toCents(event.price(), RoundingMode.HALF_UP);
+            index.add(price, event.productId());
+            entries.put(event.productId(), new Entry(price, productMapper.mapToProductInformation(event)));
+        }
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Entry(long price, ProductInformation productInformation) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.efuture.product.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Sorted set of (price, product id) pairs kept in two parallel primitive arrays.
+ * Prices are in minor units (cents). Lookups are binary searches, range queries cost O(log n + k),
+ * and inserts and removals shift the tail of the arrays. The class is not thread safe.
+ */
+public class PriceRangeIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+
+    private long[] prices;
+    private long[] ids;
+    private int size;
+
+    public PriceRangeIndex() {
+        this.prices = new long[INITIAL_CAPACITY];
+        this.ids = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Add a pair. Adding pairs in ascending order only appends to the arrays.
+     * @param price price in cents
+     * @param id product id
+     * @return false if the pair was already present
+     */
+    public boolean add(long price, long id) {
+        int index = search(price, id);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+        if (size == prices.length) {
+            int capacity = prices.length + (prices.length >> 1);
+            prices = Arrays.copyOf(prices, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        System.arraycopy(prices, index, prices, index + 1, size - index);
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        prices[index] = price;
+        ids[index] = id;
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove a pair
+     * @param price price in cents
+     * @param id product id
+     * @return false if the pair was not present
+     */
+    public boolean remove(long price, long id) {
+        int index = search(price, id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * @param minPrice inclusive lower bound in cents
+     * @param maxPrice inclusive upper bound in cents
+     * @return ids of the products within the range, ordered by price and id
+     */
+    public long[] idsBetween(long minPrice, long maxPrice) {
+        int from = firstIndexAtLeast(minPrice);
+        int to = firstIndexAbove(maxPrice);
+        return from < to ? Arrays.copyOfRange(ids, from, to) : new long[0];
+    }
+
+    /**
+     * @param minPrice inclusive lower bound in cents
+     * @param maxPrice inclusive upper bound in cents
+     * @return number of products within the range
+     */
+    public int countBetween(long minPrice, long maxPrice) {
+        return Math.max(0, firstIndexAbove(maxPrice) - firstIndexAtLeast(minPrice));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        prices = new long[INITIAL_CAPACITY];
+        ids = new long[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Convert a price to cents. Prices beyond the long range, stored before the request validation bounded them
+     * by MAX_PRICE, are clamped to it, so that they still sort after or before every price a query can give.
+     * @param price price
+     * @param roundingMode rounding of the fractions of a cent
+     * @return price in cents
+     */
+    static long toCents(BigDecimal price, RoundingMode roundingMode) {
+        BigDecimal cents = price.movePointRight(2).setScale(0, roundingMode);
+        if (cents.compareTo(MAX_CENTS) > 0) {
+            return Long.MAX_VALUE;
+        }
+        return cents.compareTo(MIN_CENTS) < 0 ? Long.MIN_VALUE : cents.longValue();
+    }
+
+    private int search(long price, long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = prices[mid] != price ? Long.compare(prices[mid], price) : Long.compare(ids[mid], id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int firstIndexAtLeast(long price) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstIndexAbove(long price) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
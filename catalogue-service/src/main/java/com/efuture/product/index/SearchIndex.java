@@ -0,0 +1,176 @@
+package com.efuture.product.index;
+
+import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductState;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.mapper.ProductMapper;
+import com.efuture.product.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import static com.efuture.product.util.Constants.ProductStatus.ACTIVE;
+
+/**
+ * In-memory full-text index of the active products over their name, category and description,
+ * see {@link InvertedIndex} for the matching and the ranking.
+ * Like the {@link PriceIndex}, it is loaded from the database once the application is ready, kept up to date
+ * from the product change events after each commit and refreshed with the changes of the other instances. Until
+ * the load completes, searches return an empty result; as there is no database fallback, the changes of the other
+ * instances are searchable after the next refresh.
+ */
+@Slf4j
+@Component
+public class SearchIndex {
+
+    private final boolean enabled;
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final CatalogueChanges catalogueChanges;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private InvertedIndex index = new InvertedIndex();
+    private Map<Long, ProductInformation> products = new HashMap<>();
+    private AppliedVersions versions = new AppliedVersions();
+    //changes committed while the index is being loaded, replayed on top of the loaded snapshot
+    private final List<ProductChangedEvent> pendingChanges = new ArrayList<>();
+    private boolean loading;
+    private volatile boolean ready;
+
+    public SearchIndex(@Value("${catalogue.search-index.enabled:true}") boolean enabled,
+                       ProductRepository productRepository, ProductMapper productMapper,
+                       CatalogueChanges catalogueChanges, PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.catalogueChanges = catalogueChanges;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        if (enabled) {
+            catalogueChanges.subscribe(this::applyChanges);
+        }
+    }
+
+    /**
+     * Load all active products
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        withWriteLock(() -> loading = true);
+        long start = System.nanoTime();
+        InvertedIndex loadedIndex = new InvertedIndex();
+        Map<Long, ProductInformation> loadedProducts = new HashMap<>();
+        AppliedVersions loadedVersions = new AppliedVersions();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                catalogueChanges.track();
+                try (Stream<ProductState> states = productRepository
+                        .streamStateByStatusOrderByIdAsc(ACTIVE.getValue())) {
+                    states.forEach(state -> {
+                        loadedIndex.add(state.id(), state.name(), state.category(), state.description());
+                        loadedProducts.put(state.id(), productMapper.mapToProductInformation(state));
+                        loadedVersions.advance(state.id(), state.version());
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to load the search index, product search is unavailable", e);
+            withWriteLock(() -> {
+                loading = false;
+                pendingChanges.clear();
+            });
+            return;
+        }
+        withWriteLock(() -> {
+            index = loadedIndex;
+            products = loadedProducts;
+            versions = loadedVersions;
+            pendingChanges.forEach(this::apply);
+            pendingChanges.clear();
+            loading = false;
+            ready = true;
+        });
+        log.info("Loaded {} active products into the search index in {} ms", loadedIndex.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Search the active products
+     * @param query free text, matched against the name, category and description
+     * @param limit maximum number of results
+     * @return products ordered by relevance, empty if the index is not loaded
+     */
+    public Optional<List<ProductInformation>> search(String query, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.of(index.search(query, limit).stream()
+                    .map(products::get)
+                    .toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        applyChanges(List.of(event));
+    }
+
+    //changes of this instance, or of the other instances delivered by the refresh
+    private void applyChanges(List<ProductChangedEvent> events) {
+        withWriteLock(() -> {
+            if (ready) {
+                events.forEach(this::apply);
+            } else if (loading) {
+                pendingChanges.addAll(events);
+            }
+        });
+    }
+
+    private void apply(ProductChangedEvent event) {
+        if (!versions.advance(event.productId(), event.version())) {
+            return;
+        }
+        if (ACTIVE.getValue().equals(event.status())) {
+            index.add(event.productId(), event.name(), event.category(), event.description());
+            products.put(event.productId(), productMapper.mapToProductInformation(event));
+        } else {
+            index.remove(event.productId());
+            products.remove(event.productId());
+        }
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
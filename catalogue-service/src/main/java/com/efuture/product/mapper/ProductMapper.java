@@ -1,10 +1,13 @@
 package com.efuture.product.mapper;
 
+import com.efuture.events.ProductCreationEvent;
 import com.efuture.product.dto.CreateProductRequest;
-import com.efuture.product.dto.ProductCreationEvent;
 import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductState;
+import com.efuture.product.dto.ProductView;
 import com.efuture.product.dto.UpdateProductRequest;
 import com.efuture.product.entity.Product;
+import com.efuture.product.event.ProductChangedEvent;
 import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -18,19 +21,35 @@ public interface ProductMapper {
 
     @Mapping(target = "status", ignore = true)
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     Product mapToProduct(CreateProductRequest createProductRequest);
 
     @Mapping(target = "productId", source = "id")
     ProductInformation mapToProductInformation(Product product);
 
+    @Mapping(target = "productId", source = "id")
+    @Mapping(target = "version", ignore = true)
+    ProductInformation mapToProductInformation(ProductView productView);
+
+    @Mapping(target = "productId", source = "id")
+    @Mapping(target = "version", ignore = true)
+    ProductInformation mapToProductInformation(ProductState productState);
+
+    @Mapping(target = "version", ignore = true)
+    ProductInformation mapToProductInformation(ProductChangedEvent event);
+
     @Mapping(target = "status", ignore = true)
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "category", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     void mapUpdateRequestToProduct(UpdateProductRequest dto, @MappingTarget Product product);
 
-    List<ProductInformation> mapToProductInformationList(List<Product> productList);
+    List<ProductInformation> mapToProductInformationList(List<ProductView> productViewList);
 
     @Mapping(target = "productId", source = "id")
+    @Mapping(target = "sequence", source = "version")
     ProductCreationEvent mapToProductCreationEvent(Product product);
 }
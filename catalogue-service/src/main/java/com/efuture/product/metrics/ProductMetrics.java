@@ -0,0 +1,90 @@
+package com.efuture.product.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Timers and distributions of the product operations.
+ * Each operation is timed as a whole (catalogue.product.operation) and split into its database, mapping and
+ * publish phases (catalogue.product.phase); list operations also record their result size
+ * (catalogue.product.result.size). Meters are registered once per operation and phase, so recording on the
+ * request path is a map lookup and a clock read.
+ */
+@Component
+public class ProductMetrics {
+
+    public enum Phase {
+        DB,
+        MAPPING,
+        PUBLISH;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> operationTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> resultSizes = new ConcurrentHashMap<>();
+
+    public ProductMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Time a whole operation
+     * @param operation operation name, the service method
+     * @param work operation body
+     * @return result of the operation
+     */
+    public <T> T operation(String operation, Supplier<T> work) {
+        return operationTimers.computeIfAbsent(operation, key -> Timer.builder("catalogue.product.operation")
+                        .tag("operation", operation)
+                        .description("Time spent in a product service operation")
+                        .register(meterRegistry))
+                .record(work);
+    }
+
+    /**
+     * Time a phase of an operation
+     * @param operation operation name
+     * @param phase phase
+     * @param work phase body
+     * @return result of the phase
+     */
+    public <T> T phase(String operation, Phase phase, Supplier<T> work) {
+        return phaseTimer(operation, phase).record(work);
+    }
+
+    public void phase(String operation, Phase phase, Runnable work) {
+        phaseTimer(operation, phase).record(work);
+    }
+
+    public Timer phaseTimer(String operation, Phase phase) {
+        return phaseTimers.computeIfAbsent(operation + '.' + phase.tag, key -> Timer.builder("catalogue.product.phase")
+                .tag("operation", operation)
+                .tag("phase", phase.tag)
+                .description("Time spent in a phase of a product service operation")
+                .register(meterRegistry));
+    }
+
+    /**
+     * Record the number of products returned by a list operation
+     * @param operation operation name
+     * @param size number of products
+     */
+    public void resultSize(String operation, int size) {
+        resultSizes.computeIfAbsent(operation, key -> DistributionSummary.builder("catalogue.product.result.size")
+                        .tag("operation", operation)
+                        .baseUnit("products")
+                        .description("Number of products returned by a list operation")
+                        .register(meterRegistry))
+                .record(size);
+    }
+}
@@ -0,0 +1,29 @@
+package com.efuture.product.repository;
+
+import com.efuture.product.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    //plain read, the caller owns the shard through its named lock; the shard is filtered on
+    //idx_product_outbox_id_aggregate_id in id order and only the matching rows are read from the table
+    @Query(value = "select * from product_outbox where mod(aggregate_id, :shards) = :shard "
+            + "order by id limit :limit", nativeQuery = true)
+    List<OutboxEvent> findNextBatch(@Param("shard") int shard, @Param("shards") int shards,
+                                    @Param("limit") int limit);
+
+    //MySQL named lock of the session, 1 if taken, 0 if held by another session
+    @Query(value = "select get_lock(:name, 0)", nativeQuery = true)
+    Integer tryLock(@Param("name") String name);
+
+    @Query(value = "select release_lock(:name)", nativeQuery = true)
+    Integer releaseLock(@Param("name") String name);
+
+    @Query("select min(o.createdAt) from OutboxEvent o")
+    Instant findOldestCreatedAt();
+}
@@ -0,0 +1,18 @@
+package com.efuture.product.repository;
+
+import com.efuture.product.entity.ProductListVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ProductListVersionRepository extends JpaRepository<ProductListVersion, String> {
+
+    @Query("select v.version from ProductListVersion v where v.listKey = :listKey")
+    Long findVersion(@Param("listKey") String listKey);
+
+    @Modifying
+    @Query(value = "insert into product_list_version (list_key, version) values (:listKey, 1) "
+            + "on duplicate key update version = version + 1", nativeQuery = true)
+    void increment(@Param("listKey") String listKey);
+}
@@ -1,13 +1,78 @@
 package com.efuture.product.repository;
 
+import com.efuture.product.dto.ProductSnapshot;
+import com.efuture.product.dto.ProductState;
+import com.efuture.product.dto.ProductVersion;
+import com.efuture.product.dto.ProductView;
 import com.efuture.product.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+/**
+ * The list queries return {@link ProductView} projections, which select only the columns of the view instead
+ * of hydrating managed entities. The bulk updates are single set-based statements which bypass the persistence
+ * context, the callers pass the ids of one chunk at a time.
+ */
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    List<Product> findByCategoryAndStatus(String category, String status);
+    List<ProductView> findByCategoryAndStatusAndIdGreaterThanOrderByIdAsc(String category, String status, Long id,
+                                                                          Limit limit);
+
+    //MySQL Connector/J only streams rows off the cursor when the fetch size is Integer.MIN_VALUE
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    Stream<ProductView> streamByCategoryAndStatusOrderByIdAsc(String category, String status);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    Stream<ProductState> streamStateByStatusOrderByPriceAscIdAsc(String status);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    Stream<ProductState> streamStateByStatusOrderByIdAsc(String status);
+
+    List<ProductVersion> findVersionByUpdatedAtGreaterThanEqual(LocalDateTime updatedAt);
+
+    List<ProductState> findStateByIdIn(Collection<Long> ids);
+
+    @Query(value = "select current_timestamp(6)", nativeQuery = true)
+    LocalDateTime currentTimestamp();
+
+    @Query(value = "select utc_timestamp(6)", nativeQuery = true)
+    LocalDateTime currentUtcTimestamp();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    Stream<ProductSnapshot> streamSnapshotByStatusOrderByIdAsc(String status);
+
+    List<ProductView> findByStatusAndPriceGreaterThanEqualOrderByPrice(String status, BigDecimal price);
+
+    List<ProductView> findByIdInAndStatus(Collection<Long> ids, String status);
+
+    List<ProductSnapshot> findSnapshotByIdInAndStatus(Collection<Long> ids, String status);
+
+    @Modifying
+    @Query("update Product p set p.price = :price, p.version = p.version + 1 "
+            + "where p.id in :ids and p.status = :status")
+    int updatePriceByIdInAndStatus(Collection<Long> ids, String status, BigDecimal price);
+
+    @Modifying
+    @Query("update Product p set p.price = round(p.price * :factor, 2), p.version = p.version + 1 "
+            + "where p.id in :ids and p.status = :status")
+    int scalePriceByIdInAndStatus(Collection<Long> ids, String status, BigDecimal factor);
+
+    @Modifying
+    @Query("update Product p set p.status = :newStatus, p.version = p.version + 1 "
+            + "where p.id in :ids and p.status = :status")
+    int updateStatusByIdInAndStatus(Collection<Long> ids, String status, String newStatus);
 
-    List<Product> findByStatusAndPriceGreaterThanEqualOrderByPrice(String status, BigDecimal price);
+    List<ProductView> findByStatusAndPriceBetweenOrderByPriceAscIdAsc(String status, BigDecimal minPrice,
+                                                                      BigDecimal maxPrice);
 }
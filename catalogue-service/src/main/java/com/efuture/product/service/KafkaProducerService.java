@@ -1,34 +1,103 @@
 package com.efuture.product.service;
 
-import com.efuture.product.dto.ProductCreationEvent;
+import com.efuture.events.ProductEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-
-import static com.efuture.product.util.Constants.CARD_EVENT_TOPIC;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 public class KafkaProducerService {
 
-    private final KafkaTemplate<String, ProductCreationEvent> kafkaTemplate;
+    private final KafkaTemplate<String, ProductEvent> kafkaTemplate;
+    //send callbacks run on the producer I/O thread unless virtual threads are enabled
+    private final ExecutorService callbackExecutor;
+    private final MeterRegistry meterRegistry;
+    //send latency timers by topic and result, error counters by topic and exception
+    private final Map<String, Timer> sendTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
 
-    public KafkaProducerService(KafkaTemplate<String, ProductCreationEvent> kafkaTemplate) {
+    public KafkaProducerService(KafkaTemplate<String, ProductEvent> kafkaTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.callbackExecutor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (callbackExecutor != null) {
+            callbackExecutor.close();
+        }
+    }
+
+    /**
+     * Send a batch of events without waiting for each acknowledgement, so that the producer can pipeline them
+     * into as few broker requests as possible, then flush the batch.
+     * Records are keyed by product id, so the events of a product keep their order on any number of partitions.
+     * @param topic target topic
+     * @param events events to send
+     * @return completes when every event has been acknowledged, or exceptionally if any send failed
+     */
+    public CompletableFuture<Void> sendMessages(String topic, List<? extends ProductEvent> events) {
+        log.debug("send {} product events to {}", events.size(), topic);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            ProductEvent event = events.get(i);
+            long start = System.nanoTime();
+            CompletableFuture<SendResult<String, ProductEvent>> future =
+                    kafkaTemplate.send(topic, event.getProductId(), event);
+            futures[i] = callbackExecutor == null
+                    ? future.whenComplete((result, ex) -> onSendCompleted(topic, event, start, ex))
+                    : future.whenCompleteAsync((result, ex) -> onSendCompleted(topic, event, start, ex),
+                    callbackExecutor);
+        }
+        kafkaTemplate.flush();
+        return CompletableFuture.allOf(futures);
+    }
+
+    private void onSendCompleted(String topic, ProductEvent event, long start, Throwable ex) {
+        long latency = System.nanoTime() - start;
+        sendTimer(topic, ex == null).record(latency, TimeUnit.NANOSECONDS);
+        if (ex != null) {
+            errorCounter(topic, ex).increment();
+            log.error("Failed to send message: {}", event, ex);
+        }
+    }
+
+    private Timer sendTimer(String topic, boolean success) {
+        String result = success ? "success" : "failure";
+        return sendTimers.computeIfAbsent(topic + '.' + result, key -> Timer.builder("catalogue.kafka.send")
+                .tag("topic", topic)
+                .tag("result", result)
+                .description("Time from sending a product event until it is acknowledged by the broker")
+                .register(meterRegistry));
     }
 
-    public void sendMessage(ProductCreationEvent event) {
-        log.info("send product event: {}", event);
-        CompletableFuture<SendResult<String, ProductCreationEvent>> future = kafkaTemplate.send(CARD_EVENT_TOPIC, event);
-        future.whenComplete((result, ex) -> {
-            if (ex == null) {
-                log.info("Sent with offset: {}", result.getRecordMetadata().offset());
-            } else {
-                log.error("Failed to send message", ex);
-            }
-        });
+    private Counter errorCounter(String topic, Throwable ex) {
+        //the send future wraps the producer exception
+        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+        String exception = cause.getClass().getSimpleName();
+        return errorCounters.computeIfAbsent(topic + '.' + exception,
+                key -> Counter.builder("catalogue.kafka.send.errors")
+                        .tag("topic", topic)
+                        .tag("exception", exception)
+                        .description("Product events the broker failed to acknowledge")
+                        .register(meterRegistry));
     }
 }
@@ -0,0 +1,224 @@
+package com.efuture.product.service;
+
+import com.efuture.events.ProductChangeEvent;
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.events.ProductEvent;
+import com.efuture.product.entity.OutboxEvent;
+import com.efuture.product.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static com.efuture.product.util.Constants.OutboxEventType.PRODUCT_CHANGED;
+
+/**
+ * Drains the outbox table to Kafka.
+ * The rows are split into shards by product id, so the events of a product are always published in order by the
+ * worker owning the shard. A worker owns its shard for one batch through a MySQL named lock, which is shared by
+ * all instances, so with several instances a shard is still drained by one worker at a time; the instances must
+ * use the same parallelism. The owner reads the next batch of the shard, sends it, waits for the acknowledgements
+ * and deletes the rows in one transaction; a failed batch is rolled back and retried on the next poll
+ * (at-least-once).
+ * The highest published outbox id of each shard is tracked as its high-water mark. It is reported, not used to
+ * filter the next batch: ids are allocated in pooled blocks, so a lower id can commit after a higher one, and
+ * published rows are deleted anyway, leaving only unpublished events at the head of the table.
+ * For the same reason, the change events of a batch are sent in sequence order rather than in id order. A later
+ * change can still be sent in an earlier batch than a stale one when two instances change the same product within
+ * one poll interval, so consumers skip the events with a sequence not above the one they have applied.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final int parallelism;
+    private final Duration sendTimeout;
+
+    private final AtomicLong[] highWaterMarks;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter publishedEvents;
+    private final Counter failedBatches;
+    private final Timer batchTimer;
+    private ScheduledExecutorService executor;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, KafkaProducerService kafkaProducerService,
+                       ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${catalogue.outbox.batch-size:500}") int batchSize,
+                       @Value("${catalogue.outbox.poll-interval:200ms}") Duration pollInterval,
+                       @Value("${catalogue.outbox.parallelism:2}") int parallelism,
+                       @Value("${catalogue.outbox.send-timeout:30s}") Duration sendTimeout) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.parallelism = parallelism;
+        this.sendTimeout = sendTimeout;
+
+        this.highWaterMarks = new AtomicLong[parallelism];
+        for (int shard = 0; shard < parallelism; shard++) {
+            AtomicLong highWaterMark = new AtomicLong();
+            highWaterMarks[shard] = highWaterMark;
+            Gauge.builder("catalogue.outbox.high.water.mark", highWaterMark, AtomicLong::get)
+                    .tag("shard", String.valueOf(shard))
+                    .description("Highest outbox id published by the shard")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("catalogue.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Events waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("catalogue.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .baseUnit("seconds")
+                .description("Age of the oldest event waiting in the outbox")
+                .register(meterRegistry);
+        this.publishedEvents = Counter.builder("catalogue.outbox.published")
+                .description("Events published from the outbox")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("catalogue.outbox.failed.batches")
+                .description("Outbox batches rolled back because publishing failed")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("catalogue.outbox.batch")
+                .description("Time to lock, publish and delete an outbox batch")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor = Executors.newScheduledThreadPool(parallelism, Thread.ofPlatform().name("outbox-relay-", 0)
+                .daemon(true).factory());
+        for (int shard = 0; shard < parallelism; shard++) {
+            int workerShard = shard;
+            executor.scheduleWithFixedDelay(() -> drain(workerShard), 0, pollInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+        log.info("Started outbox relay, parallelism:{}, batch size:{}, poll interval:{}", parallelism, batchSize,
+                pollInterval);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Publish batches of a shard until a batch comes back smaller than the batch size
+     * @param shard shard number
+     */
+    void drain(int shard) {
+        try {
+            int published;
+            do {
+                published = batchTimer.record(() -> transactionTemplate.execute(status -> publishBatch(shard)));
+            } while (published == batchSize);
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            log.error("Failed to publish outbox batch of shard {}, it will be retried", shard, e);
+        }
+    }
+
+    private int publishBatch(int shard) {
+        //named locks belong to the connection, which the transaction keeps until the lock is released
+        String lockName = "product_outbox_shard_" + shard + "_of_" + parallelism;
+        if (!Integer.valueOf(1).equals(outboxEventRepository.tryLock(lockName))) {
+            return 0;
+        }
+        try {
+            return publishOwnedBatch(shard);
+        } finally {
+            outboxEventRepository.releaseLock(lockName);
+        }
+    }
+
+    private int publishOwnedBatch(int shard) {
+        List<OutboxEvent> batch = outboxEventRepository.findNextBatch(shard, parallelism, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<String, List<ProductEvent>> eventsByTopic = batch.stream()
+                .collect(Collectors.groupingBy(OutboxEvent::getTopic, LinkedHashMap::new,
+                        Collectors.mapping(this::toEvent, Collectors.toList())));
+        //stable, so the events without a sequence keep their id order
+        eventsByTopic.values().forEach(events -> events.sort(Comparator.comparingLong(OutboxRelay::sequenceOf)));
+        eventsByTopic.forEach((topic, events) -> awaitAcknowledgements(kafkaProducerService.sendMessages(topic,
+                events)));
+
+        outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEvent::getId).toList());
+        highWaterMarks[shard].accumulateAndGet(batch.get(batch.size() - 1).getId(), Math::max);
+        publishedEvents.increment(batch.size());
+        return batch.size();
+    }
+
+    private void awaitAcknowledgements(CompletableFuture<Void> acknowledgements) {
+        try {
+            acknowledgements.get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing outbox events", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to publish outbox events", e);
+        }
+    }
+
+    private ProductEvent toEvent(OutboxEvent outboxEvent) {
+        Class<? extends ProductEvent> eventClass = PRODUCT_CHANGED.equals(outboxEvent.getEventType())
+                ? ProductChangeEvent.class : ProductCreationEvent.class;
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), eventClass);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long sequenceOf(ProductEvent event) {
+        return event instanceof ProductChangeEvent change && change.getSequence() != null ? change.getSequence() : 0;
+    }
+
+    /**
+     * Refresh the lag metrics from the outbox table
+     */
+    @Scheduled(fixedDelayString = "${catalogue.outbox.lag-probe-interval:5s}")
+    public void probeLag() {
+        pendingEvents.set(outboxEventRepository.count());
+        Instant oldest = outboxEventRepository.findOldestCreatedAt();
+        lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, Instant.now()).toMillis()));
+    }
+}
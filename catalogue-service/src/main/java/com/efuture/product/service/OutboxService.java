@@ -0,0 +1,98 @@
+package com.efuture.product.service;
+
+import com.efuture.events.ProductChangeEvent;
+import com.efuture.events.ProductChangeType;
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.events.ProductEvent;
+import com.efuture.product.entity.OutboxEvent;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+
+import static com.efuture.product.util.Constants.CARD_EVENT_TOPIC;
+import static com.efuture.product.util.Constants.OutboxEventType.PRODUCT_CHANGED;
+import static com.efuture.product.util.Constants.OutboxEventType.PRODUCT_CREATED;
+import static com.efuture.product.util.Constants.PRODUCT_CHANGE_TOPIC;
+
+/**
+ * Writes product events to the outbox table in the caller's transaction.
+ * The events are published to Kafka by the {@link OutboxRelay} once the transaction has committed.
+ * Besides the creation events enqueued by the product service, every product change of any write path is
+ * enqueued as a {@link ProductChangeEvent} for the change topic.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void enqueue(ProductCreationEvent event) {
+        outboxEventRepository.save(toOutboxEvent(event, PRODUCT_CREATED, CARD_EVENT_TOPIC));
+    }
+
+    public void enqueueAll(List<ProductCreationEvent> events) {
+        outboxEventRepository.saveAll(events.stream()
+                .map(event -> toOutboxEvent(event, PRODUCT_CREATED, CARD_EVENT_TOPIC))
+                .toList());
+    }
+
+    /**
+     * Enqueue the change event of a product change, in the transaction of the change
+     * @param event product change
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        outboxEventRepository.save(toOutboxEvent(toChangeEvent(event), PRODUCT_CHANGED, PRODUCT_CHANGE_TOPIC));
+    }
+
+    static ProductChangeEvent toChangeEvent(ProductChangedEvent event) {
+        boolean priceChanged = event.type() == ProductChangedEvent.ChangeType.UPDATED
+                && event.price() != null && event.previousPrice() != null
+                && event.price().compareTo(event.previousPrice()) != 0;
+        ProductChangeType changeType = switch (event.type()) {
+            case CREATED -> ProductChangeType.CREATED;
+            case UPDATED -> priceChanged ? ProductChangeType.PRICE_CHANGED : ProductChangeType.UPDATED;
+            case DELETED -> ProductChangeType.DELETED;
+        };
+        return ProductChangeEvent.builder()
+                .changeType(changeType)
+                .productId(String.valueOf(event.productId()))
+                .sequence(event.version())
+                .name(event.name())
+                .description(event.description())
+                .price(event.price())
+                .previousPrice(priceChanged ? event.previousPrice() : null)
+                .category(event.category())
+                .status(event.status())
+                .build();
+    }
+
+    private OutboxEvent toOutboxEvent(ProductEvent event, String eventType, String topic) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateId(Long.valueOf(event.getProductId()));
+        outboxEvent.setEventType(eventType);
+        outboxEvent.setTopic(topic);
+        outboxEvent.setCreatedAt(Instant.now());
+        try {
+            outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outboxEvent;
+    }
+}
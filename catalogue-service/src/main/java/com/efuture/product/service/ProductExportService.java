@@ -0,0 +1,171 @@
+package com.efuture.product.service;
+
+import com.efuture.product.dto.ProductSnapshot;
+import com.efuture.product.dto.SnapshotHeader;
+import com.efuture.product.metrics.ProductMetrics;
+import com.efuture.product.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.efuture.product.util.Constants.PRODUCT_CHANGE_TOPIC;
+import static com.efuture.product.util.Constants.ProductStatus.ACTIVE;
+
+/**
+ * Exports a consistent snapshot of all active products as gzip compressed NDJSON, for downstream systems to
+ * rebuild their copy of the catalogue in one pass instead of paging through every category.
+ * The first line is a {@link SnapshotHeader}, followed by one {@link ProductSnapshot} per line in product id order.
+ * The rows are read off a streaming JDBC cursor in one repeatable read transaction on the primary, so the memory
+ * usage does not depend on the catalogue size and every row is of the same snapshot; a replica could lag behind
+ * the watermark. Consumers load the file, then consume the change topic from the records published at or after
+ * the snapshot_at watermark; the first of these events can already be in the snapshot, so they are skipped when
+ * their sequence is not above the snapshot version of the product.
+ * The watermark is the database time before the snapshot, less a margin: the record timestamps are taken from the
+ * clocks of the instances relaying the changes, and the margin covers how far those may be behind the database
+ * clock. The records of the margin are replayed and skipped like the first events.
+ * The same export is written to files by a scheduled job when catalogue.export.cron is set.
+ */
+@Slf4j
+@Service
+public class ProductExportService {
+
+    static final String FILE_PREFIX = "products-";
+    static final String FILE_SUFFIX = ".ndjson.gz";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final ProductMetrics productMetrics;
+    private final TransactionTemplate snapshotTransaction;
+    private final Duration clockSkewMargin;
+    private final Path directory;
+    private final int retainedFiles;
+
+    public ProductExportService(ProductRepository productRepository, ObjectMapper objectMapper,
+                                ProductMetrics productMetrics, PlatformTransactionManager transactionManager,
+                                @Value("${catalogue.export.clock-skew-margin:5s}") Duration clockSkewMargin,
+                                @Value("${catalogue.export.directory:exports}") Path directory,
+                                @Value("${catalogue.export.retained-files:3}") int retainedFiles) {
+        this.productRepository = productRepository;
+        //all lines are written by one generator, which keeps the gzip stream open and only flushes it when closed
+        this.objectMapper = objectMapper.copy()
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.productMetrics = productMetrics;
+        //not read-only, so that it runs on the primary
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.clockSkewMargin = clockSkewMargin;
+        this.directory = directory;
+        this.retainedFiles = retainedFiles;
+    }
+
+    /**
+     * Write the export of the active products
+     * @param outputStream target, finished but not closed
+     * @return header of the export
+     */
+    public SnapshotHeader export(OutputStream outputStream) {
+        log.debug("export active products");
+        return productMetrics.operation("exportProducts", () -> snapshotTransaction.execute(status -> {
+            //read before the product query starts the snapshot: a change missing from the snapshot committed
+            //after it, so its event was published after it too
+            Instant snapshotAt = productRepository.currentUtcTimestamp().toInstant(ZoneOffset.UTC);
+            SnapshotHeader header = SnapshotHeader.builder()
+                    .snapshotAt(snapshotAt.minus(clockSkewMargin))
+                    .changeTopic(PRODUCT_CHANGE_TOPIC)
+                    .build();
+            int count = 0;
+            try (Stream<ProductSnapshot> products = productRepository
+                    .streamSnapshotByStatusOrderByIdAsc(ACTIVE.getValue());
+                 OutputStream gzip = new GZIPOutputStream(StreamUtils.nonClosing(outputStream), BUFFER_SIZE);
+                 JsonGenerator generator = objectMapper.createGenerator(gzip)) {
+                generator.setRootValueSeparator(null);
+                writeLine(generator, header);
+                for (ProductSnapshot product : (Iterable<ProductSnapshot>) products::iterator) {
+                    writeLine(generator, product);
+                    count++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            productMetrics.resultSize("exportProducts", count);
+            log.info("Exported {} active products, snapshot at {}", count, header.getSnapshotAt());
+            return header;
+        }));
+    }
+
+    /**
+     * Write the export to a file of the export directory, named after its watermark, and delete the files
+     * beyond the retained ones. The file only appears once it is complete.
+     */
+    @Scheduled(cron = "${catalogue.export.cron:-}")
+    public void exportToFile() {
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            Path partial = Files.createTempFile(directory, FILE_PREFIX, ".partial");
+            try {
+                SnapshotHeader header;
+                try (OutputStream outputStream = Files.newOutputStream(partial)) {
+                    header = export(outputStream);
+                }
+                Path file = directory.resolve(FILE_PREFIX + FILE_TIMESTAMP.format(header.getSnapshotAt())
+                        + FILE_SUFFIX);
+                Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+                log.info("Wrote product export {} in {} ms", file,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+            deleteOldFiles();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write the product export to {}", directory, e);
+        }
+    }
+
+    private void deleteOldFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> exports = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            exports.forEach(files::add);
+        }
+        //the timestamps of the names sort in time order
+        Collections.sort(files);
+        for (Path file : files.subList(0, Math.max(0, files.size() - retainedFiles))) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void writeLine(JsonGenerator generator, Object value) throws IOException {
+        objectMapper.writeValue(generator, value);
+        generator.writeRaw('\n');
+    }
+}
@@ -1,24 +1,90 @@
 package com.efuture.product.service;
 
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.product.cache.ProductQueryCache;
+import com.efuture.product.dto.BulkCreateProductRequest;
+import com.efuture.product.dto.BulkDeleteRequest;
+import com.efuture.product.dto.BulkRepriceRequest;
+import com.efuture.product.dto.BulkUpdateResult;
+import com.efuture.product.dto.CategoryFacet;
 import com.efuture.product.dto.CreateProductRequest;
-import com.efuture.product.dto.ProductCreationEvent;
 import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductLookup;
+import com.efuture.product.dto.ProductPage;
+import com.efuture.product.dto.ProductSnapshot;
+import com.efuture.product.dto.ProductView;
 import com.efuture.product.dto.UpdateProductRequest;
 import com.efuture.product.entity.Product;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.event.ProductChangedEvent.ChangeType;
 import com.efuture.product.exception.InvalidRequestException;
+import com.efuture.product.exception.PreconditionFailedException;
+import com.efuture.product.exception.ServiceUnavailableException;
+import com.efuture.product.index.FacetIndex;
+import com.efuture.product.index.PriceIndex;
+import com.efuture.product.index.SearchIndex;
 import com.efuture.product.mapper.ProductMapper;
+import com.efuture.product.metrics.ProductMetrics;
 import com.efuture.product.repository.ProductRepository;
 import com.efuture.product.util.Response;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
+import static com.efuture.product.event.ProductChangedEvent.ChangeType.CREATED;
+import static com.efuture.product.event.ProductChangedEvent.ChangeType.UPDATED;
+import static com.efuture.product.metrics.ProductMetrics.Phase.DB;
+import static com.efuture.product.metrics.ProductMetrics.Phase.MAPPING;
+import static com.efuture.product.metrics.ProductMetrics.Phase.PUBLISH;
+import static com.efuture.product.util.Constants.BULK_INSERT_CHUNK_SIZE;
+import static com.efuture.product.util.Constants.BULK_UPDATE_CHUNK_SIZE;
+import static com.efuture.product.util.Constants.DEFAULT_PAGE_SIZE;
+import static com.efuture.product.util.Constants.DEFAULT_PRICE_EDGES;
+import static com.efuture.product.util.Constants.DEFAULT_SEARCH_SIZE;
+import static com.efuture.product.util.Constants.ErrorDescription.BULK_PRICE_CHANGE_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorDescription.BULK_TARGET_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorDescription.FACETS_UNAVAILABLE_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorDescription.INVALID_PAGE_SIZE_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorDescription.INVALID_PRICE_EDGES_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorDescription.INVALID_PRICE_RANGE_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorDescription.INVALID_SEARCH_QUERY_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorDescription.PRICE_OUT_OF_RANGE_DESCRIPTION;
 import static com.efuture.product.util.Constants.ErrorDescription.PRODUCT_ALREADY_DELETED;
 import static com.efuture.product.util.Constants.ErrorDescription.PRODUCT_NOT_FOUND_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorDescription.SEARCH_UNAVAILABLE_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorDescription.VERSION_MISMATCH_DESCRIPTION;
+import static com.efuture.product.util.Constants.ErrorMsg.FACETS_UNAVAILABLE;
+import static com.efuture.product.util.Constants.ErrorMsg.INVALID_BULK_REQUEST;
+import static com.efuture.product.util.Constants.ErrorMsg.INVALID_PAGE_SIZE;
+import static com.efuture.product.util.Constants.ErrorMsg.INVALID_PRICE_EDGES;
+import static com.efuture.product.util.Constants.ErrorMsg.INVALID_PRICE_RANGE;
 import static com.efuture.product.util.Constants.ErrorMsg.INVALID_PRODUCT_ID;
+import static com.efuture.product.util.Constants.ErrorMsg.INVALID_SEARCH_QUERY;
 import static com.efuture.product.util.Constants.ErrorMsg.PRODUCT_NOT_FOUND;
+import static com.efuture.product.util.Constants.ErrorMsg.SEARCH_UNAVAILABLE;
+import static com.efuture.product.util.Constants.ErrorMsg.VERSION_MISMATCH;
+import static com.efuture.product.util.Constants.LOOKUP_CHUNK_SIZE;
+import static com.efuture.product.util.Constants.MAX_PAGE_SIZE;
+import static com.efuture.product.util.Constants.MAX_PRICE_EDGES;
+import static com.efuture.product.util.Constants.MAX_PRICE;
+import static com.efuture.product.util.Constants.MAX_SEARCH_QUERY_LENGTH;
 import static com.efuture.product.util.Constants.PREMIUM_PRODUCT_PRICE_LIMIT;
 import static com.efuture.product.util.Constants.ProductStatus.ACTIVE;
 import static com.efuture.product.util.Constants.ProductStatus.DELETED;
@@ -28,18 +94,42 @@ import static com.efuture.product.util.Constants.ResponseMsg.SUCCESS;
 
 @Slf4j
 @Service
-@Transactional
+//the write transactions time out, so that the index refresh margin can cover every write, see CatalogueChanges
+@Transactional(timeoutString = "${catalogue.write-timeout:120}")
 public class ProductService {
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
-    private final KafkaProducerService kafkaProducerService;
+    private final OutboxService outboxService;
+    private final EntityManager entityManager;
+    private final ProductQueryCache productQueryCache;
+    private final PriceIndex priceIndex;
+    private final SearchIndex searchIndex;
+    private final FacetIndex facetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductMetrics productMetrics;
+    private final TransactionTemplate readOnlyTransaction;
 
     public ProductService(ProductRepository productRepository, ProductMapper productMapper,
-                          KafkaProducerService kafkaProducerService) {
+                          OutboxService outboxService, EntityManager entityManager,
+                          ProductQueryCache productQueryCache, PriceIndex priceIndex, SearchIndex searchIndex,
+                          FacetIndex facetIndex,
+                          ApplicationEventPublisher eventPublisher, ProductMetrics productMetrics,
+                          PlatformTransactionManager transactionManager) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
-        this.kafkaProducerService = kafkaProducerService;
+        this.outboxService = outboxService;
+        this.entityManager = entityManager;
+        this.productQueryCache = productQueryCache;
+        this.priceIndex = priceIndex;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.eventPublisher = eventPublisher;
+        this.productMetrics = productMetrics;
+        //read-only transactions are opened by the database loaders only, so cache and index hits do not take a
+        //connection
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
@@ -48,105 +138,304 @@ public class ProductService {
      * @return product creation response
      */
     public Response<ProductInformation> createProduct(CreateProductRequest createProductRequest) {
-        log.info("create product request:{}", createProductRequest);
-        //map the request to db record and save
-        Product product = productMapper.mapToProduct(createProductRequest);
-        product.setStatus(ACTIVE.getValue());
-        Product saved = productRepository.save(product);
-
-        //map the request to kafka event message and send it into the configured topic
-        ProductInformation productInformation = productMapper.mapToProductInformation(saved);
-        ProductCreationEvent event = productMapper.mapToProductCreationEvent(saved);
-        kafkaProducerService.sendMessage(event);
-
-        return Response.<ProductInformation>builder()
-                .status(STATUS_CREATED)
-                .message(SUCCESS)
-                .data(productInformation)
-                .build();
+        log.debug("create product request:{}", createProductRequest);
+        return productMetrics.operation("createProduct", () -> {
+            //map the request to db record and save
+            Product product = productMetrics.phase("createProduct", MAPPING,
+                    () -> productMapper.mapToProduct(createProductRequest));
+            product.setStatus(ACTIVE.getValue());
+            Product saved = productMetrics.phase("createProduct", DB, () -> productRepository.save(product));
+
+            //map the request to kafka event message and write it to the outbox in the same transaction
+            ProductInformation productInformation = productMetrics.phase("createProduct", MAPPING,
+                    () -> productMapper.mapToProductInformation(saved));
+            ProductCreationEvent event = productMetrics.phase("createProduct", MAPPING,
+                    () -> productMapper.mapToProductCreationEvent(saved));
+            productMetrics.phase("createProduct", PUBLISH, () -> {
+                outboxService.enqueue(event);
+                eventPublisher.publishEvent(ProductChangedEvent.of(CREATED, saved));
+            });
+
+            return Response.<ProductInformation>builder()
+                    .status(STATUS_CREATED)
+                    .message(SUCCESS)
+                    .data(productInformation)
+                    .build();
+        });
+    }
+
+    /**
+     * Save products to db in JDBC batches, along with their creation events in the outbox
+     * @param bulkCreateProductRequest products to create
+     * @return created products, in request order
+     */
+    public Response<List<ProductInformation>> createProducts(BulkCreateProductRequest bulkCreateProductRequest) {
+        List<CreateProductRequest> requests = bulkCreateProductRequest.products();
+        log.debug("bulk create product request, size:{}", requests.size());
+        return productMetrics.operation("createProducts", () -> {
+            List<ProductInformation> productInformationList = new ArrayList<>(requests.size());
+
+            for (int from = 0; from < requests.size(); from += BULK_INSERT_CHUNK_SIZE) {
+                List<CreateProductRequest> chunk = requests.subList(from,
+                        Math.min(from + BULK_INSERT_CHUNK_SIZE, requests.size()));
+                List<Product> products = productMetrics.phase("createProducts", MAPPING, () -> chunk.stream()
+                        .map(createProductRequest -> {
+                            Product product = productMapper.mapToProduct(createProductRequest);
+                            product.setStatus(ACTIVE.getValue());
+                            return product;
+                        })
+                        .toList());
+                productMetrics.phase("createProducts", DB, () -> productRepository.saveAll(products));
+                List<ProductCreationEvent> events = productMetrics.phase("createProducts", MAPPING,
+                        () -> products.stream().map(productMapper::mapToProductCreationEvent).toList());
+                productMetrics.phase("createProducts", PUBLISH, () -> outboxService.enqueueAll(events));
+                //flush the chunk as JDBC batches and release the entities from the persistence context
+                productMetrics.phase("createProducts", DB, () -> {
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+
+                productMetrics.phase("createProducts", MAPPING, () -> products.forEach(
+                        product -> productInformationList.add(productMapper.mapToProductInformation(product))));
+                productMetrics.phase("createProducts", PUBLISH, () -> products.forEach(
+                        product -> eventPublisher.publishEvent(ProductChangedEvent.of(CREATED, product))));
+            }
+
+            return Response.<List<ProductInformation>>builder()
+                    .status(STATUS_CREATED)
+                    .message(SUCCESS)
+                    .data(productInformationList)
+                    .build();
+        });
     }
 
     /**
      * Update existing products
      * @param productId Product Id
+     * @param expectedVersion version the update is based on, null to update any version
      * @param updateProductRequest Update product request
      * @return Update product response
      */
-    public Response<ProductInformation> updateProduct(Long productId, UpdateProductRequest updateProductRequest) {
-        log.info("update product request:{}", updateProductRequest);
+    public Response<ProductInformation> updateProduct(Long productId, Long expectedVersion,
+                                                      UpdateProductRequest updateProductRequest) {
+        log.debug("update product request:{}", updateProductRequest);
+        return productMetrics.operation("updateProduct", () -> {
+            //find the product
+            Product product = productMetrics.phase("updateProduct", DB, () -> productRepository.findById(productId))
+                    .orElseThrow(() -> new InvalidRequestException(PRODUCT_NOT_FOUND,
+                            String.format(PRODUCT_NOT_FOUND_DESCRIPTION, productId)));
+            checkVersion(product, expectedVersion);
+            if (DELETED.getValue().equals(product.getStatus())) {
+                throw new InvalidRequestException(INVALID_PRODUCT_ID,
+                        String.format(PRODUCT_ALREADY_DELETED, productId));
+            }
+            //map update product request body to existing product record
+            BigDecimal previousPrice = product.getPrice();
+            productMetrics.phase("updateProduct", MAPPING,
+                    () -> productMapper.mapUpdateRequestToProduct(updateProductRequest, product));
+            //flushed right away, so that a concurrent update fails here and the response has the new version
+            Product saved = productMetrics.phase("updateProduct", DB, () -> productRepository.saveAndFlush(product));
+            productMetrics.phase("updateProduct", PUBLISH,
+                    () -> eventPublisher.publishEvent(ProductChangedEvent.of(UPDATED, saved, previousPrice)));
 
-        //find the product
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new InvalidRequestException(PRODUCT_NOT_FOUND,
-                        String.format(PRODUCT_NOT_FOUND_DESCRIPTION, productId)));
-        if (DELETED.getValue().equals(product.getStatus())) {
-            throw new InvalidRequestException(INVALID_PRODUCT_ID,
-                    String.format(PRODUCT_ALREADY_DELETED, productId));
-        }
-        //map update product request body to existing product record
-        productMapper.mapUpdateRequestToProduct(updateProductRequest, product);
-        Product saved = productRepository.save(product);
-
-        //map to response data
-        ProductInformation productInformation = productMapper.mapToProductInformation(saved);
+            //map to response data
+            ProductInformation productInformation = productMetrics.phase("updateProduct", MAPPING,
+                    () -> productMapper.mapToProductInformation(saved));
 
-        return Response.<ProductInformation>builder()
-                .status(STATUS_OK)
-                .message(SUCCESS)
-                .data(productInformation)
-                .build();
+            return Response.<ProductInformation>builder()
+                    .status(STATUS_OK)
+                    .message(SUCCESS)
+                    .data(productInformation)
+                    .build();
+        });
     }
 
     /**
      * Delete products (Soft Delete) -mark product status as 'D'
      * @param productId product id
+     * @param expectedVersion version the deletion is based on, null to delete any version
      * @return response data
      */
-    public Response<ProductInformation> deleteProduct(Long productId) {
-        log.info("delete product request:{}", productId);
-
-        //retrieve the existing product in the db
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new InvalidRequestException(PRODUCT_NOT_FOUND,
-                        String.format(PRODUCT_NOT_FOUND_DESCRIPTION, productId)));
-
-        String message;
-        //handle already deleted products
-        if (DELETED.getValue().equals(product.getStatus())) {
-            log.info("product is already deleted");
-            message = String.format(PRODUCT_ALREADY_DELETED, productId);
-        } else {
-            product.setStatus(DELETED.getValue());
-            product = productRepository.save(product);
-            message = SUCCESS;
+    public Response<ProductInformation> deleteProduct(Long productId, Long expectedVersion) {
+        log.debug("delete product request:{}", productId);
+        return productMetrics.operation("deleteProduct", () -> {
+            //retrieve the existing product in the db
+            Product product = productMetrics.phase("deleteProduct", DB, () -> productRepository.findById(productId))
+                    .orElseThrow(() -> new InvalidRequestException(PRODUCT_NOT_FOUND,
+                            String.format(PRODUCT_NOT_FOUND_DESCRIPTION, productId)));
+            checkVersion(product, expectedVersion);
+
+            String message;
+            Product deleted;
+            //handle already deleted products
+            if (DELETED.getValue().equals(product.getStatus())) {
+                log.debug("product is already deleted");
+                message = String.format(PRODUCT_ALREADY_DELETED, productId);
+                deleted = product;
+            } else {
+                product.setStatus(DELETED.getValue());
+                deleted = productMetrics.phase("deleteProduct", DB, () -> productRepository.saveAndFlush(product));
+                productMetrics.phase("deleteProduct", PUBLISH,
+                        () -> eventPublisher.publishEvent(ProductChangedEvent.of(ChangeType.DELETED, deleted)));
+                message = SUCCESS;
+            }
+
+            //map to response data
+            ProductInformation productInformation = productMetrics.phase("deleteProduct", MAPPING,
+                    () -> productMapper.mapToProductInformation(deleted));
+            return Response.<ProductInformation>builder()
+                    .status(STATUS_OK)
+                    .message(message)
+                    .data(productInformation)
+                    .build();
+        });
+    }
+
+    /**
+     * Reprice the active products of a category or an id set with chunked set-based UPDATE statements.
+     * The changed products are read back after each statement to publish their change events, which keep the
+     * caches and indexes up to date after commit.
+     * @param bulkRepriceRequest target products and absolute price or percentage
+     * @return number of repriced products, in total and per chunk
+     */
+    public Response<BulkUpdateResult> repriceProducts(BulkRepriceRequest bulkRepriceRequest) {
+        log.debug("bulk reprice request:{}", bulkRepriceRequest);
+        validateBulkTarget(bulkRepriceRequest.category(), bulkRepriceRequest.productIds());
+        if ((bulkRepriceRequest.price() == null) == (bulkRepriceRequest.percentage() == null)) {
+            throw new InvalidRequestException(INVALID_BULK_REQUEST, BULK_PRICE_CHANGE_DESCRIPTION);
         }
+        BigDecimal price = bulkRepriceRequest.price() == null ? null : BigDecimal.valueOf(bulkRepriceRequest.price());
+        BigDecimal factor = bulkRepriceRequest.percentage() == null ? null
+                : BigDecimal.ONE.add(BigDecimal.valueOf(bulkRepriceRequest.percentage()).movePointLeft(2));
+        if (price != null && price.compareTo(MAX_PRICE) > 0) {
+            throw new InvalidRequestException(INVALID_BULK_REQUEST,
+                    String.format(PRICE_OUT_OF_RANGE_DESCRIPTION, MAX_PRICE, price));
+        }
+        return productMetrics.operation("repriceProducts", () -> {
+            List<Integer> chunkCounts = forEachChunk("repriceProducts", bulkRepriceRequest.category(),
+                    bulkRepriceRequest.productIds(), products -> {
+                Map<Long, BigDecimal> previousPrices = new HashMap<>();
+                products.forEach(product -> previousPrices.put(product.id(), product.price()));
+                List<Long> ids = products.stream().map(ProductView::id).toList();
+                int updated;
+                if (price != null) {
+                    updated = productMetrics.phase("repriceProducts", DB,
+                            () -> productRepository.updatePriceByIdInAndStatus(ids, ACTIVE.getValue(), price));
+                } else {
+                    //the whole request is rolled back if a new price does not fit
+                    products.stream()
+                            .map(product -> product.price().multiply(factor))
+                            .filter(newPrice -> newPrice.compareTo(MAX_PRICE) > 0)
+                            .findFirst()
+                            .ifPresent(newPrice -> {
+                                throw new InvalidRequestException(INVALID_BULK_REQUEST,
+                                        String.format(PRICE_OUT_OF_RANGE_DESCRIPTION, MAX_PRICE, newPrice));
+                            });
+                    updated = productMetrics.phase("repriceProducts", DB,
+                            () -> productRepository.scalePriceByIdInAndStatus(ids, ACTIVE.getValue(), factor));
+                }
+                //read the prices as rounded by the database, and the new versions
+                List<ProductSnapshot> repriced = productMetrics.phase("repriceProducts", DB,
+                        () -> productRepository.findSnapshotByIdInAndStatus(ids, ACTIVE.getValue()));
+                productMetrics.phase("repriceProducts", PUBLISH, () -> repriced.forEach(product ->
+                        eventPublisher.publishEvent(ProductChangedEvent.of(UPDATED, product,
+                                previousPrices.get(product.id()), ACTIVE.getValue()))));
+                return updated;
+            });
+            return bulkUpdateResponse(chunkCounts);
+        });
+    }
 
-        //map to response data
-        ProductInformation productInformation = productMapper.mapToProductInformation(product);
-        return Response.<ProductInformation>builder()
-                .status(STATUS_OK)
-                .message(message)
-                .data(productInformation)
-                .build();
+    /**
+     * Soft delete the active products of a category or an id set with chunked set-based UPDATE statements
+     * @param bulkDeleteRequest target products
+     * @return number of deleted products, in total and per chunk
+     */
+    public Response<BulkUpdateResult> deleteProducts(BulkDeleteRequest bulkDeleteRequest) {
+        log.debug("bulk delete request:{}", bulkDeleteRequest);
+        validateBulkTarget(bulkDeleteRequest.category(), bulkDeleteRequest.productIds());
+        return productMetrics.operation("deleteProducts", () -> {
+            List<Integer> chunkCounts = forEachChunk("deleteProducts", bulkDeleteRequest.category(),
+                    bulkDeleteRequest.productIds(), products -> {
+                List<Long> ids = products.stream().map(ProductView::id).toList();
+                int updated = productMetrics.phase("deleteProducts", DB, () -> productRepository
+                        .updateStatusByIdInAndStatus(ids, ACTIVE.getValue(), DELETED.getValue()));
+                //read the new versions
+                List<ProductSnapshot> deleted = productMetrics.phase("deleteProducts", DB,
+                        () -> productRepository.findSnapshotByIdInAndStatus(ids, DELETED.getValue()));
+                productMetrics.phase("deleteProducts", PUBLISH, () -> deleted.forEach(product ->
+                        eventPublisher.publishEvent(ProductChangedEvent.of(ChangeType.DELETED, product,
+                                product.price(), DELETED.getValue()))));
+                return updated;
+            });
+            return bulkUpdateResponse(chunkCounts);
+        });
     }
 
     /**
-     * Retrieve all products by category
+     * Retrieve a page of active products by category, ordered by product id
      * @param category category
-     * @return product list
+     * @param after id of the last product of the previous page, null for the first page
+     * @param size page size, defaults to {@value com.efuture.product.util.Constants#DEFAULT_PAGE_SIZE}
+     * @return product page with the cursor of the next page
      */
-    public Response<List<ProductInformation>> getProductByCategory(String category) {
-        log.info("get active products by category:{}", category);
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Response<ProductPage> getProductByCategory(String category, Long after, Integer size) {
+        log.debug("get active products by category:{}, after:{}, size:{}", category, after, size);
+        int pageSize = resolvePageSize(size);
+        long cursor = after == null ? 0L : after;
 
-        //find active products by category
-        List<Product> products = productRepository.findByCategoryAndStatus(category, ACTIVE.getValue());
-        //map to response list
-        List<ProductInformation> productInformationList = productMapper.mapToProductInformationList(products);
-        return Response.<List<ProductInformation>>builder()
-                .status(STATUS_OK)
-                .message(SUCCESS)
-                .data(productInformationList)
-                .build();
+        return productMetrics.operation("getProductByCategory", () -> {
+            ProductPage productPage = productQueryCache.getCategoryPage(category, cursor, pageSize, () -> {
+                //find the next page of active products by category using the id as the cursor
+                List<ProductView> products = productMetrics.phase("getProductByCategory", DB,
+                        () -> readOnly(() -> productRepository.findByCategoryAndStatusAndIdGreaterThanOrderByIdAsc(
+                                category, ACTIVE.getValue(), cursor, Limit.of(pageSize))));
+                //map to response page
+                Long nextCursor = products.size() == pageSize ? products.get(pageSize - 1).id() : null;
+                return ProductPage.builder()
+                        .products(productMetrics.phase("getProductByCategory", MAPPING,
+                                () -> productMapper.mapToProductInformationList(products)))
+                        .nextCursor(nextCursor)
+                        .build();
+            });
+            productMetrics.resultSize("getProductByCategory", productPage.getProducts().size());
+            return Response.<ProductPage>builder()
+                    .status(STATUS_OK)
+                    .message(SUCCESS)
+                    .data(productPage)
+                    .build();
+        });
+    }
+
+    /**
+     * Stream all active products by category, ordered by product id.
+     * Rows are handed to the consumer as they are read from the JDBC cursor, as projections which the
+     * persistence context does not keep, so the memory usage does not depend on the category size.
+     * The consumer stops the stream by returning false, when the response can no longer be written, and the
+     * cursor and the transaction are then closed normally.
+     * @param category category
+     * @param consumer receives each product as it is read, returns whether to go on
+     */
+    @Transactional(readOnly = true)
+    public void streamProductsByCategory(String category, Predicate<ProductInformation> consumer) {
+        log.debug("stream active products by category:{}", category);
+        //reading the cursor and writing the response are interleaved, so the stream is only timed as a whole
+        int streamed = productMetrics.operation("streamProductsByCategory", () -> {
+            int count = 0;
+            try (Stream<ProductView> products = productRepository
+                    .streamByCategoryAndStatusOrderByIdAsc(category, ACTIVE.getValue())) {
+                for (ProductView product : (Iterable<ProductView>) products::iterator) {
+                    if (!consumer.test(productMapper.mapToProductInformation(product))) {
+                        log.debug("stream of category:{} stopped after {} products", category, count);
+                        break;
+                    }
+                    count++;
+                }
+            }
+            return count;
+        });
+        productMetrics.resultSize("streamProductsByCategory", streamed);
     }
 
     /**
@@ -154,17 +443,277 @@ public class ProductService {
      * If the product price is greater than 500, it is considered as premium product
      * @return product list
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Response<List<ProductInformation>> getPremiumProducts() {
-        log.info("get active premium products");
-        //find all active premium products
-        List<Product> products = productRepository
-                .findByStatusAndPriceGreaterThanEqualOrderByPrice(ACTIVE.getValue(), PREMIUM_PRODUCT_PRICE_LIMIT);
-        //map to response
-        List<ProductInformation> productInformationList = productMapper.mapToProductInformationList(products);
-        return Response.<List<ProductInformation>>builder()
+        log.debug("get active premium products");
+        return productMetrics.operation("getPremiumProducts", () -> {
+            //serve from the in-memory price index, falling back to the cached database query until it is loaded
+            //and while it is behind the changes of the other instances
+            List<ProductInformation> productInformationList = priceIndex
+                    .findByPriceBetween(PREMIUM_PRODUCT_PRICE_LIMIT, null)
+                    .orElseGet(() -> productQueryCache.getPremiumProducts(() -> {
+                        //find all active premium products
+                        List<ProductView> products = productMetrics.phase("getPremiumProducts", DB,
+                                () -> readOnly(() -> productRepository.findByStatusAndPriceGreaterThanEqualOrderByPrice(
+                                        ACTIVE.getValue(), PREMIUM_PRODUCT_PRICE_LIMIT)));
+                        //map to response
+                        return productMetrics.phase("getPremiumProducts", MAPPING,
+                                () -> productMapper.mapToProductInformationList(products));
+                    }));
+            productMetrics.resultSize("getPremiumProducts", productInformationList.size());
+            return Response.<List<ProductInformation>>builder()
+                    .status(STATUS_OK)
+                    .message(SUCCESS)
+                    .data(productInformationList)
+                    .build();
+        });
+    }
+
+    /**
+     * Retrieve active products within a price range, ordered by price
+     * @param minPrice inclusive minimum price
+     * @param maxPrice inclusive maximum price, null for no upper bound
+     * @return product list
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Response<List<ProductInformation>> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        log.debug("get active products by price range:{} - {}", minPrice, maxPrice);
+        if (minPrice.signum() < 0 || (maxPrice != null && minPrice.compareTo(maxPrice) > 0)) {
+            throw new InvalidRequestException(INVALID_PRICE_RANGE,
+                    String.format(INVALID_PRICE_RANGE_DESCRIPTION, minPrice, maxPrice));
+        }
+        BigDecimal upperBound = maxPrice == null ? minPrice : maxPrice;
+        if (upperBound.compareTo(MAX_PRICE) > 0) {
+            throw new InvalidRequestException(INVALID_PRICE_RANGE,
+                    String.format(PRICE_OUT_OF_RANGE_DESCRIPTION, MAX_PRICE, upperBound));
+        }
+        return productMetrics.operation("getProductsByPriceRange", () -> {
+            List<ProductInformation> productInformationList = priceIndex.findByPriceBetween(minPrice, maxPrice)
+                    .orElseGet(() -> {
+                        List<ProductView> products = productMetrics.phase("getProductsByPriceRange", DB,
+                                () -> readOnly(() -> maxPrice == null
+                                        ? productRepository.findByStatusAndPriceGreaterThanEqualOrderByPrice(
+                                                ACTIVE.getValue(), minPrice)
+                                        : productRepository.findByStatusAndPriceBetweenOrderByPriceAscIdAsc(
+                                                ACTIVE.getValue(), minPrice, maxPrice)));
+                        return productMetrics.phase("getProductsByPriceRange", MAPPING,
+                                () -> productMapper.mapToProductInformationList(products));
+                    });
+            productMetrics.resultSize("getProductsByPriceRange", productInformationList.size());
+            return Response.<List<ProductInformation>>builder()
+                    .status(STATUS_OK)
+                    .message(SUCCESS)
+                    .data(productInformationList)
+                    .build();
+        });
+    }
+
+    /**
+     * Retrieve active products by id, from the price index when it is loaded, otherwise with one IN query per
+     * chunk of {@value com.efuture.product.util.Constants#LOOKUP_CHUNK_SIZE} ids
+     * @param productIds requested product ids
+     * @return found products in request order, and the ids which are unknown or deleted
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Response<ProductLookup> getProductsByIds(List<Long> productIds) {
+        //duplicated ids are looked up and returned once
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(productIds));
+        log.debug("get active products by ids, size:{}", ids.size());
+        return productMetrics.operation("getProductsByIds", () -> {
+            Map<Long, ProductInformation> found = priceIndex.findByIds(ids)
+                    .orElseGet(() -> readOnly(() -> {
+                        Map<Long, ProductInformation> products = new HashMap<>();
+                        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+                            List<Long> chunk = ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size()));
+                            List<ProductView> views = productMetrics.phase("getProductsByIds", DB,
+                                    () -> productRepository.findByIdInAndStatus(chunk, ACTIVE.getValue()));
+                            productMetrics.phase("getProductsByIds", MAPPING, () -> views.forEach(view ->
+                                    products.put(view.id(), productMapper.mapToProductInformation(view))));
+                        }
+                        return products;
+                    }));
+
+            //restore the request order
+            List<ProductInformation> productInformationList = new ArrayList<>(found.size());
+            List<Long> missingIds = new ArrayList<>();
+            for (Long id : ids) {
+                ProductInformation productInformation = found.get(id);
+                if (productInformation == null) {
+                    missingIds.add(id);
+                } else {
+                    productInformationList.add(productInformation);
+                }
+            }
+            productMetrics.resultSize("getProductsByIds", productInformationList.size());
+            return Response.<ProductLookup>builder()
+                    .status(STATUS_OK)
+                    .message(SUCCESS)
+                    .data(ProductLookup.builder()
+                            .products(productInformationList)
+                            .missingIds(missingIds)
+                            .build())
+                    .build();
+        });
+    }
+
+    /**
+     * Search active products by name, category and description, with prefix and typo tolerant matching
+     * @param query free text
+     * @param size maximum number of results, defaults to {@value com.efuture.product.util.Constants#DEFAULT_SEARCH_SIZE}
+     * @return products ordered by relevance
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Response<List<ProductInformation>> searchProducts(String query, Integer size) {
+        log.debug("search active products, query:{}, size:{}", query, size);
+        if (query == null || query.isBlank() || query.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new InvalidRequestException(INVALID_SEARCH_QUERY,
+                    String.format(INVALID_SEARCH_QUERY_DESCRIPTION, MAX_SEARCH_QUERY_LENGTH, query));
+        }
+        int limit = size == null ? DEFAULT_SEARCH_SIZE : resolvePageSize(size);
+        return productMetrics.operation("searchProducts", () -> {
+            //served from the in-memory index only, a LIKE '%x%' fallback would scan the product table
+            List<ProductInformation> productInformationList = searchIndex.search(query, limit)
+                    .orElseThrow(() -> new ServiceUnavailableException(SEARCH_UNAVAILABLE,
+                            SEARCH_UNAVAILABLE_DESCRIPTION));
+            productMetrics.resultSize("searchProducts", productInformationList.size());
+            return Response.<List<ProductInformation>>builder()
+                    .status(STATUS_OK)
+                    .message(SUCCESS)
+                    .data(productInformationList)
+                    .build();
+        });
+    }
+
+    /**
+     * Count the active products per category, in total and per price bucket
+     * @param category only this category, null for all categories
+     * @param edges ascending price bucket edges, defaults to
+     *              {@link com.efuture.product.util.Constants#DEFAULT_PRICE_EDGES}
+     * @return facets ordered by category
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Response<List<CategoryFacet>> getFacets(String category, List<BigDecimal> edges) {
+        log.debug("get facets of category:{}, edges:{}", category, edges);
+        List<BigDecimal> priceEdges = edges == null || edges.isEmpty() ? DEFAULT_PRICE_EDGES : edges;
+        if (!isValidPriceEdges(priceEdges)) {
+            throw new InvalidRequestException(INVALID_PRICE_EDGES,
+                    String.format(INVALID_PRICE_EDGES_DESCRIPTION, MAX_PRICE_EDGES, MAX_PRICE, priceEdges));
+        }
+        return productMetrics.operation("getFacets", () -> {
+            //served from the in-memory counts only, the database would have to scan every active product
+            List<CategoryFacet> facets = facetIndex.findFacets(category, priceEdges)
+                    .orElseThrow(() -> new ServiceUnavailableException(FACETS_UNAVAILABLE,
+                            FACETS_UNAVAILABLE_DESCRIPTION));
+            productMetrics.resultSize("getFacets", facets.size());
+            return Response.<List<CategoryFacet>>builder()
+                    .status(STATUS_OK)
+                    .message(SUCCESS)
+                    .data(facets)
+                    .build();
+        });
+    }
+
+    /**
+     * Run a database read in a read-only transaction, joining the caller's transaction if there is one
+     * @param query repository read
+     * @return query result
+     */
+    private <T> T readOnly(Supplier<T> query) {
+        return readOnlyTransaction.execute(status -> query.get());
+    }
+
+    /**
+     * Check the If-Match precondition of a single product change
+     * @param product current product
+     * @param expectedVersion version the change is based on, null for any version
+     */
+    private static void checkVersion(Product product, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new PreconditionFailedException(VERSION_MISMATCH, String.format(VERSION_MISMATCH_DESCRIPTION,
+                    product.getId(), product.getVersion(), expectedVersion));
+        }
+    }
+
+    private static void validateBulkTarget(String category, List<Long> productIds) {
+        boolean hasCategory = category != null && !category.isBlank();
+        boolean hasIds = productIds != null && !productIds.isEmpty();
+        if (hasCategory == hasIds) {
+            throw new InvalidRequestException(INVALID_BULK_REQUEST, BULK_TARGET_DESCRIPTION);
+        }
+    }
+
+    /**
+     * Apply a bulk change to the active target products, one chunk of
+     * {@value com.efuture.product.util.Constants#BULK_UPDATE_CHUNK_SIZE} products at a time.
+     * A category is walked with its id cursor, an id set in request order.
+     * @param operation operation name of the metrics
+     * @param category target category, null when ids are given
+     * @param productIds target ids, null when a category is given
+     * @param change changes the active products of one chunk and returns the number of changed rows
+     * @return changed rows per chunk
+     */
+    private List<Integer> forEachChunk(String operation, String category, List<Long> productIds,
+                                       ToIntFunction<List<ProductView>> change) {
+        List<Integer> chunkCounts = new ArrayList<>();
+        if (productIds == null || productIds.isEmpty()) {
+            long cursor = 0L;
+            List<ProductView> products;
+            do {
+                long after = cursor;
+                products = productMetrics.phase(operation, DB, () -> productRepository
+                        .findByCategoryAndStatusAndIdGreaterThanOrderByIdAsc(category, ACTIVE.getValue(), after,
+                                Limit.of(BULK_UPDATE_CHUNK_SIZE)));
+                if (!products.isEmpty()) {
+                    chunkCounts.add(change.applyAsInt(products));
+                    cursor = products.getLast().id();
+                }
+            } while (products.size() == BULK_UPDATE_CHUNK_SIZE);
+            return chunkCounts;
+        }
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(productIds));
+        for (int from = 0; from < ids.size(); from += BULK_UPDATE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BULK_UPDATE_CHUNK_SIZE, ids.size()));
+            //unknown and already deleted ids are left out, an IN list must not be empty
+            List<ProductView> products = productMetrics.phase(operation, DB,
+                    () -> productRepository.findByIdInAndStatus(chunk, ACTIVE.getValue()));
+            chunkCounts.add(products.isEmpty() ? 0 : change.applyAsInt(products));
+        }
+        return chunkCounts;
+    }
+
+    private static Response<BulkUpdateResult> bulkUpdateResponse(List<Integer> chunkCounts) {
+        return Response.<BulkUpdateResult>builder()
                 .status(STATUS_OK)
                 .message(SUCCESS)
-                .data(productInformationList)
+                .data(BulkUpdateResult.builder()
+                        .updated(chunkCounts.stream().mapToInt(Integer::intValue).sum())
+                        .chunkCounts(chunkCounts)
+                        .build())
                 .build();
     }
+
+    private static boolean isValidPriceEdges(List<BigDecimal> edges) {
+        if (edges.size() > MAX_PRICE_EDGES) {
+            return false;
+        }
+        BigDecimal previous = BigDecimal.ZERO;
+        for (BigDecimal edge : edges) {
+            if (edge == null || edge.compareTo(previous) <= 0 || edge.compareTo(MAX_PRICE) > 0) {
+                return false;
+            }
+            previous = edge;
+        }
+        return true;
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException(INVALID_PAGE_SIZE,
+                    String.format(INVALID_PAGE_SIZE_DESCRIPTION, MAX_PAGE_SIZE, size));
+        }
+        return size;
+    }
 }
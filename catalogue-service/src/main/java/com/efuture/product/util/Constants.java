@@ -3,12 +3,42 @@ package com.efuture.product.util;
 import lombok.Getter;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 public class Constants {
     public static final BigDecimal PREMIUM_PRODUCT_PRICE_LIMIT = new BigDecimal(500);
-    public static final String KAFKA_BOOTSTRAP_SERVERS = "localhost:29092";
+    //largest price the price index can hold in cents, Long.MAX_VALUE moved two places left
+    public static final String MAX_PRICE_VALUE = "92233720368547758.07";
+    public static final BigDecimal MAX_PRICE = new BigDecimal(MAX_PRICE_VALUE);
 
     public static final String CARD_EVENT_TOPIC = "product-topic";
+    //log compacted, the last change event of each product holds its current state
+    public static final String PRODUCT_CHANGE_TOPIC = "product-changes";
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static final int MAX_BULK_SIZE = 10000;
+    public static final int BULK_INSERT_CHUNK_SIZE = 500;
+    //products changed by one bulk UPDATE statement
+    public static final int BULK_UPDATE_CHUNK_SIZE = 1000;
+
+    public static final int MAX_LOOKUP_SIZE = 5000;
+    //ids bound to one IN query, well below the packet and plan cache limits of the database
+    public static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    public static final int DEFAULT_SEARCH_SIZE = 20;
+
+    //price histogram bucket edges used when the request has none
+    public static final List<BigDecimal> DEFAULT_PRICE_EDGES = List.of(new BigDecimal(100),
+            PREMIUM_PRODUCT_PRICE_LIMIT, new BigDecimal(1000), new BigDecimal(5000));
+    public static final int MAX_PRICE_EDGES = 50;
+    public static final int MAX_SEARCH_QUERY_LENGTH = 200;
+
+    public static class OutboxEventType {
+        public static final String PRODUCT_CREATED = "PRODUCT_CREATED";
+        public static final String PRODUCT_CHANGED = "PRODUCT_CHANGED";
+    }
 
     public static class ResponseCodes {
         public static final int STATUS_OK = 200;
@@ -16,6 +46,9 @@ public class Constants {
         public static final int STATUS_CREATED = 201;
         public static final int STATUS_FORBIDDEN = 403;
         public static final int STATUS_BAD_REQUEST = 400;
+        public static final int STATUS_CONFLICT = 409;
+        public static final int STATUS_PRECONDITION_FAILED = 412;
+        public static final int STATUS_SERVICE_UNAVAILABLE = 503;
     }
 
     public static class ResponseMsg {
@@ -26,11 +59,39 @@ public class Constants {
     public static class ErrorMsg {
         public static final String PRODUCT_NOT_FOUND = "The product is not found";
         public static final String INVALID_PRODUCT_ID = "The product id is invalid";
+        public static final String INVALID_PAGE_SIZE = "The page size is invalid";
+        public static final String INVALID_PRICE_RANGE = "The price range is invalid";
+        public static final String INVALID_SEARCH_QUERY = "The search query is invalid";
+        public static final String SEARCH_UNAVAILABLE = "The product search is unavailable";
+        public static final String INVALID_PRICE_EDGES = "The price histogram edges are invalid";
+        public static final String INVALID_BULK_REQUEST = "The bulk request is invalid";
+        public static final String FACETS_UNAVAILABLE = "The product facets are unavailable";
+        public static final String INVALID_IF_MATCH = "The If-Match header is invalid";
+        public static final String VERSION_MISMATCH = "The product version does not match";
+        public static final String CONCURRENT_UPDATE = "The product was changed concurrently";
     }
 
     public static class ErrorDescription {
         public static final String PRODUCT_NOT_FOUND_DESCRIPTION = "The product is not found :: id %s";
         public static final String PRODUCT_ALREADY_DELETED = "The product is already deleted : %s";
+        public static final String INVALID_PAGE_SIZE_DESCRIPTION = "The page size should be between 1 and %s : %s";
+        public static final String INVALID_PRICE_RANGE_DESCRIPTION =
+                "The minimum price should be between zero and the maximum price : %s - %s";
+        public static final String PRICE_OUT_OF_RANGE_DESCRIPTION = "The price should not be greater than %s : %s";
+        public static final String INVALID_SEARCH_QUERY_DESCRIPTION =
+                "The search query should have between 1 and %s characters : %s";
+        public static final String SEARCH_UNAVAILABLE_DESCRIPTION = "The search index is not loaded yet";
+        public static final String INVALID_PRICE_EDGES_DESCRIPTION =
+                "At most %s ascending edges greater than zero and not greater than %s are allowed : %s";
+        public static final String FACETS_UNAVAILABLE_DESCRIPTION = "The facet index is not loaded yet";
+        public static final String BULK_TARGET_DESCRIPTION = "Either a category or product ids should be given";
+        public static final String BULK_PRICE_CHANGE_DESCRIPTION = "Either a price or a percentage should be given";
+        public static final String INVALID_IF_MATCH_DESCRIPTION =
+                "The If-Match header should be * or a product ETag like \"3\" : %s";
+        public static final String VERSION_MISMATCH_DESCRIPTION =
+                "The product %s is at version %s, not at the expected version %s";
+        public static final String CONCURRENT_UPDATE_DESCRIPTION =
+                "The product was changed by another request, read it again and retry";
     }
 
     @Getter
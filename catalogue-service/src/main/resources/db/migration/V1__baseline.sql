@@ -0,0 +1,45 @@
+-- baseline schema, as created by mysql-init/init.sql before the migrations were introduced
+create table if not exists product
+(
+    price       decimal(38, 2) not null,
+    id          bigint auto_increment
+        primary key,
+    category    varchar(255)   null,
+    description varchar(255)   null,
+    name        varchar(255)   not null,
+    status      varchar(255)   null
+);
+
+-- id generator of the product table, served by Hibernate in pooled blocks so that inserts can be batched.
+-- The pooled optimizer hands out the 50 ids up to the value read, so the seed is 50 past the highest existing id
+create table if not exists product_seq
+(
+    next_val bigint
+);
+
+insert into product_seq (next_val)
+select coalesce(max(id), 0) + 50
+from product
+where not exists (select next_val from product_seq);
+
+-- transactional outbox of the product events, drained to Kafka by the catalogue-service relay
+create table if not exists product_outbox
+(
+    id           bigint       not null
+        primary key,
+    aggregate_id bigint       not null,
+    event_type   varchar(255) not null,
+    topic        varchar(255) not null,
+    payload      text         not null,
+    created_at   datetime(6)  not null
+);
+
+create table if not exists product_outbox_seq
+(
+    next_val bigint
+);
+
+insert into product_outbox_seq (next_val)
+select 1
+from dual
+where not exists (select next_val from product_outbox_seq);
@@ -0,0 +1,12 @@
+-- status holds a single code (A - active, D - deleted)
+update product
+set status = 'A'
+where status is null;
+
+-- composite indexes matching the repository queries, all of which filter on the status first:
+-- category pages and streams seek (status, category) and read in id order,
+-- premium, price range and price index queries seek (status, price) and read in price, id order
+alter table product
+    modify status char(1) character set ascii not null,
+    add index idx_product_status_category_id (status, category, id),
+    add index idx_product_status_price_id (status, price, id);
@@ -0,0 +1,4 @@
+-- the relay reads a shard as mod(aggregate_id, shards) = shard in id order: scanning this index evaluates the
+-- shard from the index entries in id order, so only the rows of the shard are read from the table
+alter table product_outbox
+    add index idx_product_outbox_id_aggregate_id (id, aggregate_id);
@@ -0,0 +1,8 @@
+-- versions of the cached product lists (category/<category>, premium), bumped in the writing transaction so that
+-- every instance derives the same cache keys and ETags from them
+create table product_list_version
+(
+    list_key varchar(255) not null
+        primary key,
+    version  bigint       not null
+);
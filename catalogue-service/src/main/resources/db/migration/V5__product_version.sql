@@ -0,0 +1,4 @@
+-- optimistic lock version of a product, checked and incremented by every update so that concurrent
+-- read-modify-write updates of the same product fail instead of overwriting each other
+alter table product
+    add column version bigint not null default 0;
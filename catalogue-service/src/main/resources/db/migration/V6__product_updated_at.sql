@@ -0,0 +1,5 @@
+-- time of the last change of a product, set by the database on every insert and update, so that the in-memory
+-- indexes of an instance can read the products changed by the other instances since their last refresh
+alter table product
+    add column updated_at datetime(6) not null default current_timestamp(6) on update current_timestamp(6),
+    add index idx_product_updated_at (updated_at);
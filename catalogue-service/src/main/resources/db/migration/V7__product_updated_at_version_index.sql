@@ -0,0 +1,6 @@
+-- the refresh of the in-memory indexes first reads the id and version of the products changed since its
+-- checkpoint, and only reads the state of the products it has not applied; with the version in the index, and the
+-- id as its primary key suffix, that first read does not touch the rows
+alter table product
+    drop index idx_product_updated_at,
+    add index idx_product_updated_at_version (updated_at, version);
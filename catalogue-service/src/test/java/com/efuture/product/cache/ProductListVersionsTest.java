@@ -0,0 +1,147 @@
+package com.efuture.product.cache;
+
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.event.ProductChangedEvent.ChangeType;
+import com.efuture.product.repository.ProductListVersionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductListVersionsTest {
+
+    private ProductListVersionRepository productListVersionRepository;
+    private ProductListVersions productListVersions;
+
+    @BeforeEach
+    void setUp() {
+        productListVersionRepository = mock(ProductListVersionRepository.class);
+        productListVersions = new ProductListVersions(productListVersionRepository,
+                mock(PlatformTransactionManager.class), Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.unbindResourceIfPossible(productListVersions);
+    }
+
+    @Test
+    void testVersionsAreReadFromTheSharedTable() {
+        when(productListVersionRepository.findVersion("category/fashion")).thenReturn(3L);
+
+        assertEquals(3L, productListVersions.getCategoryVersion("fashion"));
+        assertEquals(3L, productListVersions.getCategoryVersion("fashion"));
+        //never changed
+        assertEquals(0L, productListVersions.getPremiumVersion());
+        verify(productListVersionRepository, times(1)).findVersion("category/fashion");
+    }
+
+    @Test
+    void testChangesAreCountedOncePerListAndTransactionAfterItsCommit() {
+        when(productListVersionRepository.findVersion("category/fashion")).thenReturn(3L, 4L);
+        assertEquals(3L, productListVersions.getCategoryVersion("fashion"));
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        productListVersions.onProductChanged(event("fashion", new BigDecimal(10), new BigDecimal(700)));
+        productListVersions.onProductChanged(event("fashion", new BigDecimal(20), new BigDecimal(30)));
+        //the version rows are not locked by the writing transaction
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(productListVersionRepository, never()).increment(anyString());
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        verify(productListVersionRepository, times(1)).increment("category/fashion");
+        verify(productListVersionRepository, times(1)).increment("premium");
+        InOrder inOrder = inOrder(productListVersionRepository);
+        inOrder.verify(productListVersionRepository).increment("premium");
+        inOrder.verify(productListVersionRepository).increment("catalogue");
+        //the cached version is dropped after the bump
+        assertEquals(4L, productListVersions.getCategoryVersion("fashion"));
+        assertNull(TransactionSynchronizationManager.getResource(productListVersions));
+    }
+
+    @Test
+    void testRolledBackChangesAreNotCounted() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        productListVersions.onProductChanged(event("fashion", new BigDecimal(10), new BigDecimal(20)));
+
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verify(productListVersionRepository, never()).increment(anyString());
+        assertNull(TransactionSynchronizationManager.getResource(productListVersions));
+    }
+
+    @Test
+    void testFailedBumpIsRetriedWithTheNextChange() {
+        doThrow(new CannotCreateTransactionException("no connection")).doNothing()
+                .when(productListVersionRepository).increment("category/fashion");
+        productListVersions.onProductChanged(event("fashion", new BigDecimal(10), new BigDecimal(20)));
+
+        productListVersions.onProductChanged(event("toys", new BigDecimal(10), new BigDecimal(20)));
+
+        verify(productListVersionRepository, times(2)).increment("category/fashion");
+        verify(productListVersionRepository).increment("category/toys");
+    }
+
+    @Test
+    void testChangeOutsideTransactionIsCountedRightAway() {
+        productListVersions.onProductChanged(event("toys", new BigDecimal(10), new BigDecimal(20)));
+
+        verify(productListVersionRepository).increment("category/toys");
+        verify(productListVersionRepository).increment("catalogue");
+        verify(productListVersionRepository, never()).increment("premium");
+    }
+
+    @Test
+    void testCatalogueVersionsOfTheLocalBumpsAreSkipped() {
+        when(productListVersionRepository.findVersion("catalogue")).thenReturn(8L, 10L);
+        productListVersions.onProductChanged(event("toys", new BigDecimal(10), new BigDecimal(20)));
+        productListVersions.onProductChanged(event("toys", new BigDecimal(20), new BigDecimal(30)));
+
+        assertEquals(8L, productListVersions.skipLocalVersions(7L));
+        //9 was bumped by another instance, once it is applied the local 10 follows
+        assertEquals(8L, productListVersions.skipLocalVersions(8L));
+        assertEquals(10L, productListVersions.skipLocalVersions(9L));
+        assertEquals(10L, productListVersions.skipLocalVersions(10L));
+    }
+
+    @Test
+    void testCatalogueVersionIsReadWithEveryListVersion() {
+        when(productListVersionRepository.findVersion("catalogue")).thenReturn(5L, 6L);
+        assertEquals(5L, productListVersions.getCatalogueVersion());
+
+        //a later read of a list version moves the cached catalogue version along
+        when(productListVersionRepository.findVersion("premium")).thenReturn(2L);
+        assertEquals(2L, productListVersions.getPremiumVersion());
+        assertEquals(6L, productListVersions.getCatalogueVersion());
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        synchronizations.forEach(sync -> sync.afterCompletion(status));
+    }
+
+    private static ProductChangedEvent event(String category, BigDecimal previousPrice, BigDecimal price) {
+        return new ProductChangedEvent(ChangeType.UPDATED, 1L, category, "name", null, price, previousPrice, "A",
+                1L);
+    }
+}
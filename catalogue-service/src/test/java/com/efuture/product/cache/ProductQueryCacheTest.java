@@ -0,0 +1,140 @@
+package com.efuture.product.cache;
+
+import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductPage;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.event.ProductChangedEvent.ChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductQueryCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductListVersions productListVersions;
+    private ProductQueryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        productListVersions = mock(ProductListVersions.class);
+        cache = new ProductQueryCache(true, 100, Duration.ofMinutes(1), productListVersions, meterRegistry);
+    }
+
+    @Test
+    void testCategoryPageIsLoadedOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<ProductPage> loader = () -> {
+            loads.incrementAndGet();
+            return new ProductPage(List.of(), null);
+        };
+
+        cache.getCategoryPage("fashion", 0, 10, loader);
+        cache.getCategoryPage("fashion", 0, 10, loader);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "products.category")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void testChangeInvalidatesOnlyAffectedEntries() {
+        AtomicInteger fashionLoads = new AtomicInteger();
+        AtomicInteger toysLoads = new AtomicInteger();
+        AtomicInteger premiumLoads = new AtomicInteger();
+        cache.getCategoryPage("fashion", 0, 10, () -> page(fashionLoads));
+        cache.getCategoryPage("toys", 0, 10, () -> page(toysLoads));
+        cache.getPremiumProducts(() -> list(premiumLoads));
+
+        //the commit bumped the shared category version
+        when(productListVersions.getCategoryVersion("fashion")).thenReturn(1L);
+        cache.onProductChanged(event("fashion", new BigDecimal(10), new BigDecimal(20)));
+
+        cache.getCategoryPage("fashion", 0, 10, () -> page(fashionLoads));
+        cache.getCategoryPage("toys", 0, 10, () -> page(toysLoads));
+        cache.getPremiumProducts(() -> list(premiumLoads));
+        assertEquals(2, fashionLoads.get());
+        assertEquals(1, toysLoads.get());
+        assertEquals(1, premiumLoads.get());
+
+        cache.onProductChanged(event("toys", new BigDecimal(10), new BigDecimal(700)));
+
+        cache.getPremiumProducts(() -> list(premiumLoads));
+        assertEquals(2, premiumLoads.get());
+    }
+
+    @Test
+    void testChangesLeaveThePagesOfOlderVersionsToEviction() {
+        for (int after = 0; after < 50; after++) {
+            cache.getCategoryPage("fashion", after, 10, () -> new ProductPage(List.of(), null));
+        }
+
+        //the pages of the previous version stay cached until evicted, they are not looked up per change
+        for (int i = 0; i < 1000; i++) {
+            cache.onProductChanged(event("fashion", new BigDecimal(10), new BigDecimal(20)));
+        }
+        assertEquals(50, meterRegistry.get("cache.size").tag("cache", "products.category").gauge().value());
+
+        AtomicInteger loads = new AtomicInteger();
+        when(productListVersions.getCategoryVersion("fashion")).thenReturn(1L);
+        cache.getCategoryPage("fashion", 0, 10, () -> page(loads));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testLoadRacingWithInvalidationIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getCategoryPage("fashion", 0, 10, () -> {
+            loads.incrementAndGet();
+            cache.invalidateCategory("fashion");
+            return new ProductPage(List.of(), null);
+        });
+
+        cache.getCategoryPage("fashion", 0, 10, () -> page(loads));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testEntriesOfOlderVersionsAreNotServed() {
+        AtomicInteger categoryLoads = new AtomicInteger();
+        AtomicInteger premiumLoads = new AtomicInteger();
+        cache.getCategoryPage("fashion", 0, 10, () -> page(categoryLoads));
+        cache.getPremiumProducts(() -> list(premiumLoads));
+
+        //changed by another instance, nothing was invalidated locally
+        when(productListVersions.getCategoryVersion("fashion")).thenReturn(1L);
+        when(productListVersions.getPremiumVersion()).thenReturn(1L);
+
+        cache.getCategoryPage("fashion", 0, 10, () -> page(categoryLoads));
+        cache.getCategoryPage("fashion", 0, 10, () -> page(categoryLoads));
+        cache.getPremiumProducts(() -> list(premiumLoads));
+        assertEquals(2, categoryLoads.get());
+        assertEquals(2, premiumLoads.get());
+    }
+
+    private static ProductPage page(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new ProductPage(List.of(), null);
+    }
+
+    private static List<ProductInformation> list(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return List.of();
+    }
+
+    private static ProductChangedEvent event(String category, BigDecimal previousPrice, BigDecimal price) {
+        return new ProductChangedEvent(ChangeType.UPDATED, 1L, category, "name", null, price, previousPrice, "A",
+                1L);
+    }
+}
@@ -0,0 +1,78 @@
+package com.efuture.product.config;
+
+import com.efuture.product.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaDataSourceConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            //Duration @Value arguments, converted by SpringApplication in the service
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(DataSourcePropertiesConfig.class, ReplicaDataSourceConfig.class)
+            .withBean(SimpleMeterRegistry.class)
+            .withPropertyValues(
+                    "spring.datasource.url=jdbc:mysql://localhost:3306/efuture",
+                    "spring.datasource.username=test",
+                    "spring.datasource.password=pass",
+                    "spring.datasource.hikari.connection-timeout=4000",
+                    "spring.datasource.hikari.max-lifetime=600000",
+                    "spring.datasource.hikari.leak-detection-threshold=20000",
+                    "catalogue.datasource.replica-urls=jdbc:mysql://localhost:3307/efuture",
+                    "catalogue.datasource.replica-pool-size=4");
+
+    @Test
+    void testReplicaPoolsUseTheHikariSettingsOfThePrimary() {
+        contextRunner.run(context -> {
+            HikariDataSource primary = context.getBean("primaryDataSource", HikariDataSource.class);
+            HikariDataSource replica = (HikariDataSource) context.getBean(ReplicaRoutingDataSource.class)
+                    .getResolvedDataSources().get("replica-0");
+
+            assertEquals(4000, primary.getConnectionTimeout());
+            assertEquals(4000, replica.getConnectionTimeout());
+            assertEquals(600000, replica.getMaxLifetime());
+            assertEquals(20000, replica.getLeakDetectionThreshold());
+            assertEquals("jdbc:mysql://localhost:3307/efuture", replica.getJdbcUrl());
+            assertEquals("test", replica.getUsername());
+            assertEquals("replica-0", replica.getPoolName());
+            assertEquals(4, replica.getMaximumPoolSize());
+            assertTrue(replica.isReadOnly());
+        });
+    }
+
+    @Test
+    void testHealthCheckPoolFailsFast() throws Exception {
+        //nothing listens on the discard port, the connection is refused or times out
+        String url = "jdbc:mysql://127.0.0.1:9/efuture";
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(url);
+        properties.setUsername("test");
+        properties.afterPropertiesSet();
+        try (HikariDataSource healthCheck = ReplicaDataSourceConfig.healthCheckPool(properties, url, "health",
+                Duration.ofMillis(300))) {
+            assertEquals(300, healthCheck.getConnectionTimeout());
+            assertEquals(1, healthCheck.getMaximumPoolSize());
+
+            long start = System.nanoTime();
+            assertThrows(SQLException.class, healthCheck::getConnection);
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(5)) < 0);
+        }
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(DataSourceProperties.class)
+    static class DataSourcePropertiesConfig {
+    }
+}
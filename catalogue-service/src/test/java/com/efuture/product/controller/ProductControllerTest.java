@@ -1,43 +1,85 @@
 package com.efuture.product.controller;
 
+import com.efuture.product.cache.ProductListVersions;
+import com.efuture.product.cache.ProductQueryCache;
+import com.efuture.product.cache.ProductResponseCache;
+import com.efuture.product.config.AsyncConfig;
 import com.efuture.product.config.CustomAccessDeniedHandler;
 import com.efuture.product.config.CustomAuthenticationEntryPoint;
 import com.efuture.product.config.SecurityConfig;
+import com.efuture.product.dto.BulkCreateProductRequest;
 import com.efuture.product.dto.CreateProductRequest;
 import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductLookup;
+import com.efuture.product.dto.ProductPage;
 import com.efuture.product.dto.UpdateProductRequest;
+import com.efuture.product.entity.Product;
+import com.efuture.product.exception.PreconditionFailedException;
+import com.efuture.product.exception.ServiceUnavailableException;
+import com.efuture.product.service.ProductExportService;
 import com.efuture.product.service.ProductService;
+import com.efuture.product.util.Constants.ErrorDescription;
+import com.efuture.product.util.Constants.ErrorMsg;
 import com.efuture.product.util.Response;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(ProductController.class)
-@Import({SecurityConfig.class, CustomAccessDeniedHandler.class, CustomAuthenticationEntryPoint.class})
+@WebMvcTest(controllers = ProductController.class, properties = "management.server.port=8091")
+@Import({SecurityConfig.class, AsyncConfig.class, CustomAccessDeniedHandler.class, CustomAuthenticationEntryPoint.class,
+        ProductQueryCache.class, ProductResponseCache.class, SimpleMeterRegistry.class})
 class ProductControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ProductController productController;
+
+    @MockitoBean
+    private ProductListVersions productListVersions;
+
     @MockitoBean
     private ProductService productService;
 
+    @MockitoBean
+    private ProductExportService productExportService;
+
 
     @MockitoBean
     JwtDecoder jwtDecoder;
@@ -84,15 +126,50 @@ class ProductControllerTest {
     }
 
 
+    @Test
+    void createProductsShouldReturnCreatedResponse_forAdminRole() throws Exception {
+        BulkCreateProductRequest request = new BulkCreateProductRequest(List.of(
+                new CreateProductRequest("product-1", "p1", 10, "category1"),
+                new CreateProductRequest("product-2", "p2", 20, "category1")));
+        Response<List<ProductInformation>> response = new Response<>(201, "SUCCESS",
+                List.of(new ProductInformation(), new ProductInformation()));
+
+        when(productService.createProducts(any(BulkCreateProductRequest.class))).thenReturn(response);
+
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_Admin"))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.status").value(201))
+                .andExpect(jsonPath("$.data.length()").value(2));
+    }
+
+    @Test
+    void validateCreateProducts_invalidProduct() throws Exception {
+        BulkCreateProductRequest request = new BulkCreateProductRequest(List.of(
+                new CreateProductRequest("product-1", "p1", 10, "")));
+
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_Admin"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.data").value("products[0].category: Product category is mandatory"));
+    }
+
     @Test
     void updateProductShouldReturnOkResponse_forAdminRole() throws Exception {
         UpdateProductRequest updateRequest = new UpdateProductRequest("product-1", "p1", 10);
-        ProductInformation updatedProduct = new ProductInformation();
+        ProductInformation updatedProduct = ProductInformation.builder().productId("1").version(5L).build();
         Response<ProductInformation> response = new Response<>(200, "SUCCESS", updatedProduct);
 
-        when(productService.updateProduct(any(Long.class), any(UpdateProductRequest.class))).thenReturn(response);
+        when(productService.updateProduct(eq(1L), eq(4L), any(UpdateProductRequest.class))).thenReturn(response);
 
         mockMvc.perform(patch("/api/products/1")
+                        .header(HttpHeaders.IF_MATCH, "\"4\"")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updateRequest))
                         .accept(MediaType.APPLICATION_JSON)
@@ -100,8 +177,58 @@ class ProductControllerTest {
                                 .authorities(new SimpleGrantedAuthority("ROLE_Admin")))
                 )
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
                 .andExpect(jsonPath("$.status").value(200))
-                .andExpect(jsonPath("$.message").value("SUCCESS"));
+                .andExpect(jsonPath("$.message").value("SUCCESS"))
+                .andExpect(jsonPath("$.data.version").value(5));
+    }
+
+    @Test
+    void updateProductShouldReturnPreconditionFailed_whenVersionDoesNotMatch() throws Exception {
+        UpdateProductRequest updateRequest = new UpdateProductRequest("product-1", "p1", 10);
+        when(productService.updateProduct(eq(1L), eq(3L), any(UpdateProductRequest.class))).thenThrow(
+                new PreconditionFailedException(ErrorMsg.VERSION_MISMATCH, "at version 4"));
+
+        mockMvc.perform(patch("/api/products/1")
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateRequest))
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_Admin"))))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412))
+                .andExpect(jsonPath("$.message").value(ErrorMsg.VERSION_MISMATCH));
+    }
+
+    @Test
+    void updateProductShouldReturnConflict_whenUpdatedConcurrently() throws Exception {
+        UpdateProductRequest updateRequest = new UpdateProductRequest("product-1", "p1", 10);
+        when(productService.updateProduct(eq(1L), isNull(), any(UpdateProductRequest.class))).thenThrow(
+                new ObjectOptimisticLockingFailureException(Product.class, 1L));
+
+        mockMvc.perform(patch("/api/products/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateRequest))
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_Admin"))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.message").value(ErrorMsg.CONCURRENT_UPDATE));
+    }
+
+    @Test
+    void updateProductShouldReturnBadRequest_forWeakIfMatch() throws Exception {
+        UpdateProductRequest updateRequest = new UpdateProductRequest("product-1", "p1", 10);
+
+        mockMvc.perform(patch("/api/products/1")
+                        .header(HttpHeaders.IF_MATCH, "W/\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateRequest))
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_Admin"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(ErrorMsg.INVALID_IF_MATCH));
+        verify(productService, never()).updateProduct(any(), any(), any());
     }
 
     @Test
@@ -110,7 +237,8 @@ class ProductControllerTest {
         ProductInformation updatedProduct = new ProductInformation();
         Response<ProductInformation> response = new Response<>(200, "SUCCESS", updatedProduct);
 
-        when(productService.updateProduct(any(Long.class), any(UpdateProductRequest.class))).thenReturn(response);
+        when(productService.updateProduct(any(Long.class), any(), any(UpdateProductRequest.class)))
+                .thenReturn(response);
 
         mockMvc.perform(patch("/api/products/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -124,15 +252,17 @@ class ProductControllerTest {
 
     @Test
     void deleteProductShouldReturnOkResponse_forAdminRole() throws Exception {
-        ProductInformation deletedProduct = new ProductInformation();
+        ProductInformation deletedProduct = ProductInformation.builder().productId("1").version(8L).build();
         Response<ProductInformation> response = new Response<>(200, "SUCCESS", deletedProduct);
 
-        when(productService.deleteProduct(any(Long.class))).thenReturn(response);
+        when(productService.deleteProduct(1L, 7L)).thenReturn(response);
 
         mockMvc.perform(delete("/api/products/1")
+                        .header(HttpHeaders.IF_MATCH, "\"7\"")
                         .with(SecurityMockMvcRequestPostProcessors.jwt()
                                 .authorities(new SimpleGrantedAuthority("ROLE_Admin"))))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"8\""))
                 .andExpect(jsonPath("$.status").value(200))
                 .andExpect(jsonPath("$.message").value("SUCCESS"));
     }
@@ -142,7 +272,7 @@ class ProductControllerTest {
         ProductInformation deletedProduct = new ProductInformation();
         Response<ProductInformation> response = new Response<>(200, "SUCCESS", deletedProduct);
 
-        when(productService.deleteProduct(any(Long.class))).thenReturn(response);
+        when(productService.deleteProduct(any(Long.class), any())).thenReturn(response);
 
         mockMvc.perform(delete("/api/products/1")
                         .with(SecurityMockMvcRequestPostProcessors.jwt()
@@ -153,17 +283,137 @@ class ProductControllerTest {
     @Test
     void getProductsByCategoryShouldReturnList_forUserRole() throws Exception {
         ProductInformation productInfo = new ProductInformation();
-        List<ProductInformation> products = List.of(productInfo);
-        Response<List<ProductInformation>> response = new Response<>(200, "SUCCESS", products);
+        ProductPage page = new ProductPage(List.of(productInfo), 10L);
+        Response<ProductPage> response = new Response<>(200, "SUCCESS", page);
 
-        when(productService.getProductByCategory(any(String.class))).thenReturn(response);
+        when(productService.getProductByCategory("electronics", 5L, 1)).thenReturn(response);
 
         mockMvc.perform(get("/api/products/category/electronics")
+                        .param("after", "5")
+                        .param("size", "1")
                         .with(SecurityMockMvcRequestPostProcessors.jwt()
                                 .authorities(new SimpleGrantedAuthority("ROLE_User"))))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value(200))
-                .andExpect(jsonPath("$.message").value("SUCCESS"));
+                .andExpect(jsonPath("$.message").value("SUCCESS"))
+                .andExpect(jsonPath("$.data.next_cursor").value(10));
+    }
+
+    @Test
+    void streamProductsByCategoryShouldWriteNdjson_forUserRole() throws Exception {
+        ProductInformation first = ProductInformation.builder().productId("1").name("p1").build();
+        ProductInformation second = ProductInformation.builder().productId("2").name("p2").build();
+        doAnswer(invocation -> {
+            Predicate<ProductInformation> consumer = invocation.getArgument(1);
+            assertTrue(consumer.test(first));
+            assertTrue(consumer.test(second));
+            return null;
+        }).when(productService).streamProductsByCategory(eq("electronics"), any());
+
+        MvcResult result = mockMvc.perform(get("/api/products/category/electronics/stream")
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_User"))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(Duration.ofHours(1).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"name\":\"p1\",\"price\":0.0,\"product_id\":\"1\"}\n"
+                        + "{\"name\":\"p2\",\"price\":0.0,\"product_id\":\"2\"}\n"));
+    }
+
+    @Test
+    void streamProductsByCategoryShouldFlushOnceDone() throws Exception {
+        ProductInformation product = ProductInformation.builder().productId("1").name("p1").build();
+        doAnswer(invocation -> {
+            Predicate<ProductInformation> consumer = invocation.getArgument(1);
+            for (int i = 0; i < 100; i++) {
+                assertTrue(consumer.test(product));
+            }
+            return null;
+        }).when(productService).streamProductsByCategory(eq("electronics"), any());
+        AtomicInteger flushes = new AtomicInteger();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+
+        productController.streamProductsByCategory("electronics").getBody().writeTo(outputStream);
+
+        assertEquals(1, flushes.get());
+        assertEquals(100, outputStream.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    void exportProductsShouldReturnForbiddenResponse_forUserRole() throws Exception {
+        mockMvc.perform(get("/api/products/export")
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_User"))))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.error").value("Access Denied"));
+
+        verify(productExportService, never()).export(any());
+    }
+
+    @Test
+    void exportProductsShouldStreamTheFile_forAdminRole() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(0);
+            outputStream.write(new byte[]{31, -117});
+            return null;
+        }).when(productExportService).export(any());
+
+        MvcResult result = mockMvc.perform(get("/api/products/export")
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_Admin"))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products.ndjson.gz\""))
+                .andExpect(content().bytes(new byte[]{31, -117}));
+    }
+
+    @Test
+    void exportProductsShouldNotTimeOutAtTheContainerDefault() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(0);
+            outputStream.write(new byte[]{31, -117});
+            Thread.sleep(200);
+            outputStream.write(new byte[]{8, 0});
+            return null;
+        }).when(productExportService).export(any());
+
+        MvcResult result = mockMvc.perform(get("/api/products/export")
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_Admin"))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //the configured stream timeout replaces the 30 second default of the container
+        assertEquals(Duration.ofHours(1).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[]{31, -117, 8, 0}));
+    }
+
+    @Test
+    void prometheusShouldRequireAuthentication_outsideTheManagementPort() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        //public on the management port, which serves no endpoint in this test
+        mockMvc.perform(get("/actuator/prometheus").with(request -> {
+                    request.setLocalPort(8091);
+                    return request;
+                }))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -182,6 +432,66 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.message").value("SUCCESS"));
     }
 
+    @Test
+    void getProductsByCategoryShouldReturnNotModified_forCurrentETag() throws Exception {
+        Response<ProductPage> response = new Response<>(200, "SUCCESS",
+                new ProductPage(List.of(new ProductInformation()), null));
+        when(productService.getProductByCategory("toys", null, null)).thenReturn(response);
+
+        String eTag = mockMvc.perform(get("/api/products/category/toys")
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_User"))))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.status").value(200))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/products/category/toys")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_User"))))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        //the cached bytes are served to clients without a copy
+        mockMvc.perform(get("/api/products/category/toys")
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_User"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+        verify(productService, times(1)).getProductByCategory("toys", null, null);
+    }
+
+    @Test
+    void getPremiumProductsShouldReturnNewETag_afterChange() throws Exception {
+        Response<List<ProductInformation>> response = new Response<>(200, "SUCCESS",
+                List.of(new ProductInformation()));
+        when(productService.getPremiumProducts()).thenReturn(response);
+        //the caches are shared by the tests of the context, this version is only used here
+        when(productListVersions.getPremiumVersion()).thenReturn(41L);
+
+        String eTag = mockMvc.perform(get("/api/products/premium")
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_User"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        when(productListVersions.getPremiumVersion()).thenReturn(42L);
+
+        mockMvc.perform(get("/api/products/premium")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_User"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.status").value(200));
+
+        verify(productService, times(2)).getPremiumProducts();
+    }
+
     @Test
     void unauthorizedUserCannotAccessAdminEndpoints() throws Exception {
         mockMvc.perform(get("/api/products/premium")
@@ -253,4 +563,62 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.message").value("Validation failed"))
                 .andExpect(jsonPath("$.data").value("price: Price value should be grater than or equal to zero"));
     }
+
+    @Test
+    void validateCreateProduct_priceAboveMaximum() throws Exception {
+        CreateProductRequest request = new CreateProductRequest("product1", "p1", 1e20, "category1");
+
+        mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_Admin")))
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.data")
+                        .value("price: Price value should be less than or equal to 92233720368547758.07"));
+        verify(productService, never()).createProduct(any(CreateProductRequest.class));
+    }
+
+    @Test
+    void getProductsByIdsShouldReturnOkResponse_forUserRole() throws Exception {
+        ProductLookup lookup = new ProductLookup(List.of(new ProductInformation()), List.of(7L));
+        when(productService.getProductsByIds(List.of(12L, 7L))).thenReturn(new Response<>(200, "SUCCESS", lookup));
+
+        mockMvc.perform(post("/api/products/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"product_ids\": [12, 7]}")
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_User"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.products.length()").value(1))
+                .andExpect(jsonPath("$.data.missing_ids[0]").value(7));
+    }
+
+    @Test
+    void validateGetProductsByIds_emptyIds() throws Exception {
+        mockMvc.perform(post("/api/products/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"product_ids\": []}")
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_User"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.data").value("productIds: Product ids are mandatory"));
+    }
+
+    @Test
+    void searchProductsShouldReturnServiceUnavailable_whenIndexNotLoaded() throws Exception {
+        when(productService.searchProducts("bag", null)).thenThrow(new ServiceUnavailableException(
+                ErrorMsg.SEARCH_UNAVAILABLE, ErrorDescription.SEARCH_UNAVAILABLE_DESCRIPTION));
+
+        mockMvc.perform(get("/api/products/search")
+                        .param("q", "bag")
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_User"))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"))
+                .andExpect(jsonPath("$.status").value(503))
+                .andExpect(jsonPath("$.message").value(ErrorMsg.SEARCH_UNAVAILABLE));
+    }
 }
@@ -0,0 +1,157 @@
+package com.efuture.product.datasource;
+
+import com.efuture.product.event.ProductChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_COMMITTED;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.setCurrentTransactionReadOnly;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final DataSource healthCheck = mock(DataSource.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReplicaRoutingDataSource routingDataSource;
+    private ResultSet replicaStatus;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), List.of(healthCheck),
+                Duration.ofSeconds(5), Duration.ofMinutes(1), meterRegistry);
+        routingDataSource.afterPropertiesSet();
+
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        replicaStatus = mock(ResultSet.class);
+        when(healthCheck.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery("SHOW REPLICA STATUS")).thenReturn(replicaStatus);
+    }
+
+    @AfterEach
+    void tearDown() {
+        setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseHealthyReplica() throws SQLException {
+        when(replicaStatus.next()).thenReturn(true);
+        when(replicaStatus.getLong("Seconds_Behind_Source")).thenReturn(2L);
+
+        routingDataSource.checkReplicas();
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+        setCurrentTransactionReadOnly(true);
+        assertEquals("replica-0", routingDataSource.determineCurrentLookupKey());
+        assertEquals(2.0, meterRegistry.get("catalogue.datasource.replica.lag").gauge().value());
+    }
+
+    @Test
+    void testReadsFallBackToPrimaryWhenReplicaLagsOrIsStopped() throws SQLException {
+        setCurrentTransactionReadOnly(true);
+        //unhealthy until checked
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+
+        when(replicaStatus.next()).thenReturn(true);
+        when(replicaStatus.getLong("Seconds_Behind_Source")).thenReturn(30L);
+        routingDataSource.checkReplicas();
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+
+        when(replicaStatus.getLong("Seconds_Behind_Source")).thenReturn(0L);
+        when(replicaStatus.wasNull()).thenReturn(true);
+        routingDataSource.checkReplicas();
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testReadsOfTheWriterGoToPrimaryAfterItsWrite() throws SQLException {
+        when(replicaStatus.next()).thenReturn(true);
+        when(replicaStatus.getLong("Seconds_Behind_Source")).thenReturn(1L);
+        routingDataSource.checkReplicas();
+        setCurrentTransactionReadOnly(true);
+        authenticate("admin");
+        assertEquals("replica-0", routingDataSource.determineCurrentLookupKey());
+
+        routingDataSource.onProductChanged(productChanged());
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+        //the other users keep reading from the replicas
+        authenticate("user");
+        assertEquals("replica-0", routingDataSource.determineCurrentLookupKey());
+        SecurityContextHolder.clearContext();
+        assertEquals("replica-0", routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testWriteWithoutUserRoutesNoReadsToPrimary() throws SQLException {
+        when(replicaStatus.next()).thenReturn(true);
+        when(replicaStatus.getLong("Seconds_Behind_Source")).thenReturn(1L);
+        routingDataSource.checkReplicas();
+        setCurrentTransactionReadOnly(true);
+
+        routingDataSource.onProductChanged(productChanged());
+
+        assertEquals("replica-0", routingDataSource.determineCurrentLookupKey());
+        authenticate("admin");
+        assertEquals("replica-0", routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testPrimaryReadWindowRestartsWhenWritingTransactionCompletes() throws SQLException {
+        ReplicaRoutingDataSource noWindow = new ReplicaRoutingDataSource(primary, List.of(replica),
+                List.of(healthCheck), Duration.ofSeconds(5), Duration.ZERO, meterRegistry);
+        noWindow.afterPropertiesSet();
+        when(replicaStatus.next()).thenReturn(true);
+        when(replicaStatus.getLong("Seconds_Behind_Source")).thenReturn(1L);
+        noWindow.checkReplicas();
+        authenticate("admin");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            noWindow.onProductChanged(productChanged());
+            noWindow.onProductChanged(productChanged());
+            //one synchronization per transaction, however many products it writes
+            assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(TransactionSynchronizationManager.hasResource(noWindow));
+        setCurrentTransactionReadOnly(true);
+        assertEquals("replica-0", noWindow.determineCurrentLookupKey());
+    }
+
+    private static void authenticate(String user) {
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken(user, null, "ROLE_Admin");
+        authentication.setAuthenticated(true);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private static ProductChangedEvent productChanged() {
+        return new ProductChangedEvent(ProductChangedEvent.ChangeType.UPDATED, 1L, "c1", "p1", null,
+                BigDecimal.TEN, BigDecimal.ONE, "A", 1L);
+    }
+}
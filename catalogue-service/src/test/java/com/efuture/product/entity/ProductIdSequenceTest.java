@@ -0,0 +1,101 @@
+package com.efuture.product.entity;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.PooledOptimizer;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductIdSequenceTest {
+
+    //same as the allocationSize of the product id generator
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Test
+    void testIdsAfterPreExistingRowsAreNotReused() throws SQLException {
+        JdbcDataSource dataSource = dataSource("existing");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            //product table created by mysql-init/init.sql before the migrations were introduced
+            statement.execute("create table product (price decimal(38, 2) not null, id bigint auto_increment "
+                    + "primary key, category varchar(255), description varchar(255), name varchar(255) not null, "
+                    + "status varchar(255))");
+            statement.execute("insert into product (id, name, price) values (1, 'p1', 10), (2, 'p2', 20), "
+                    + "(137, 'p137', 30)");
+
+            migrate(dataSource);
+
+            PooledOptimizer optimizer = new PooledOptimizer(Long.class, ALLOCATION_SIZE);
+            AccessCallback productSeq = tableCallback(connection);
+            long first = (Long) optimizer.generate(productSeq);
+            assertEquals(138, first);
+            for (int i = 1; i < ALLOCATION_SIZE * 3; i++) {
+                assertEquals(first + i, optimizer.generate(productSeq));
+            }
+        }
+    }
+
+    @Test
+    void testIdsOnEmptyTableStartAtOne() throws SQLException {
+        JdbcDataSource dataSource = dataSource("empty");
+        migrate(dataSource);
+        try (Connection connection = dataSource.getConnection()) {
+            PooledOptimizer optimizer = new PooledOptimizer(Long.class, ALLOCATION_SIZE);
+            assertEquals(1L, optimizer.generate(tableCallback(connection)));
+        }
+    }
+
+    private static JdbcDataSource dataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private static void migrate(JdbcDataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                //same as spring.flyway.baseline-*: an existing database is baselined below V1, so that V1 still
+                //creates the missing tables
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .target("1")
+                .load()
+                .migrate();
+    }
+
+    /**
+     * Reads and advances product_seq the way Hibernate's table structure does
+     */
+    private static AccessCallback tableCallback(Connection connection) {
+        return new AccessCallback() {
+            @Override
+            public IntegralDataTypeHolder getNextValue() {
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery("select next_val from product_seq")) {
+                    assertTrue(resultSet.next());
+                    long value = resultSet.getLong(1);
+                    statement.executeUpdate("update product_seq set next_val = " + (value + ALLOCATION_SIZE));
+                    IntegralDataTypeHolder holder = IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class);
+                    holder.initialize(value);
+                    return holder;
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public String getTenantIdentifier() {
+                return null;
+            }
+        };
+    }
+}
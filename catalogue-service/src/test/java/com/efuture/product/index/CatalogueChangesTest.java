@@ -0,0 +1,118 @@
+package com.efuture.product.index;
+
+import com.efuture.product.cache.ProductListVersions;
+import com.efuture.product.dto.ProductState;
+import com.efuture.product.dto.ProductVersion;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.event.ProductChangedEvent.ChangeType;
+import com.efuture.product.index.CatalogueChanges.Checkpoint;
+import com.efuture.product.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.efuture.product.util.Constants.ProductStatus.ACTIVE;
+import static com.efuture.product.util.Constants.ProductStatus.DELETED;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogueChangesTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 9, 30);
+
+    private ProductRepository productRepository;
+    private ProductListVersions productListVersions;
+    private CatalogueChanges catalogueChanges;
+    private final List<ProductChangedEvent> delivered = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        productListVersions = mock(ProductListVersions.class);
+        when(productListVersions.skipLocalVersions(anyLong())).thenAnswer(invocation -> invocation.getArgument(0));
+        catalogueChanges = new CatalogueChanges(productRepository, productListVersions,
+                mock(PlatformTransactionManager.class), Duration.ofMinutes(3), 120);
+        catalogueChanges.subscribe(delivered::addAll);
+    }
+
+    @Test
+    void testCheckpointIsTheCatalogueVersionAndTheTimeLessTheMargin() {
+        when(productRepository.currentTimestamp()).thenReturn(NOW);
+        when(productListVersions.readCatalogueVersion()).thenReturn(7L);
+
+        assertEquals(new Checkpoint(7, NOW.minusMinutes(3)), catalogueChanges.checkpoint());
+    }
+
+    @Test
+    void testMarginHasToExceedTheWriteTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> new CatalogueChanges(productRepository,
+                productListVersions, mock(PlatformTransactionManager.class), Duration.ofMinutes(1), 120));
+    }
+
+    @Test
+    void testBehindOnceAnotherInstanceMovedTheCatalogueVersion() {
+        assertFalse(catalogueChanges.isCurrent());
+        track(7);
+        when(productListVersions.getCatalogueVersion()).thenReturn(7L, 8L);
+
+        assertTrue(catalogueChanges.isCurrent());
+        assertFalse(catalogueChanges.isCurrent());
+    }
+
+    @Test
+    void testLocalChangesMoveTheCheckpointForward() {
+        track(7);
+        //8 and 9 were bumped by the writes of this instance, whose changes the indexes applied
+        when(productListVersions.skipLocalVersions(7L)).thenReturn(9L);
+        when(productListVersions.getCatalogueVersion()).thenReturn(9L);
+
+        assertTrue(catalogueChanges.isCurrent());
+        catalogueChanges.refresh();
+
+        verify(productRepository, never()).findVersionByUpdatedAtGreaterThanEqual(any());
+    }
+
+    @Test
+    void testRefreshDeliversOnlyTheChangesNotAppliedYet() {
+        track(7);
+        when(productListVersions.getCatalogueVersion()).thenReturn(9L);
+        when(productRepository.currentTimestamp()).thenReturn(NOW.plusSeconds(5));
+        when(productListVersions.readCatalogueVersion()).thenReturn(9L);
+        when(productRepository.findVersionByUpdatedAtGreaterThanEqual(NOW)).thenReturn(List.of(
+                new ProductVersion(1L, 3L), new ProductVersion(2L, 5L)));
+        when(productRepository.findStateByIdIn(List.of(1L))).thenReturn(List.of(
+                new ProductState(1L, "p1", null, new BigDecimal(20), "toys", DELETED.getValue(), 3L)));
+        //product 2 was changed by this instance
+        catalogueChanges.onProductChanged(new ProductChangedEvent(ChangeType.UPDATED, 2L, "toys", "p2", null,
+                new BigDecimal(30), new BigDecimal(30), ACTIVE.getValue(), 5L));
+
+        catalogueChanges.refresh();
+
+        assertEquals(1, delivered.size());
+        assertEquals(DELETED.getValue(), delivered.get(0).status());
+        assertEquals(3L, delivered.get(0).version());
+        //up to date with the version read by the refresh
+        assertTrue(catalogueChanges.isCurrent());
+        catalogueChanges.refresh();
+        verify(productRepository, times(1)).findVersionByUpdatedAtGreaterThanEqual(any());
+        verify(productRepository, times(1)).findStateByIdIn(any());
+    }
+
+    private void track(long version) {
+        when(productRepository.currentTimestamp()).thenReturn(NOW.plusMinutes(3));
+        when(productListVersions.readCatalogueVersion()).thenReturn(version);
+        catalogueChanges.track();
+    }
+}
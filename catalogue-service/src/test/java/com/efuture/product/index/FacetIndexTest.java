@@ -0,0 +1,129 @@
+package com.efuture.product.index;
+
+import com.efuture.product.dto.CategoryFacet;
+import com.efuture.product.dto.PriceBucket;
+import com.efuture.product.dto.ProductState;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.event.ProductChangedEvent.ChangeType;
+import com.efuture.product.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.efuture.product.util.Constants.ProductStatus.ACTIVE;
+import static com.efuture.product.util.Constants.ProductStatus.DELETED;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FacetIndexTest {
+
+    private static final List<BigDecimal> EDGES = List.of(new BigDecimal(100), new BigDecimal("499.99"));
+
+    private ProductRepository productRepository;
+    private CatalogueChanges catalogueChanges;
+    private FacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        catalogueChanges = mock(CatalogueChanges.class);
+        facetIndex = new FacetIndex(true, productRepository, catalogueChanges,
+                mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void testNotLoadedIndexHasNoFacets() {
+        assertTrue(facetIndex.findFacets(null, EDGES).isEmpty());
+    }
+
+    @Test
+    void testCountsPerCategoryAndPriceBucket() {
+        load(view(1, "fashion", "99.99"), view(2, "fashion", "100"), view(3, "fashion", "499.99"),
+                view(4, "toys", "20"), view(5, null, "20"));
+
+        List<CategoryFacet> facets = facetIndex.findFacets(null, EDGES).orElseThrow();
+
+        assertEquals(List.of("fashion", "toys"), facets.stream().map(CategoryFacet::getCategory).toList());
+        assertEquals(3, facets.get(0).getCount());
+        assertEquals(List.of(1, 1, 1), counts(facets.get(0)));
+        assertEquals(List.of(1, 0, 0), counts(facets.get(1)));
+        PriceBucket last = facets.get(0).getPriceHistogram().get(2);
+        assertEquals(new BigDecimal("499.99"), last.getFrom());
+        assertNull(last.getTo());
+    }
+
+    @Test
+    void testChangesMoveTheCounts() {
+        load(view(1, "fashion", "50"), view(2, "toys", "20"));
+
+        //price change, soft delete and creation
+        facetIndex.onProductChanged(event(1, "fashion", "600", ACTIVE.getValue()));
+        facetIndex.onProductChanged(event(2, "toys", "20", DELETED.getValue()));
+        facetIndex.onProductChanged(event(3, "garden", "150", ACTIVE.getValue()));
+
+        List<CategoryFacet> facets = facetIndex.findFacets(null, EDGES).orElseThrow();
+        assertEquals(List.of("fashion", "garden"), facets.stream().map(CategoryFacet::getCategory).toList());
+        assertEquals(List.of(0, 0, 1), counts(facets.get(0)));
+        assertEquals(List.of(0, 1, 0), counts(facets.get(1)));
+        assertEquals(List.of(), facetIndex.findFacets("toys", EDGES).orElseThrow());
+        assertEquals(1, facetIndex.findFacets("garden", EDGES).orElseThrow().size());
+    }
+
+    @Test
+    void testChangesNotNewerThanTheIndexedVersionAreDropped() {
+        load(view(1, "fashion", "50"));
+
+        //delivered out of order by the listeners of concurrent transactions
+        facetIndex.onProductChanged(event(1, "fashion", "600", ACTIVE.getValue(), 3L));
+        facetIndex.onProductChanged(event(1, "fashion", "20", ACTIVE.getValue(), 2L));
+        facetIndex.onProductChanged(event(1, "fashion", "600", DELETED.getValue(), 4L));
+        facetIndex.onProductChanged(event(1, "fashion", "600", ACTIVE.getValue(), 3L));
+
+        assertEquals(List.of(), facetIndex.findFacets(null, EDGES).orElseThrow());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChangesOfOtherInstancesDeliveredByTheRefreshAreApplied() {
+        ArgumentCaptor<Consumer<List<ProductChangedEvent>>> subscriber = ArgumentCaptor.forClass(Consumer.class);
+        verify(catalogueChanges).subscribe(subscriber.capture());
+        load(view(1, "fashion", "50"));
+
+        subscriber.getValue().accept(List.of(
+                event(1, "fashion", "50", DELETED.getValue(), 2L),
+                event(2, "toys", "20", ACTIVE.getValue(), 0L)));
+
+        List<CategoryFacet> facets = facetIndex.findFacets(null, EDGES).orElseThrow();
+        assertEquals(List.of("toys"), facets.stream().map(CategoryFacet::getCategory).toList());
+    }
+
+    private void load(ProductState... states) {
+        when(productRepository.streamStateByStatusOrderByIdAsc(ACTIVE.getValue())).thenReturn(Stream.of(states));
+        facetIndex.load();
+    }
+
+    private static List<Integer> counts(CategoryFacet facet) {
+        return facet.getPriceHistogram().stream().map(PriceBucket::getCount).toList();
+    }
+
+    private static ProductState view(long id, String category, String price) {
+        return new ProductState(id, "p" + id, null, new BigDecimal(price), category, ACTIVE.getValue(), 1L);
+    }
+
+    private static ProductChangedEvent event(long id, String category, String price, String status) {
+        return event(id, category, price, status, 2L);
+    }
+
+    private static ProductChangedEvent event(long id, String category, String price, String status, Long version) {
+        return new ProductChangedEvent(ChangeType.UPDATED, id, category, "p" + id, null, new BigDecimal(price),
+                new BigDecimal(price), status, version);
+    }
+}
@@ -0,0 +1,85 @@
+package com.efuture.product.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.add(1, "Leather hand bag", "fashion", "brown leather bag with a long strap");
+        index.add(2, "Cross body bag", "fashion", null);
+        index.add(3, "Laptop sleeve", "electronics", "fits a leather bag");
+        index.add(4, "Café crème mug", "kitchen", null);
+    }
+
+    @Test
+    void testAllTermsHaveToMatch() {
+        assertEquals(List.of(1L, 3L), index.search("leather bag", 10));
+        assertEquals(List.of(2L), index.search("BODY, bag!", 10));
+        assertEquals(List.of(), index.search("leather mug", 10));
+        assertEquals(List.of(), index.search("  ", 10));
+    }
+
+    @Test
+    void testNameMatchesRankAboveDescriptionMatches() {
+        assertEquals(List.of(1L, 3L), index.search("leather", 10));
+        assertEquals(List.of(1L), index.search("leather", 1));
+    }
+
+    @Test
+    void testPrefixAndTypoMatches() {
+        assertEquals(List.of(3L), index.search("lap", 10));
+        //insertion, deletion, substitution and transposition
+        assertEquals(List.of(1L, 3L), index.search("leathers", 10));
+        assertEquals(List.of(1L, 3L), index.search("leathr", 10));
+        assertEquals(List.of(1L, 3L), index.search("leatger", 10));
+        assertEquals(List.of(1L, 3L), index.search("laether", 10));
+        //short terms only match exactly or as a prefix
+        assertEquals(List.of(), index.search("bga", 10));
+    }
+
+    @Test
+    void testExactMatchesRankAbovePrefixMatches() {
+        index.add(5, "Bags", "fashion", null);
+
+        assertEquals(5L, index.search("bags", 10).getFirst());
+        assertEquals(4, index.search("bag", 10).size());
+        assertNotEquals(5L, index.search("bag", 10).getFirst());
+    }
+
+    @Test
+    void testAccentsAndCaseAreIgnored() {
+        assertEquals(List.of(4L), index.search("CAFE creme", 10));
+    }
+
+    @Test
+    void testRemovedAndReplacedDocumentsAreNotFound() {
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertEquals(List.of(3L), index.search("leather", 10));
+
+        index.add(3, "Laptop sleeve", "electronics", null);
+        assertEquals(List.of(), index.search("leather", 10));
+        assertEquals(List.of(), index.search("leathr", 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testOneEditAway() {
+        assertTrue(InvertedIndex.isOneEditAway("bag", "bags"));
+        assertTrue(InvertedIndex.isOneEditAway("bags", "bag"));
+        assertTrue(InvertedIndex.isOneEditAway("bag", "big"));
+        assertTrue(InvertedIndex.isOneEditAway("bag", "bga"));
+        assertFalse(InvertedIndex.isOneEditAway("bag", "bag"));
+        assertFalse(InvertedIndex.isOneEditAway("bag", "gab"));
+        assertFalse(InvertedIndex.isOneEditAway("bag", "bagsy"));
+    }
+}
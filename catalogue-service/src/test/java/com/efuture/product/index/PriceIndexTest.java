@@ -0,0 +1,77 @@
+package com.efuture.product.index;
+
+import com.efuture.product.dto.ProductInformation;
+import com.efuture.product.dto.ProductState;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.event.ProductChangedEvent.ChangeType;
+import com.efuture.product.mapper.ProductMapperImpl;
+import com.efuture.product.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.efuture.product.util.Constants.ProductStatus.ACTIVE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PriceIndexTest {
+
+    private ProductRepository productRepository;
+    private CatalogueChanges catalogueChanges;
+    private PriceIndex priceIndex;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        catalogueChanges = mock(CatalogueChanges.class);
+        when(catalogueChanges.isCurrent()).thenReturn(true);
+        priceIndex = new PriceIndex(true, productRepository, new ProductMapperImpl(), catalogueChanges,
+                mock(PlatformTransactionManager.class));
+        when(productRepository.streamStateByStatusOrderByPriceAscIdAsc(ACTIVE.getValue())).thenReturn(Stream.of(
+                new ProductState(1L, "p1", null, new BigDecimal("600"), "fashion", ACTIVE.getValue(), 2L)));
+        priceIndex.load();
+    }
+
+    @Test
+    void testOlderChangeDoesNotRegressThePrice() {
+        //the listener of an earlier transaction runs after the one of a later transaction
+        priceIndex.onProductChanged(event(new BigDecimal("700"), 4L));
+        priceIndex.onProductChanged(event(new BigDecimal("20"), 3L));
+
+        List<ProductInformation> premium = priceIndex.findByPriceBetween(new BigDecimal(500), null).orElseThrow();
+        assertEquals(1, premium.size());
+        assertEquals(700.0, premium.get(0).getPrice());
+    }
+
+    @Test
+    void testIndexBehindTheChangesOfOtherInstancesIsNotUsed() {
+        assertTrue(priceIndex.findByIds(List.of(1L)).isPresent());
+
+        when(catalogueChanges.isCurrent()).thenReturn(false);
+
+        assertTrue(priceIndex.findByPriceBetween(new BigDecimal(500), null).isEmpty());
+        assertTrue(priceIndex.findByIds(List.of(1L)).isEmpty());
+    }
+
+    @Test
+    void testPriceBeyondTheLongRangeIsIndexedAtTheTop() {
+        //stored before the request validation bounded the prices
+        priceIndex.onProductChanged(new ProductChangedEvent(ChangeType.CREATED, 2L, "fashion", "p2", null,
+                new BigDecimal("1e20"), new BigDecimal("1e20"), ACTIVE.getValue(), 1L));
+
+        List<ProductInformation> premium = priceIndex.findByPriceBetween(new BigDecimal(500), null).orElseThrow();
+        assertEquals(List.of("1", "2"), premium.stream().map(ProductInformation::getProductId).toList());
+        assertEquals(1, priceIndex.findByPriceBetween(new BigDecimal(500), new BigDecimal(1000)).orElseThrow()
+                .size());
+    }
+
+    private static ProductChangedEvent event(BigDecimal price, Long version) {
+        return new ProductChangedEvent(ChangeType.UPDATED, 1L, "fashion", "p1", null, price, price,
+                ACTIVE.getValue(), version);
+    }
+}
@@ -0,0 +1,49 @@
+package com.efuture.product.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceRangeIndexTest {
+
+    @Test
+    void testRangeIsOrderedByPriceAndId() {
+        PriceRangeIndex index = new PriceRangeIndex();
+        index.add(50000, 3);
+        index.add(1000, 1);
+        index.add(50000, 2);
+        index.add(90000, 4);
+
+        assertArrayEquals(new long[]{2, 3, 4}, index.idsBetween(50000, Long.MAX_VALUE));
+        assertArrayEquals(new long[]{1, 2, 3}, index.idsBetween(0, 50000));
+        assertArrayEquals(new long[0], index.idsBetween(1001, 49999));
+        assertEquals(2, index.countBetween(50000, 89999));
+    }
+
+    @Test
+    void testAddAndRemove() {
+        PriceRangeIndex index = new PriceRangeIndex();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(index.add(i * 100L, i));
+        }
+        assertFalse(index.add(500, 5));
+
+        assertTrue(index.remove(500, 5));
+        assertFalse(index.remove(500, 5));
+        assertFalse(index.remove(600, 5));
+
+        assertEquals(99, index.size());
+        assertArrayEquals(new long[]{4, 6}, index.idsBetween(400, 600));
+    }
+
+    @Test
+    void testToCentsClampsPricesBeyondTheLongRange() {
+        assertEquals(1999, PriceRangeIndex.toCents(new BigDecimal("19.985"), RoundingMode.HALF_UP));
+        assertEquals(1998, PriceRangeIndex.toCents(new BigDecimal("19.985"), RoundingMode.FLOOR));
+        assertEquals(Long.MAX_VALUE, PriceRangeIndex.toCents(new BigDecimal("1e20"), RoundingMode.HALF_UP));
+        assertEquals(Long.MIN_VALUE, PriceRangeIndex.toCents(new BigDecimal("-1e20"), RoundingMode.HALF_UP));
+    }
+}
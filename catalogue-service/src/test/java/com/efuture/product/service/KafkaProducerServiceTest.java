@@ -0,0 +1,88 @@
+package com.efuture.product.service;
+
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.events.ProductEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaProducerServiceTest {
+
+    @Mock
+    private KafkaTemplate<String, ProductEvent> kafkaTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private KafkaProducerService kafkaProducerService;
+
+    @BeforeEach
+    void setUp() {
+        kafkaProducerService = new KafkaProducerService(kafkaTemplate, meterRegistry, false);
+    }
+
+    @Test
+    void testSendMessagesKeysRecordsByProductIdAndFlushesOnce() {
+        ProductCreationEvent first = ProductCreationEvent.builder().productId("1").build();
+        ProductCreationEvent second = ProductCreationEvent.builder().productId("2").build();
+        when(kafkaTemplate.send("product-topic", "1", first)).thenReturn(new CompletableFuture<>());
+        when(kafkaTemplate.send("product-topic", "2", second)).thenReturn(new CompletableFuture<>());
+
+        CompletableFuture<Void> acknowledgements = kafkaProducerService.sendMessages("product-topic",
+                List.of(first, second));
+
+        InOrder inOrder = inOrder(kafkaTemplate);
+        inOrder.verify(kafkaTemplate).send("product-topic", "1", first);
+        inOrder.verify(kafkaTemplate).send("product-topic", "2", second);
+        inOrder.verify(kafkaTemplate).flush();
+        assertFalse(acknowledgements.isDone());
+    }
+
+    @Test
+    void testSendMessagesRunsCallbacksOnVirtualThreadsWhenEnabled() {
+        KafkaProducerService virtualThreadService = new KafkaProducerService(kafkaTemplate, meterRegistry, true);
+        ProductCreationEvent event = ProductCreationEvent.builder().productId("1").build();
+        CompletableFuture<SendResult<String, ProductEvent>> future = new CompletableFuture<>();
+        when(kafkaTemplate.send("product-topic", "1", event)).thenReturn(future);
+
+        CompletableFuture<Boolean> completedOnVirtualThread = virtualThreadService
+                .sendMessages("product-topic", List.of(event))
+                .thenApply(acknowledged -> Thread.currentThread().isVirtual());
+        future.complete(null);
+
+        assertTrue(completedOnVirtualThread.join());
+        virtualThreadService.close();
+    }
+
+    @Test
+    void testSendMessagesRecordsLatencyAndErrors() {
+        ProductCreationEvent first = ProductCreationEvent.builder().productId("1").build();
+        ProductCreationEvent second = ProductCreationEvent.builder().productId("2").build();
+        when(kafkaTemplate.send("product-topic", "1", first)).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send("product-topic", "2", second))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("expired")));
+
+        kafkaProducerService.sendMessages("product-topic", List.of(first, second));
+
+        assertEquals(1, meterRegistry.get("catalogue.kafka.send").tag("result", "success").timer().count());
+        assertEquals(1, meterRegistry.get("catalogue.kafka.send").tag("result", "failure").timer().count());
+        assertEquals(1, meterRegistry.get("catalogue.kafka.send.errors")
+                .tag("exception", "TimeoutException").counter().count());
+    }
+}
@@ -0,0 +1,150 @@
+package com.efuture.product.service;
+
+import com.efuture.events.ProductChangeEvent;
+import com.efuture.events.ProductChangeType;
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.events.ProductEvent;
+import com.efuture.product.entity.OutboxEvent;
+import com.efuture.product.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaProducerService, objectMapper, transactionManager,
+                meterRegistry, 10, Duration.ofMillis(100), 2, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void testDrainPublishesAndDeletesBatch() throws Exception {
+        OutboxEvent first = outboxEvent(11L, "1");
+        OutboxEvent second = outboxEvent(12L, "3");
+        when(outboxEventRepository.tryLock("product_outbox_shard_1_of_2")).thenReturn(1);
+        when(outboxEventRepository.findNextBatch(1, 2, 10)).thenReturn(List.of(first, second));
+        when(kafkaProducerService.sendMessages(eq("product-topic"), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        outboxRelay.drain(1);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProductCreationEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(kafkaProducerService).sendMessages(eq("product-topic"), events.capture());
+        assertEquals(List.of("1", "3"), events.getValue().stream().map(ProductCreationEvent::getProductId).toList());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(11L, 12L));
+        verify(outboxEventRepository).releaseLock("product_outbox_shard_1_of_2");
+        assertEquals(2, meterRegistry.get("catalogue.outbox.published").counter().count());
+        assertEquals(12, meterRegistry.get("catalogue.outbox.high.water.mark").tag("shard", "1").gauge().value());
+    }
+
+    @Test
+    void testChangeEventsAreSentInSequenceOrder() throws Exception {
+        //a lower id from the pooled block of another instance, holding a later change
+        OutboxEvent creation = outboxEvent(9L, "2");
+        OutboxEvent later = changeEvent(10L, "2", 3L);
+        OutboxEvent earlier = changeEvent(11L, "2", 2L);
+        when(outboxEventRepository.tryLock("product_outbox_shard_0_of_2")).thenReturn(1);
+        when(outboxEventRepository.findNextBatch(0, 2, 10)).thenReturn(List.of(creation, later, earlier));
+        when(kafkaProducerService.sendMessages(any(), anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+        outboxRelay.drain(0);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProductEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(kafkaProducerService).sendMessages(eq("product-topic"), events.capture());
+        assertInstanceOf(ProductCreationEvent.class, events.getValue().getFirst());
+        verify(kafkaProducerService).sendMessages(eq("product-changes"), events.capture());
+        assertEquals(List.of(2L, 3L), events.getValue().stream()
+                .map(event -> ((ProductChangeEvent) event).getSequence())
+                .toList());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(9L, 10L, 11L));
+    }
+
+    @Test
+    void testFailedSendKeepsBatchInOutbox() throws Exception {
+        when(outboxEventRepository.tryLock("product_outbox_shard_0_of_2")).thenReturn(1);
+        when(outboxEventRepository.findNextBatch(0, 2, 10)).thenReturn(List.of(outboxEvent(10L, "2")));
+        when(kafkaProducerService.sendMessages(eq("product-topic"), anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        outboxRelay.drain(0);
+
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+        verify(transactionManager).rollback(any());
+        assertEquals(1, meterRegistry.get("catalogue.outbox.failed.batches").counter().count());
+        verify(outboxEventRepository).releaseLock("product_outbox_shard_0_of_2");
+    }
+
+    @Test
+    void testShardOwnedByAnotherInstanceIsSkipped() {
+        when(outboxEventRepository.tryLock("product_outbox_shard_1_of_2")).thenReturn(0);
+
+        outboxRelay.drain(1);
+
+        verify(outboxEventRepository, never()).findNextBatch(anyInt(), anyInt(), anyInt());
+        verify(outboxEventRepository, never()).releaseLock(any());
+        verifyNoInteractions(kafkaProducerService);
+    }
+
+    private OutboxEvent outboxEvent(Long id, String productId) throws Exception {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setId(id);
+        outboxEvent.setAggregateId(Long.valueOf(productId));
+        outboxEvent.setEventType("PRODUCT_CREATED");
+        outboxEvent.setTopic("product-topic");
+        outboxEvent.setCreatedAt(Instant.now());
+        outboxEvent.setPayload(objectMapper.writeValueAsString(
+                ProductCreationEvent.builder().productId(productId).name("p" + productId).build()));
+        return outboxEvent;
+    }
+
+    private OutboxEvent changeEvent(Long id, String productId, Long sequence) throws Exception {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setId(id);
+        outboxEvent.setAggregateId(Long.valueOf(productId));
+        outboxEvent.setEventType("PRODUCT_CHANGED");
+        outboxEvent.setTopic("product-changes");
+        outboxEvent.setCreatedAt(Instant.now());
+        outboxEvent.setPayload(objectMapper.writeValueAsString(ProductChangeEvent.builder()
+                .changeType(ProductChangeType.UPDATED).productId(productId).sequence(sequence).build()));
+        return outboxEvent;
+    }
+}
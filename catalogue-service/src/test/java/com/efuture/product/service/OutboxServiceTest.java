@@ -0,0 +1,69 @@
+package com.efuture.product.service;
+
+import com.efuture.events.ProductChangeEvent;
+import com.efuture.events.ProductChangeType;
+import com.efuture.product.entity.OutboxEvent;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.event.ProductChangedEvent.ChangeType;
+import com.efuture.product.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxServiceTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = new OutboxService(outboxEventRepository, objectMapper);
+    }
+
+    @Test
+    void testProductChangeIsEnqueuedForTheChangeTopic() throws Exception {
+        outboxService.onProductChanged(new ProductChangedEvent(ChangeType.UPDATED, 7L, "fashion", "bag", "leather",
+                new BigDecimal("15.00"), BigDecimal.TEN, "A", 3L));
+
+        ArgumentCaptor<OutboxEvent> outboxEvent = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(outboxEvent.capture());
+        assertEquals(7L, outboxEvent.getValue().getAggregateId());
+        assertEquals("PRODUCT_CHANGED", outboxEvent.getValue().getEventType());
+        assertEquals("product-changes", outboxEvent.getValue().getTopic());
+        ProductChangeEvent event = objectMapper.readValue(outboxEvent.getValue().getPayload(),
+                ProductChangeEvent.class);
+        assertEquals(ProductChangeType.PRICE_CHANGED, event.getChangeType());
+        assertEquals("7", event.getProductId());
+        assertEquals(3L, event.getSequence());
+        assertEquals(BigDecimal.TEN, event.getPreviousPrice());
+        assertEquals("leather", event.getDescription());
+    }
+
+    @Test
+    void testChangeTypes() {
+        assertEquals(ProductChangeType.UPDATED, OutboxService.toChangeEvent(new ProductChangedEvent(
+                ChangeType.UPDATED, 1L, "c", "n", null, BigDecimal.TEN, new BigDecimal("10.00"), "A", 1L))
+                .getChangeType());
+        ProductChangeEvent deleted = OutboxService.toChangeEvent(new ProductChangedEvent(
+                ChangeType.DELETED, 1L, "c", "n", null, BigDecimal.TEN, BigDecimal.TEN, "D", 2L));
+        assertEquals(ProductChangeType.DELETED, deleted.getChangeType());
+        assertNull(deleted.getPreviousPrice());
+        assertEquals("D", deleted.getStatus());
+        assertEquals(ProductChangeType.CREATED, OutboxService.toChangeEvent(new ProductChangedEvent(
+                ChangeType.CREATED, 1L, "c", "n", null, BigDecimal.TEN, BigDecimal.TEN, "A", 0L)).getChangeType());
+    }
+}
@@ -0,0 +1,141 @@
+package com.efuture.product.service;
+
+import com.efuture.product.dto.ProductSnapshot;
+import com.efuture.product.dto.SnapshotHeader;
+import com.efuture.product.metrics.ProductMetrics;
+import com.efuture.product.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductExportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 9, 30);
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private ProductExportService productExportService;
+
+    @BeforeEach
+    void setUp() {
+        productExportService = new ProductExportService(productRepository, objectMapper,
+                new ProductMetrics(new SimpleMeterRegistry()), transactionManager, Duration.ofSeconds(5), directory, 2);
+        when(productRepository.currentUtcTimestamp()).thenReturn(NOW);
+    }
+
+    @Test
+    void testExportWritesHeaderAndProductsFromOneSnapshot() throws IOException {
+        when(productRepository.streamSnapshotByStatusOrderByIdAsc("A")).thenReturn(Stream.of(
+                new ProductSnapshot(1L, "p1", null, new BigDecimal("10.50"), "fashion", 0L),
+                new ProductSnapshot(2L, "p2", "d2", new BigDecimal("700.00"), "toys", 3L)));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        SnapshotHeader header = productExportService.export(outputStream);
+
+        List<String> lines = lines(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals(3, lines.size());
+        JsonNode headerLine = objectMapper.readTree(lines.get(0));
+        assertEquals("product-changes", headerLine.get("change_topic").asText());
+        assertEquals(header.getSnapshotAt(), Instant.parse(headerLine.get("snapshot_at").asText()));
+        //the database time, less the clock skew margin
+        assertEquals(Instant.parse("2026-10-18T09:29:55Z"), header.getSnapshotAt());
+        JsonNode second = objectMapper.readTree(lines.get(2));
+        assertEquals(2L, second.get("product_id").asLong());
+        assertEquals("toys", second.get("category").asText());
+        //as stored, without a floating point round trip
+        assertTrue(lines.get(2).contains("\"price\":700.00"));
+        assertEquals(3L, second.get("version").asLong());
+
+        ArgumentCaptor<TransactionDefinition> transaction = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(transaction.capture());
+        assertEquals(TransactionDefinition.ISOLATION_REPEATABLE_READ, transaction.getValue().getIsolationLevel());
+        //on the primary, a replica may lag behind the watermark
+        assertFalse(transaction.getValue().isReadOnly());
+    }
+
+    @Test
+    void testExportFlushesOnceDone() throws IOException {
+        when(productRepository.streamSnapshotByStatusOrderByIdAsc("A")).thenReturn(Stream.generate(
+                () -> new ProductSnapshot(1L, "p1", null, BigDecimal.TEN, "fashion", 0L)).limit(1000));
+        AtomicInteger flushes = new AtomicInteger();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+
+        productExportService.export(outputStream);
+
+        assertEquals(1, flushes.get());
+        assertEquals(1001, lines(new ByteArrayInputStream(outputStream.toByteArray())).size());
+    }
+
+    @Test
+    void testExportToFileKeepsTheRetainedFiles() throws IOException {
+        Path oldest = Files.createFile(directory.resolve("products-20260101T000000000Z.ndjson.gz"));
+        Path older = Files.createFile(directory.resolve("products-20260102T000000000Z.ndjson.gz"));
+        when(productRepository.streamSnapshotByStatusOrderByIdAsc("A")).thenReturn(Stream.of(
+                new ProductSnapshot(1L, "p1", null, BigDecimal.TEN, "fashion", 0L)));
+
+        productExportService.exportToFile();
+
+        List<Path> files;
+        try (Stream<Path> listed = Files.list(directory)) {
+            files = listed.sorted().toList();
+        }
+        assertEquals(2, files.size());
+        assertFalse(files.contains(oldest));
+        assertEquals(older, files.get(0));
+        try (InputStream inputStream = Files.newInputStream(files.get(1))) {
+            assertEquals(2, lines(inputStream).size());
+        }
+    }
+
+    private static List<String> lines(InputStream compressed) throws IOException {
+        try (InputStream inputStream = new GZIPInputStream(compressed)) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+}
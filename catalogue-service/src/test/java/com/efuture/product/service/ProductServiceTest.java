@@ -1,25 +1,54 @@
 package com.efuture.product.service;
 
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.product.cache.ProductListVersions;
+import com.efuture.product.cache.ProductQueryCache;
 import com.efuture.product.dto.*;
 import com.efuture.product.entity.Product;
+import com.efuture.product.event.ProductChangedEvent;
+import com.efuture.product.event.ProductChangedEvent.ChangeType;
 import com.efuture.product.exception.InvalidRequestException;
+import com.efuture.product.exception.PreconditionFailedException;
+import com.efuture.product.exception.ServiceUnavailableException;
+import com.efuture.product.index.FacetIndex;
+import com.efuture.product.index.PriceIndex;
+import com.efuture.product.index.SearchIndex;
 import com.efuture.product.mapper.ProductMapper;
+import com.efuture.product.metrics.ProductMetrics;
 import com.efuture.product.repository.ProductRepository;
 import com.efuture.product.util.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 import static com.efuture.product.util.Constants.*;
 import static com.efuture.product.util.Constants.ErrorMsg.PRODUCT_NOT_FOUND;
 import static com.efuture.product.util.Constants.ResponseCodes.STATUS_CREATED;
 import static com.efuture.product.util.Constants.ResponseCodes.STATUS_OK;
 import static com.efuture.product.util.Constants.ResponseMsg.SUCCESS;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,12 +61,39 @@ class ProductServiceTest {
     private ProductMapper productMapper;
 
     @Mock
-    private KafkaProducerService kafkaProducerService;
+    private OutboxService outboxService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ProductQueryCache productQueryCache =
+            new ProductQueryCache(true, 100, Duration.ofMinutes(1), mock(ProductListVersions.class),
+                    new SimpleMeterRegistry());
+
+    @Mock
+    private PriceIndex priceIndex;
+
+    @Mock
+    private SearchIndex searchIndex;
+
+    @Mock
+    private FacetIndex facetIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ProductMetrics productMetrics = new ProductMetrics(new SimpleMeterRegistry());
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private ProductService productService;
 
     private Product product;
+    private ProductView productView;
     private ProductInformation productInformation;
     private CreateProductRequest createProductRequest;
     private UpdateProductRequest updateProductRequest;
@@ -49,6 +105,7 @@ class ProductServiceTest {
         product.setId(1L);
         product.setStatus(ProductStatus.ACTIVE.getValue());
 
+        productView = new ProductView(1L, "p1", null, BigDecimal.TEN, "Electronics", ProductStatus.ACTIVE.getValue());
         productInformation = new ProductInformation();
 
         createProductRequest = new CreateProductRequest("product-1","p1",10,"category1");
@@ -68,7 +125,31 @@ class ProductServiceTest {
         assertEquals(STATUS_CREATED, response.getStatus());
         assertEquals(SUCCESS, response.getMessage());
         assertNotNull(response.getData());
-        verify(kafkaProducerService).sendMessage(productCreationEvent);
+        verify(outboxService).enqueue(productCreationEvent);
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testCreateProducts() {
+        CreateProductRequest secondRequest = new CreateProductRequest("product-2", "p2", 20, "category1");
+        Product second = new Product();
+        second.setId(2L);
+        when(productMapper.mapToProduct(createProductRequest)).thenReturn(product);
+        when(productMapper.mapToProduct(secondRequest)).thenReturn(second);
+        when(productMapper.mapToProductInformation(any(Product.class))).thenReturn(productInformation);
+        when(productMapper.mapToProductCreationEvent(any(Product.class))).thenReturn(productCreationEvent);
+
+        Response<List<ProductInformation>> response = productService.createProducts(
+                new BulkCreateProductRequest(List.of(createProductRequest, secondRequest)));
+
+        assertEquals(STATUS_CREATED, response.getStatus());
+        assertEquals(2, response.getData().size());
+        assertEquals(ProductStatus.ACTIVE.getValue(), second.getStatus());
+        verify(productRepository).saveAll(List.of(product, second));
+        verify(outboxService).enqueueAll(List.of(productCreationEvent, productCreationEvent));
+        verify(entityManager).flush();
+        verify(entityManager).clear();
+        verify(eventPublisher, times(2)).publishEvent(any(ProductChangedEvent.class));
     }
 
     @Test
@@ -76,22 +157,43 @@ class ProductServiceTest {
         when(productRepository.findById(1L)).thenReturn(Optional.empty());
 
         InvalidRequestException exception = assertThrows(InvalidRequestException.class,
-                () -> productService.updateProduct(1L, updateProductRequest));
+                () -> productService.updateProduct(1L, null, updateProductRequest));
         assertEquals(PRODUCT_NOT_FOUND, exception.getMessage());
 
     }
 
     @Test
     void testUpdateProduct_Success() {
+        product.setPrice(new BigDecimal(600));
+        product.setVersion(3L);
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(productRepository.save(product)).thenReturn(product);
+        when(productRepository.saveAndFlush(product)).thenReturn(product);
         when(productMapper.mapToProductInformation(product)).thenReturn(productInformation);
 
-        Response<ProductInformation> response = productService.updateProduct(1L, updateProductRequest);
+        Response<ProductInformation> response = productService.updateProduct(1L, 3L, updateProductRequest);
 
         assertEquals(STATUS_OK, response.getStatus());
         assertEquals(SUCCESS, response.getMessage());
         assertNotNull(response.getData());
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(ChangeType.UPDATED, event.getValue().type());
+        assertEquals(new BigDecimal(600), event.getValue().previousPrice());
+        assertTrue(event.getValue().affectsPremium());
+    }
+
+    @Test
+    void testUpdateProduct_VersionMismatch() {
+        product.setVersion(4L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        PreconditionFailedException exception = assertThrows(PreconditionFailedException.class,
+                () -> productService.updateProduct(1L, 3L, updateProductRequest));
+        assertEquals(ErrorMsg.VERSION_MISMATCH, exception.getMessage());
+        assertEquals(String.format(ErrorDescription.VERSION_MISMATCH_DESCRIPTION, 1L, 4L, 3L),
+                exception.getDescription());
+        verify(productRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -99,41 +201,105 @@ class ProductServiceTest {
         when(productRepository.findById(1L)).thenReturn(Optional.empty());
 
         InvalidRequestException exception = assertThrows(InvalidRequestException.class,
-                () -> productService.deleteProduct(1L));
+                () -> productService.deleteProduct(1L, null));
         assertEquals(PRODUCT_NOT_FOUND, exception.getMessage());
 
     }
 
+    @Test
+    void testDeleteProduct_VersionMismatch() {
+        product.setVersion(4L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        assertThrows(PreconditionFailedException.class, () -> productService.deleteProduct(1L, 3L));
+        assertEquals(ProductStatus.ACTIVE.getValue(), product.getStatus());
+        verify(productRepository, never()).saveAndFlush(any());
+    }
+
     @Test
     void testDeleteProduct_AlreadyDeleted() {
         product.setStatus(ProductStatus.DELETED.getValue());
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
 
-        Response<ProductInformation> response = productService.deleteProduct(1L);
+        Response<ProductInformation> response = productService.deleteProduct(1L, null);
 
         assertEquals(STATUS_OK, response.getStatus());
         assertEquals(String.format(ErrorDescription.PRODUCT_ALREADY_DELETED, 1L), response.getMessage());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     void testGetProductByCategory() {
-        when(productRepository.findByCategoryAndStatus("Electronics", ProductStatus.ACTIVE.getValue()))
-                .thenReturn(List.of(product));
-        when(productMapper.mapToProductInformationList(List.of(product)))
+        when(productRepository.findByCategoryAndStatusAndIdGreaterThanOrderByIdAsc("Electronics",
+                ProductStatus.ACTIVE.getValue(), 0L, Limit.of(DEFAULT_PAGE_SIZE)))
+                .thenReturn(List.of(productView));
+        when(productMapper.mapToProductInformationList(List.of(productView)))
                 .thenReturn(List.of(productInformation));
 
-        Response<List<ProductInformation>> response = productService.getProductByCategory("Electronics");
+        Response<ProductPage> response = productService.getProductByCategory("Electronics", null, null);
 
         assertEquals(STATUS_OK, response.getStatus());
         assertEquals(SUCCESS, response.getMessage());
-        assertFalse(response.getData().isEmpty());
+        assertFalse(response.getData().getProducts().isEmpty());
+        assertNull(response.getData().getNextCursor());
+    }
+
+    @Test
+    void testGetProductByCategory_FullPageReturnsNextCursor() {
+        ProductView last = new ProductView(7L, "p7", null, BigDecimal.ONE, "Electronics",
+                ProductStatus.ACTIVE.getValue());
+        when(productRepository.findByCategoryAndStatusAndIdGreaterThanOrderByIdAsc("Electronics",
+                ProductStatus.ACTIVE.getValue(), 1L, Limit.of(2)))
+                .thenReturn(List.of(productView, last));
+
+        Response<ProductPage> response = productService.getProductByCategory("Electronics", 1L, 2);
+
+        assertEquals(7L, response.getData().getNextCursor());
+    }
+
+    @Test
+    void testGetProductByCategory_InvalidPageSize() {
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> productService.getProductByCategory("Electronics", null, MAX_PAGE_SIZE + 1));
+        assertEquals(ErrorMsg.INVALID_PAGE_SIZE, exception.getMessage());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testStreamProductsByCategory() {
+        when(productRepository.streamByCategoryAndStatusOrderByIdAsc("Electronics", ProductStatus.ACTIVE.getValue()))
+                .thenReturn(Stream.of(productView));
+        when(productMapper.mapToProductInformation(productView)).thenReturn(productInformation);
+
+        List<ProductInformation> streamed = new ArrayList<>();
+        productService.streamProductsByCategory("Electronics", streamed::add);
+
+        assertEquals(List.of(productInformation), streamed);
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void testStreamProductsByCategory_StopsWhenTheConsumerDoes() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(productRepository.streamByCategoryAndStatusOrderByIdAsc("Electronics", ProductStatus.ACTIVE.getValue()))
+                .thenReturn(Stream.of(productView, productView).onClose(() -> closed.set(true)));
+        when(productMapper.mapToProductInformation(productView)).thenReturn(productInformation);
+
+        List<ProductInformation> streamed = new ArrayList<>();
+        productService.streamProductsByCategory("Electronics", product -> {
+            streamed.add(product);
+            return false;
+        });
+
+        assertEquals(List.of(productInformation), streamed);
+        assertTrue(closed.get());
     }
 
     @Test
     void testGetPremiumProducts() {
         when(productRepository.findByStatusAndPriceGreaterThanEqualOrderByPrice(ProductStatus.ACTIVE.getValue(),
-                PREMIUM_PRODUCT_PRICE_LIMIT)).thenReturn(List.of(product));
-        when(productMapper.mapToProductInformationList(List.of(product)))
+                PREMIUM_PRODUCT_PRICE_LIMIT)).thenReturn(List.of(productView));
+        when(productMapper.mapToProductInformationList(List.of(productView)))
                 .thenReturn(List.of(productInformation));
 
         Response<List<ProductInformation>> response = productService.getPremiumProducts();
@@ -142,4 +308,242 @@ class ProductServiceTest {
         assertEquals(SUCCESS, response.getMessage());
         assertFalse(response.getData().isEmpty());
     }
+
+    @Test
+    void testGetPremiumProducts_RecordsMetrics() {
+        when(productRepository.findByStatusAndPriceGreaterThanEqualOrderByPrice(ProductStatus.ACTIVE.getValue(),
+                PREMIUM_PRODUCT_PRICE_LIMIT)).thenReturn(List.of(productView));
+        when(productMapper.mapToProductInformationList(List.of(productView)))
+                .thenReturn(List.of(productInformation));
+
+        productService.getPremiumProducts();
+
+        verify(productMetrics).operation(eq("getPremiumProducts"), any());
+        verify(productMetrics).phase(eq("getPremiumProducts"), eq(ProductMetrics.Phase.DB), any(Supplier.class));
+        verify(productMetrics).phase(eq("getPremiumProducts"), eq(ProductMetrics.Phase.MAPPING), any(Supplier.class));
+        verify(productMetrics).resultSize("getPremiumProducts", 1);
+    }
+
+    @Test
+    void testGetPremiumProducts_ServedFromCache() {
+        when(productRepository.findByStatusAndPriceGreaterThanEqualOrderByPrice(ProductStatus.ACTIVE.getValue(),
+                PREMIUM_PRODUCT_PRICE_LIMIT)).thenReturn(List.of(productView));
+        when(productMapper.mapToProductInformationList(List.of(productView)))
+                .thenReturn(List.of(productInformation));
+
+        productService.getPremiumProducts();
+        Response<List<ProductInformation>> response = productService.getPremiumProducts();
+
+        assertEquals(List.of(productInformation), response.getData());
+        verify(productRepository, times(1)).findByStatusAndPriceGreaterThanEqualOrderByPrice(
+                ProductStatus.ACTIVE.getValue(), PREMIUM_PRODUCT_PRICE_LIMIT);
+        //only the database load opens a transaction, and it is read-only
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(1)).getTransaction(definition.capture());
+        assertTrue(definition.getValue().isReadOnly());
+    }
+
+    @Test
+    void testGetPremiumProducts_ServedFromPriceIndex() {
+        when(priceIndex.findByPriceBetween(PREMIUM_PRODUCT_PRICE_LIMIT, null))
+                .thenReturn(Optional.of(List.of(productInformation)));
+
+        Response<List<ProductInformation>> response = productService.getPremiumProducts();
+
+        assertEquals(List.of(productInformation), response.getData());
+        verifyNoInteractions(productRepository);
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void testGetProductsByPriceRange_FallsBackToDatabase() {
+        BigDecimal min = new BigDecimal(10);
+        BigDecimal max = new BigDecimal(20);
+        when(productRepository.findByStatusAndPriceBetweenOrderByPriceAscIdAsc(ProductStatus.ACTIVE.getValue(),
+                min, max)).thenReturn(List.of(productView));
+        when(productMapper.mapToProductInformationList(List.of(productView)))
+                .thenReturn(List.of(productInformation));
+
+        Response<List<ProductInformation>> response = productService.getProductsByPriceRange(min, max);
+
+        assertEquals(List.of(productInformation), response.getData());
+    }
+
+    @Test
+    void testGetProductsByPriceRange_InvalidRange() {
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> productService.getProductsByPriceRange(new BigDecimal(20), new BigDecimal(10)));
+        assertEquals(ErrorMsg.INVALID_PRICE_RANGE, exception.getMessage());
+    }
+
+    @Test
+    void testGetProductsByPriceRange_PriceOutOfRange() {
+        BigDecimal tooLarge = new BigDecimal("1e30");
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> productService.getProductsByPriceRange(BigDecimal.ZERO, tooLarge));
+        assertEquals(ErrorMsg.INVALID_PRICE_RANGE, exception.getMessage());
+        assertThrows(InvalidRequestException.class,
+                () -> productService.getProductsByPriceRange(tooLarge, null));
+        verifyNoInteractions(priceIndex);
+    }
+
+    @Test
+    void testGetProductsByIds_ServedFromPriceIndexInRequestOrder() {
+        ProductInformation first = new ProductInformation();
+        ProductInformation second = new ProductInformation();
+        when(priceIndex.findByIds(List.of(3L, 1L, 2L))).thenReturn(Optional.of(Map.of(1L, first, 3L, second)));
+
+        Response<ProductLookup> response = productService.getProductsByIds(List.of(3L, 1L, 3L, 2L));
+
+        assertEquals(List.of(second, first), response.getData().getProducts());
+        assertEquals(List.of(2L), response.getData().getMissingIds());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testGetProductsByIds_FallsBackToChunkedDatabaseQueries() {
+        List<Long> ids = LongStream.rangeClosed(1, LOOKUP_CHUNK_SIZE + 1).boxed().toList();
+        when(priceIndex.findByIds(ids)).thenReturn(Optional.empty());
+        when(productRepository.findByIdInAndStatus(ids.subList(0, LOOKUP_CHUNK_SIZE), ProductStatus.ACTIVE.getValue()))
+                .thenReturn(List.of(productView));
+        when(productRepository.findByIdInAndStatus(List.of(LOOKUP_CHUNK_SIZE + 1L), ProductStatus.ACTIVE.getValue()))
+                .thenReturn(List.of());
+        when(productMapper.mapToProductInformation(productView)).thenReturn(productInformation);
+
+        Response<ProductLookup> response = productService.getProductsByIds(ids);
+
+        assertEquals(List.of(productInformation), response.getData().getProducts());
+        assertEquals(ids.subList(1, ids.size()), response.getData().getMissingIds());
+        //both chunks are read in one read-only transaction
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    @Test
+    void testSearchProducts() {
+        when(searchIndex.search("leather bag", DEFAULT_SEARCH_SIZE))
+                .thenReturn(Optional.of(List.of(productInformation)));
+
+        Response<List<ProductInformation>> response = productService.searchProducts("leather bag", null);
+
+        assertEquals(List.of(productInformation), response.getData());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testSearchProducts_IndexNotLoaded() {
+        when(searchIndex.search("bag", 10)).thenReturn(Optional.empty());
+
+        ServiceUnavailableException exception = assertThrows(ServiceUnavailableException.class,
+                () -> productService.searchProducts("bag", 10));
+        assertEquals(ErrorMsg.SEARCH_UNAVAILABLE, exception.getMessage());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testSearchProducts_InvalidQuery() {
+        assertThrows(InvalidRequestException.class, () -> productService.searchProducts(" ", null));
+        assertThrows(InvalidRequestException.class,
+                () -> productService.searchProducts("a".repeat(MAX_SEARCH_QUERY_LENGTH + 1), null));
+        assertThrows(InvalidRequestException.class, () -> productService.searchProducts("bag", 0));
+        verifyNoInteractions(searchIndex);
+    }
+
+    @Test
+    void testGetFacets_DefaultEdges() {
+        CategoryFacet facet = new CategoryFacet();
+        when(facetIndex.findFacets(null, DEFAULT_PRICE_EDGES)).thenReturn(Optional.of(List.of(facet)));
+
+        Response<List<CategoryFacet>> response = productService.getFacets(null, null);
+
+        assertEquals(List.of(facet), response.getData());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testGetFacets_InvalidEdges() {
+        List<List<BigDecimal>> invalidEdges = List.of(
+                List.of(BigDecimal.ZERO),
+                List.of(new BigDecimal(500), new BigDecimal(100)),
+                List.of(new BigDecimal(100), new BigDecimal(100)),
+                List.of(new BigDecimal("1e30")));
+        for (List<BigDecimal> edges : invalidEdges) {
+            InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                    () -> productService.getFacets("fashion", edges));
+            assertEquals(ErrorMsg.INVALID_PRICE_EDGES, exception.getMessage());
+        }
+        verifyNoInteractions(facetIndex);
+    }
+
+    @Test
+    void testRepriceProducts_ByIdsWithPercentage() {
+        BigDecimal factor = new BigDecimal("1.100");
+        ProductSnapshot repriced = new ProductSnapshot(1L, "p1", null, new BigDecimal("11.00"), "Electronics", 4L);
+        when(productRepository.findByIdInAndStatus(List.of(1L, 2L), ProductStatus.ACTIVE.getValue()))
+                .thenReturn(List.of(productView));
+        when(productRepository.findSnapshotByIdInAndStatus(List.of(1L), ProductStatus.ACTIVE.getValue()))
+                .thenReturn(List.of(repriced));
+        when(productRepository.scalePriceByIdInAndStatus(List.of(1L), ProductStatus.ACTIVE.getValue(), factor))
+                .thenReturn(1);
+
+        Response<BulkUpdateResult> response = productService.repriceProducts(
+                new BulkRepriceRequest(null, List.of(1L, 2L, 1L), null, 10.0));
+
+        assertEquals(1, response.getData().getUpdated());
+        assertEquals(List.of(1), response.getData().getChunkCounts());
+        ArgumentCaptor<ProductChangedEvent> captor = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(new BigDecimal("11.00"), captor.getValue().price());
+        assertEquals(BigDecimal.TEN, captor.getValue().previousPrice());
+        assertEquals(4L, captor.getValue().version());
+    }
+
+    @Test
+    void testRepriceProducts_PriceOutOfRangeIsNotWritten() {
+        ProductView expensive = new ProductView(1L, "p1", null, MAX_PRICE, "Electronics",
+                ProductStatus.ACTIVE.getValue());
+        when(productRepository.findByIdInAndStatus(List.of(1L), ProductStatus.ACTIVE.getValue()))
+                .thenReturn(List.of(expensive));
+
+        assertThrows(InvalidRequestException.class, () -> productService.repriceProducts(
+                new BulkRepriceRequest(null, List.of(1L), null, 1.0)));
+        verify(productRepository, never()).scalePriceByIdInAndStatus(any(), any(), any());
+    }
+
+    @Test
+    void testDeleteProducts_ByCategoryInChunks() {
+        List<ProductView> firstChunk = LongStream.rangeClosed(1, BULK_UPDATE_CHUNK_SIZE)
+                .mapToObj(id -> new ProductView(id, "p" + id, null, BigDecimal.TEN, "fashion",
+                        ProductStatus.ACTIVE.getValue()))
+                .toList();
+        ProductView last = new ProductView(BULK_UPDATE_CHUNK_SIZE + 1L, "p", null, BigDecimal.TEN, "fashion",
+                ProductStatus.ACTIVE.getValue());
+        when(productRepository.findByCategoryAndStatusAndIdGreaterThanOrderByIdAsc("fashion",
+                ProductStatus.ACTIVE.getValue(), 0L, Limit.of(BULK_UPDATE_CHUNK_SIZE))).thenReturn(firstChunk);
+        when(productRepository.findByCategoryAndStatusAndIdGreaterThanOrderByIdAsc("fashion",
+                ProductStatus.ACTIVE.getValue(), (long) BULK_UPDATE_CHUNK_SIZE, Limit.of(BULK_UPDATE_CHUNK_SIZE)))
+                .thenReturn(List.of(last));
+        when(productRepository.updateStatusByIdInAndStatus(any(), eq(ProductStatus.ACTIVE.getValue()),
+                eq(ProductStatus.DELETED.getValue()))).thenReturn(BULK_UPDATE_CHUNK_SIZE, 1);
+        when(productRepository.findSnapshotByIdInAndStatus(any(), eq(ProductStatus.DELETED.getValue())))
+                .thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).stream()
+                        .map(id -> new ProductSnapshot(id, "p" + id, null, BigDecimal.TEN, "fashion", 1L))
+                        .toList());
+
+        Response<BulkUpdateResult> response = productService.deleteProducts(new BulkDeleteRequest("fashion", null));
+
+        assertEquals(BULK_UPDATE_CHUNK_SIZE + 1, response.getData().getUpdated());
+        assertEquals(List.of(BULK_UPDATE_CHUNK_SIZE, 1), response.getData().getChunkCounts());
+        verify(eventPublisher, times(BULK_UPDATE_CHUNK_SIZE + 1)).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testBulkRequestsNeedOneTargetAndOneChange() {
+        assertThrows(InvalidRequestException.class,
+                () -> productService.deleteProducts(new BulkDeleteRequest("fashion", List.of(1L))));
+        assertThrows(InvalidRequestException.class,
+                () -> productService.deleteProducts(new BulkDeleteRequest(" ", List.of())));
+        assertThrows(InvalidRequestException.class,
+                () -> productService.repriceProducts(new BulkRepriceRequest("fashion", null, 10.0, 5.0)));
+        verifyNoInteractions(productRepository);
+    }
 }
@@ -1,6 +1,8 @@
 package com.efuture.gateway.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
@@ -10,17 +12,39 @@ import org.springframework.security.oauth2.client.registration.ReactiveClientReg
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
 import org.springframework.security.web.server.authentication.logout.ServerLogoutSuccessHandler;
+import org.springframework.security.web.server.util.matcher.AndServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.PathPatternParserServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher.MatchResult;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
 
+import java.net.InetSocketAddress;
+
+@Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
+
+    private static final String PROMETHEUS_PATH = "/actuator/prometheus";
+
+    private final int managementPort;
+
+    public SecurityConfig(@Value("${management.server.port:-1}") int managementPort) {
+        this.managementPort = managementPort;
+    }
+
     @Bean
     SecurityWebFilterChain springSecurityFilterChain(
             ServerHttpSecurity http,
             ReactiveClientRegistrationRepository clientRegistrationRepository
     ) {
         return http
-                .authorizeExchange(exchange ->
-                        exchange.anyExchange().authenticated())
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers("/actuator/health").permitAll()
+                        //the metrics are only public on the management port, which is not exposed
+                        .matchers(new AndServerWebExchangeMatcher(
+                                new PathPatternParserServerWebExchangeMatcher(PROMETHEUS_PATH),
+                                this::onManagementPort)).permitAll()
+                        .anyExchange().authenticated())
                 .exceptionHandling(exceptionHandling ->
                         exceptionHandling.authenticationEntryPoint(
                                 new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)))
@@ -30,8 +54,15 @@ public class SecurityConfig {
                 .build();
     }
 
+    private Mono<MatchResult> onManagementPort(ServerWebExchange exchange) {
+        InetSocketAddress localAddress = exchange.getRequest().getLocalAddress();
+        return localAddress != null && localAddress.getPort() == managementPort
+                ? MatchResult.match()
+                : MatchResult.notMatch();
+    }
+
     @Bean
-    private ServerLogoutSuccessHandler oidcLogoutSuccessHandler(
+    ServerLogoutSuccessHandler oidcLogoutSuccessHandler(
             ReactiveClientRegistrationRepository clientRegistrationRepository
     ) {
         var oidcLogoutSuccessHandler =
@@ -0,0 +1,85 @@
+package com.efuture.gateway.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adjusted with additive increase / multiplicative decrease.
+ * The limit grows by one for a fast successful response while the requests in flight use at least half of it,
+ * and is multiplied by the backoff ratio for a response which failed or was slower than the latency threshold,
+ * staying within the minimum and maximum limit. Only the requests started after the last decrease can decrease
+ * the limit again: the ones in flight at that time were sent under the previous limit, so a burst of slow
+ * responses backs the limit off once per round trip rather than once per response.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    //end of the request which last decreased the limit, guarded by this
+    private long lastDecreaseNanos;
+    private boolean decreased;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                    long latencyThresholdNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Take a slot for a request
+     * @return false if the requests in flight already reached the limit
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Release the slot of a completed request and adjust the limit from its outcome
+     * @param startNanos {@link System#nanoTime()} when the request was sent
+     * @param latencyNanos time the request was in flight
+     * @param failed true if the upstream failed or timed out
+     */
+    public void release(long startNanos, long latencyNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                if (!decreased || startNanos - lastDecreaseNanos >= 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = startNanos + latencyNanos;
+                    decreased = true;
+                }
+            } else if (current * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    /**
+     * Release the slot of a request cancelled by the client, without adjusting the limit
+     */
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,102 @@
+package com.efuture.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setResponseStatus;
+
+/**
+ * Route filter shedding the requests above an adaptive concurrency limit of the route with 503.
+ * The limit follows the latency and the failures of the upstream, see {@link AdaptiveConcurrencyLimit}.
+ * Usage: {@code AdaptiveConcurrencyLimit=<initial limit>,<min limit>,<max limit>,<latency threshold>}, e.g.
+ * {@code AdaptiveConcurrencyLimit=20,5,200,500ms}
+ */
+@Component
+public class AdaptiveConcurrencyLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<AdaptiveConcurrencyLimitGatewayFilterFactory.Config> {
+
+    private final MeterRegistry meterRegistry;
+    //one limit per route, kept when the routes are refreshed
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimitGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("initialLimit", "minLimit", "maxLimit", "latencyThreshold");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId();
+        AdaptiveConcurrencyLimit limit = limits.computeIfAbsent(routeId, route -> register(route, config));
+        Counter rejected = Counter.builder("gateway.concurrency.rejected")
+                .tag("route", routeId)
+                .description("Requests shed because the route was at its concurrency limit")
+                .register(meterRegistry);
+        return (exchange, chain) -> {
+            if (!limit.tryAcquire()) {
+                rejected.increment();
+                setResponseStatus(exchange, HttpStatus.SERVICE_UNAVAILABLE);
+                exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                return exchange.getResponse().setComplete();
+            }
+            long start = System.nanoTime();
+            return chain.filter(exchange).doFinally(signal -> {
+                if (signal == SignalType.CANCEL) {
+                    limit.cancel();
+                    return;
+                }
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                limit.release(start, System.nanoTime() - start, failed);
+            });
+        };
+    }
+
+    private AdaptiveConcurrencyLimit register(String routeId, Config config) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(config.getInitialLimit(),
+                config.getMinLimit(), config.getMaxLimit(), config.getBackoffRatio(),
+                config.getLatencyThreshold().toNanos());
+        Gauge.builder("gateway.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .tag("route", routeId)
+                .description("Current concurrency limit of the route")
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .tag("route", routeId)
+                .description("Requests of the route in flight to the upstream")
+                .register(meterRegistry);
+        return limit;
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        private String routeId;
+        private int initialLimit = 20;
+        private int minLimit = 5;
+        private int maxLimit = 200;
+        //responses slower than this count as overload
+        private Duration latencyThreshold = Duration.ofMillis(500);
+        private double backoffRatio = 0.9;
+    }
+}
@@ -0,0 +1,204 @@
+package com.efuture.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches successful GET responses for a short TTL and shares in-flight upstream calls.
+ * Responses are keyed by the authorization scope of the request, its granted authorities and roles, so a response
+ * is served to all users allowed to see the same data but never to a user with other permissions, and by the URI
+ * and the content negotiation headers. The cached routes must therefore not return user specific data. The first request of a key (the leader) goes upstream with its
+ * If-None-Match removed so the full response can be captured; the requests arriving while it is in flight wait
+ * for its response instead of calling upstream, and fall back to their own call if the leader fails or its
+ * response is not captured. Conditional requests are answered from the captured ETag.
+ */
+public class CoalescingResponseCacheFilter implements GatewayFilter {
+
+    //headers bound to the connection or to the session of the leader, not replayed to other requests
+    private static final List<String> EXCLUDED_HEADERS = List.of(HttpHeaders.CONNECTION, HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.SET_COOKIE, HttpHeaders.TRANSFER_ENCODING);
+    //rate limit state of the leader's user
+    private static final String RATE_LIMIT_HEADER_PREFIX = "X-RateLimit-";
+    //claim the catalogue service reads the roles from
+    private static final String ROLES_CLAIM = "roles";
+
+    private final Cache<CacheKey, CachedResponse> responses;
+    private final Map<CacheKey, Mono<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public CoalescingResponseCacheFilter(Duration ttl, DataSize maximumSize) {
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((CacheKey key, CachedResponse response) -> response.body().length)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        return exchange.getPrincipal()
+                .map(CoalescingResponseCacheFilter::authorizationScope)
+                .defaultIfEmpty("")
+                .flatMap(scope -> {
+                    CacheKey key = CacheKey.of(scope, exchange.getRequest());
+                    CachedResponse cached = responses.getIfPresent(key);
+                    if (cached != null) {
+                        return write(exchange, cached);
+                    }
+                    Sinks.One<CachedResponse> sink = Sinks.one();
+                    Mono<CachedResponse> captured = sink.asMono();
+                    Mono<CachedResponse> leaderResponse = inFlight.putIfAbsent(key, captured);
+                    if (leaderResponse != null) {
+                        //write completes empty as well, so the missing response is told apart before writing
+                        return leaderResponse
+                                .map(Optional::of)
+                                .defaultIfEmpty(Optional.empty())
+                                .flatMap(response -> response.isPresent()
+                                        ? write(exchange, response.get())
+                                        : chain.filter(exchange));
+                    }
+                    return lead(exchange, chain, key, sink)
+                            .doFinally(signal -> {
+                                inFlight.remove(key, captured);
+                                //no-op when the response was captured, otherwise the waiting requests go upstream
+                                //themselves
+                                sink.tryEmitEmpty();
+                            });
+                });
+    }
+
+    private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, CacheKey key,
+                            Sinks.One<CachedResponse> sink) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponseDecorator response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return DataBufferUtils.join(body)
+                        .flatMap(buffer -> {
+                            byte[] bytes = new byte[buffer.readableByteCount()];
+                            buffer.read(bytes);
+                            DataBufferUtils.release(buffer);
+                            HttpStatusCode status = getStatusCode() == null ? HttpStatus.OK : getStatusCode();
+                            CachedResponse captured = new CachedResponse(status, replayable(getHeaders()), bytes);
+                            if (captured.status().isSameCodeAs(HttpStatus.OK)) {
+                                responses.put(key, captured);
+                            }
+                            sink.tryEmitValue(captured);
+                            if (isNotModified(request, captured)) {
+                                return notModified(getDelegate());
+                            }
+                            return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                        })
+                        .switchIfEmpty(Mono.defer(() -> getDelegate().setComplete()));
+            }
+        };
+        ServerWebExchange leaderExchange = exchange.mutate()
+                .request(builder -> builder.headers(headers -> headers.remove(HttpHeaders.IF_NONE_MATCH)))
+                .response(response)
+                .build();
+        return chain.filter(leaderExchange);
+    }
+
+    private static Mono<Void> write(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().addAll(cached.headers());
+        if (isNotModified(exchange.getRequest(), cached)) {
+            return notModified(response);
+        }
+        response.setStatusCode(cached.status());
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static Mono<Void> notModified(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        response.getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+        response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        return response.setComplete();
+    }
+
+    private static boolean isNotModified(ServerHttpRequest request, CachedResponse cached) {
+        String eTag = cached.headers().getETag();
+        if (eTag == null || !cached.status().isSameCodeAs(HttpStatus.OK)) {
+            return false;
+        }
+        //If-None-Match uses the weak comparison
+        String opaqueTag = stripWeak(eTag);
+        return request.getHeaders().getIfNoneMatch().stream()
+                .anyMatch(candidate -> candidate.equals("*") || stripWeak(candidate).equals(opaqueTag));
+    }
+
+    private static String stripWeak(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    /**
+     * @param principal authenticated user
+     * @return sorted granted authorities and roles of the user, the same for all users with the same permissions
+     */
+    static String authorizationScope(Principal principal) {
+        if (!(principal instanceof Authentication authentication)) {
+            //permissions unknown, not shared with anyone else
+            return "user:" + principal.getName();
+        }
+        Set<String> scope = new TreeSet<>();
+        authentication.getAuthorities().forEach(authority -> scope.add(authority.getAuthority()));
+        if (authentication.getPrincipal() instanceof OAuth2AuthenticatedPrincipal user
+                && user.getAttribute(ROLES_CLAIM) instanceof Collection<?> roles) {
+            roles.forEach(role -> scope.add("ROLE_" + role));
+        }
+        return String.join(",", scope);
+    }
+
+    private static HttpHeaders replayable(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (EXCLUDED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)
+                    && !name.regionMatches(true, 0, RATE_LIMIT_HEADER_PREFIX, 0, RATE_LIMIT_HEADER_PREFIX.length())) {
+                copy.addAll(name, values);
+            }
+        });
+        return copy;
+    }
+
+    private record CacheKey(String scope, String uri, String accept, String acceptEncoding) {
+        static CacheKey of(String scope, ServerHttpRequest request) {
+            HttpHeaders headers = request.getHeaders();
+            return new CacheKey(scope, request.getURI().getRawPath() + "?" + request.getURI().getRawQuery(),
+                    headers.getFirst(HttpHeaders.ACCEPT), headers.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        }
+    }
+
+    private record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+}
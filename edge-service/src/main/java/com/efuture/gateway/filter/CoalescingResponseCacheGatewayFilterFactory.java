@@ -0,0 +1,47 @@
+package com.efuture.gateway.filter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.springframework.cloud.gateway.filter.NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER;
+
+/**
+ * Route filter caching the GET responses of the route for a short TTL, per set of roles, and coalescing concurrent
+ * identical requests into one upstream call.
+ * Usage: {@code CoalescingResponseCache=<ttl>,<maximum size>}, e.g. {@code CoalescingResponseCache=2s,16MB}
+ */
+@Component
+public class CoalescingResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<CoalescingResponseCacheGatewayFilterFactory.Config> {
+
+    public CoalescingResponseCacheGatewayFilterFactory() {
+        super(Config.class);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl", "maximumSize");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        //the response has to be decorated before the netty write filter picks it up
+        return new OrderedGatewayFilter(new CoalescingResponseCacheFilter(config.getTtl(), config.getMaximumSize()),
+                WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(2);
+        private DataSize maximumSize = DataSize.ofMegabytes(16);
+    }
+}
@@ -0,0 +1,123 @@
+package com.efuture.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory token bucket rate limiter for the {@code RequestRateLimiter} filter, with one bucket per route and
+ * key (the principal name by default). Each gateway instance enforces the limits on its own, so no Redis is
+ * needed. Route settings are given as {@code local-rate-limiter.replenishRate},
+ * {@code local-rate-limiter.burstCapacity} and {@code local-rate-limiter.requestedTokens} filter args.
+ * Idle buckets are evicted, which is the same as a full bucket for the next request.
+ */
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+    private final Config defaultConfig = new Config();
+    private final Cache<BucketKey, TokenBucket> buckets;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> allowedRequests = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectedRequests = new ConcurrentHashMap<>();
+
+    public LocalRateLimiter(ConfigurationService configurationService, MeterRegistry meterRegistry,
+                            @Value("${gateway.rate-limiter.maximum-buckets:100000}") long maximumBuckets,
+                            @Value("${gateway.rate-limiter.idle-timeout:10m}") Duration idleTimeout) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumBuckets)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        return Mono.just(isAllowed(routeId, id, System.nanoTime()));
+    }
+
+    Response isAllowed(String routeId, String id, long now) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        TokenBucket bucket = buckets.get(new BucketKey(routeId, id),
+                key -> new TokenBucket(config.getBurstCapacity(), now));
+        long remaining = bucket.tryConsume(config, now);
+        boolean allowed = remaining >= 0;
+        (allowed ? allowedRequests : rejectedRequests)
+                .computeIfAbsent(routeId, route -> decisionCounter(route, allowed))
+                .increment();
+        return new Response(allowed, Map.of(
+                "X-RateLimit-Remaining", String.valueOf(Math.max(remaining, 0)),
+                "X-RateLimit-Replenish-Rate", String.valueOf(config.getReplenishRate()),
+                "X-RateLimit-Burst-Capacity", String.valueOf(config.getBurstCapacity()),
+                "X-RateLimit-Requested-Tokens", String.valueOf(config.getRequestedTokens())));
+    }
+
+    private Counter decisionCounter(String routeId, boolean allowed) {
+        return Counter.builder("gateway.ratelimit.requests")
+                .tag("route", routeId)
+                .tag("result", allowed ? "allowed" : "rejected")
+                .description("Rate limit decisions of the local rate limiter")
+                .register(meterRegistry);
+    }
+
+    @Getter
+    @Setter
+    @Validated
+    public static class Config {
+        //tokens added per second
+        @Min(1)
+        private int replenishRate = 10;
+        //maximum tokens in the bucket, the size of the burst allowed after an idle period
+        @Min(1)
+        private int burstCapacity = 20;
+        //tokens taken by one request
+        @Min(1)
+        private int requestedTokens = 1;
+    }
+
+    private record BucketKey(String routeId, String id) {
+    }
+
+    private static final class TokenBucket {
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        /**
+         * Refill the bucket for the time passed and take the tokens of one request
+         * @param config route settings
+         * @param now current nano time
+         * @return whole tokens left, -1 if there were not enough tokens
+         */
+        synchronized long tryConsume(Config config, long now) {
+            double elapsedSeconds = (now - refilledAt) / 1_000_000_000.0;
+            tokens = Math.min(config.getBurstCapacity(), tokens + elapsedSeconds * config.getReplenishRate());
+            refilledAt = now;
+            if (tokens < config.getRequestedTokens()) {
+                return -1;
+            }
+            tokens -= config.getRequestedTokens();
+            return (long) tokens;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.efuture.gateway;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GatewayRoutesTest {
+
+    private Map<String, RouteDefinition> routes;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<PropertySource<?>> application = new YamlPropertySourceLoader()
+                .load("application", new ClassPathResource("application.yaml"));
+        routes = new Binder(ConfigurationPropertySources.from(application))
+                .bind("spring.cloud.gateway.routes", Bindable.listOf(RouteDefinition.class))
+                .get()
+                .stream()
+                .collect(Collectors.toMap(RouteDefinition::getId, route -> route));
+    }
+
+    @Test
+    void testBulkWritesHaveAResponseTimeoutFittingTheirDuration() {
+        assertEquals("60000", responseTimeout("catalogue-service-bulk"));
+    }
+
+    @Test
+    void testStreamsHaveNoResponseTimeout() {
+        //a negative timeout disables the 5 second default, the catalogue service bounds the streams itself
+        assertEquals("-1", responseTimeout("catalogue-service-stream"));
+    }
+
+    private String responseTimeout(String routeId) {
+        return String.valueOf(routes.get(routeId).getMetadata().get("response-timeout"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.efuture.gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitGatewayFilterFactoryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    //slower than a single write should be, well within the duration of a bulk write
+    private static final GatewayFilterChain SLOW_UPSTREAM = exchange -> Mono.delay(Duration.ofMillis(100)).then();
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveConcurrencyLimitGatewayFilterFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        factory = new AdaptiveConcurrencyLimitGatewayFilterFactory(meterRegistry);
+    }
+
+    @Test
+    void testSlowBulkCallsDoNotBackOffTheSingleWriteLimit() {
+        factory.apply(config("catalogue-service", 10, Duration.ofMillis(50)));
+        GatewayFilter bulk = factory.apply(config("catalogue-service-bulk", 4, Duration.ofSeconds(20)));
+
+        run(bulk, "/api/products/bulk", 4);
+        run(bulk, "/api/products/bulk/reprice", 4);
+
+        assertEquals(10, limit("catalogue-service"));
+        //fast for a bulk write, the busy route grows its own limit
+        assertTrue(limit("catalogue-service-bulk") > 4);
+    }
+
+    @Test
+    void testConcurrentSlowResponsesBackOffOnce() {
+        GatewayFilter writes = factory.apply(config("catalogue-service", 10, Duration.ofMillis(50)));
+
+        run(writes, "/api/products/1", 5);
+
+        //10 x 0.9, not 10 x 0.9^5
+        assertEquals(9, limit("catalogue-service"));
+    }
+
+    private void run(GatewayFilter filter, String path, int concurrency) {
+        Flux.range(0, concurrency)
+                .flatMap(i -> filter.filter(MockServerWebExchange.from(MockServerHttpRequest.post(path)),
+                        SLOW_UPSTREAM))
+                .then()
+                .block(TIMEOUT);
+    }
+
+    private double limit(String routeId) {
+        return meterRegistry.get("gateway.concurrency.limit").tag("route", routeId).gauge().value();
+    }
+
+    private static AdaptiveConcurrencyLimitGatewayFilterFactory.Config config(String routeId, int initialLimit,
+                                                                              Duration latencyThreshold) {
+        AdaptiveConcurrencyLimitGatewayFilterFactory.Config config =
+                new AdaptiveConcurrencyLimitGatewayFilterFactory.Config();
+        config.setRouteId(routeId);
+        config.setInitialLimit(initialLimit);
+        config.setMinLimit(2);
+        config.setMaxLimit(100);
+        config.setLatencyThreshold(latencyThreshold);
+        return config;
+    }
+}
@@ -0,0 +1,82 @@
+package com.efuture.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void testRequestsAboveTheLimitAreRejected() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, 0.5, THRESHOLD);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+
+        limit.cancel();
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void testLimitGrowsWhileFastAndBusyUpToTheMaximum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 3, 0.5, THRESHOLD);
+
+        limit.tryAcquire();
+        limit.tryAcquire();
+        limit.release(0, FAST, false);
+        assertEquals(3, limit.getLimit());
+
+        //one request in flight out of three does not use half of the limit
+        limit.release(0, FAST, false);
+        assertEquals(3, limit.getLimit());
+
+        for (int i = 0; i < 3; i++) {
+            limit.tryAcquire();
+        }
+        limit.release(0, FAST, false);
+        assertEquals(3, limit.getLimit());
+    }
+
+    @Test
+    void testLimitBacksOffOnSlowOrFailedResponsesDownToTheMinimum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 2, 10, 0.5, THRESHOLD);
+
+        limit.tryAcquire();
+        limit.release(0, THRESHOLD + 1, false);
+        assertEquals(4, limit.getLimit());
+
+        limit.tryAcquire();
+        limit.release(THRESHOLD + 1, FAST, true);
+        assertEquals(2, limit.getLimit());
+
+        limit.tryAcquire();
+        limit.release(THRESHOLD + FAST + 1, FAST, true);
+        assertEquals(2, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void testSlowResponsesOfOneRoundTripBackOffOnce() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 2, 10, 0.5, THRESHOLD);
+        for (int i = 0; i < 4; i++) {
+            limit.tryAcquire();
+        }
+
+        //sent together, all slow
+        for (int i = 0; i < 3; i++) {
+            limit.release(i, THRESHOLD + 1, false);
+        }
+        assertEquals(4, limit.getLimit());
+
+        //sent after the decrease, still slow
+        limit.release(THRESHOLD + 1, THRESHOLD + 1, false);
+        assertEquals(2, limit.getLimit());
+    }
+}
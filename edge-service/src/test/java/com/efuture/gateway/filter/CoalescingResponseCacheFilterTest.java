@@ -0,0 +1,172 @@
+package com.efuture.gateway.filter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingResponseCacheFilterTest {
+
+    private static final String PATH = "/api/products/premium";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private CoalescingResponseCacheFilter filter;
+    private AtomicInteger upstreamCalls;
+    private List<HttpHeaders> upstreamRequestHeaders;
+
+    @BeforeEach
+    void setUp() {
+        filter = new CoalescingResponseCacheFilter(Duration.ofMinutes(1), DataSize.ofMegabytes(1));
+        upstreamCalls = new AtomicInteger();
+        upstreamRequestHeaders = new ArrayList<>();
+    }
+
+    @Test
+    void testFollowersReceiveTheResponseOfTheLeader() {
+        Sinks.Empty<Void> release = Sinks.empty();
+        GatewayFilterChain chain = upstream(release.asMono(), "premium");
+        MockServerWebExchange leader = exchange(PATH);
+        MockServerWebExchange follower = exchange(PATH);
+
+        CompletableFuture<Void> leaderDone = filter.filter(as(leader, user("alice", "ROLE_User")), chain).toFuture();
+        CompletableFuture<Void> followerDone = filter.filter(as(follower, user("bob", "ROLE_User")), chain)
+                .toFuture();
+        release.tryEmitEmpty();
+        leaderDone.join();
+        followerDone.join();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("premium", body(leader));
+        assertEquals(HttpStatus.OK, follower.getResponse().getStatusCode());
+        assertEquals("premium", body(follower));
+        assertEquals("\"v1\"", follower.getResponse().getHeaders().getETag());
+        //rate limit state of the leader's user is not replayed
+        assertNull(follower.getResponse().getHeaders().getFirst("X-RateLimit-Remaining"));
+    }
+
+    @Test
+    void testResponsesAreNotSharedBetweenDifferentRoles() {
+        GatewayFilterChain chain = upstream(Mono.empty(), "premium");
+
+        filter.filter(as(exchange(PATH), user("alice", "ROLE_User")), chain).block(TIMEOUT);
+        filter.filter(as(exchange(PATH), user("carol", "ROLE_Admin")), chain).block(TIMEOUT);
+        filter.filter(as(exchange(PATH), user("bob", "ROLE_User")), chain).block(TIMEOUT);
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void testFollowersCallUpstreamWhenTheLeaderFails() {
+        Sinks.Empty<Void> release = Sinks.empty();
+        GatewayFilterChain chain = exchange -> upstreamCalls.incrementAndGet() == 1
+                ? release.asMono().then(Mono.error(new IllegalStateException("upstream failed")))
+                : write(exchange, "premium");
+        MockServerWebExchange follower = exchange(PATH);
+
+        CompletableFuture<Void> leaderDone = filter.filter(as(exchange(PATH), user("alice", "ROLE_User")), chain)
+                .toFuture();
+        CompletableFuture<Void> followerDone = filter.filter(as(follower, user("bob", "ROLE_User")), chain)
+                .toFuture();
+        release.tryEmitEmpty();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, leaderDone::get);
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        followerDone.join();
+        assertEquals(2, upstreamCalls.get());
+        assertEquals("premium", body(follower));
+    }
+
+    @Test
+    void testMatchingIfNoneMatchIsAnsweredWithNotModified() {
+        GatewayFilterChain chain = upstream(Mono.empty(), "premium");
+        MockServerWebExchange leader = exchange(PATH, "\"v1\"");
+
+        filter.filter(as(leader, user("alice", "ROLE_User")), chain).block(TIMEOUT);
+
+        //the leader asks for the full response so that it can be cached
+        assertNull(upstreamRequestHeaders.getFirst().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals(HttpStatus.NOT_MODIFIED, leader.getResponse().getStatusCode());
+        assertEquals("", body(leader));
+
+        MockServerWebExchange cached = exchange(PATH, "W/\"v1\"");
+        filter.filter(as(cached, user("bob", "ROLE_User")), chain).block(TIMEOUT);
+        assertEquals(HttpStatus.NOT_MODIFIED, cached.getResponse().getStatusCode());
+
+        MockServerWebExchange changed = exchange(PATH, "\"v0\"");
+        filter.filter(as(changed, user("bob", "ROLE_User")), chain).block(TIMEOUT);
+        assertEquals(HttpStatus.OK, changed.getResponse().getStatusCode());
+        assertEquals("premium", body(changed));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testAuthorizationScopeIncludesTheRolesClaim() {
+        DefaultOAuth2User user = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("OIDC_USER"),
+                Map.of("sub", "alice", "roles", List.of("User", "Admin")), "sub");
+        OAuth2AuthenticationToken authentication =
+                new OAuth2AuthenticationToken(user, user.getAuthorities(), "keycloak");
+
+        assertEquals("OIDC_USER,ROLE_Admin,ROLE_User",
+                CoalescingResponseCacheFilter.authorizationScope(authentication));
+    }
+
+    private GatewayFilterChain upstream(Mono<Void> delay, String body) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            upstreamRequestHeaders.add(exchange.getRequest().getHeaders());
+            return delay.then(Mono.defer(() -> write(exchange, body)));
+        };
+    }
+
+    private static Mono<Void> write(ServerWebExchange exchange, String body) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setETag("\"v1\"");
+        response.getHeaders().set("X-RateLimit-Remaining", "7");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+
+    private static MockServerWebExchange exchange(String path, String ifNoneMatch) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path).ifNoneMatch(ifNoneMatch));
+    }
+
+    private static ServerWebExchange as(MockServerWebExchange exchange, Principal principal) {
+        return exchange.mutate().principal(Mono.just(principal)).build();
+    }
+
+    private static TestingAuthenticationToken user(String name, String... roles) {
+        return new TestingAuthenticationToken(name, null, roles);
+    }
+
+    private static String body(MockServerWebExchange exchange) {
+        return exchange.getResponse().getBodyAsString().block(TIMEOUT);
+    }
+}
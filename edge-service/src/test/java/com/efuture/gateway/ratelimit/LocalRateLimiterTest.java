@@ -0,0 +1,65 @@
+package com.efuture.gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LocalRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new LocalRateLimiter(null, meterRegistry, 100, Duration.ofMinutes(1));
+        LocalRateLimiter.Config config = new LocalRateLimiter.Config();
+        config.setReplenishRate(2);
+        config.setBurstCapacity(3);
+        rateLimiter.getConfig().put("reads", config);
+    }
+
+    @Test
+    void testBurstIsAllowedThenRejected() {
+        assertTrue(rateLimiter.isAllowed("reads", "u1", 0).isAllowed());
+        assertTrue(rateLimiter.isAllowed("reads", "u1", 0).isAllowed());
+        assertEquals("0", rateLimiter.isAllowed("reads", "u1", 0).getHeaders().get("X-RateLimit-Remaining"));
+
+        assertFalse(rateLimiter.isAllowed("reads", "u1", 0).isAllowed());
+        assertEquals(3, meterRegistry.get("gateway.ratelimit.requests").tag("route", "reads")
+                .tag("result", "allowed").counter().count());
+        assertEquals(1, meterRegistry.get("gateway.ratelimit.requests").tag("route", "reads")
+                .tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void testBucketIsRefilledAtTheReplenishRateUpToTheBurstCapacity() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.isAllowed("reads", "u1", 0);
+        }
+        long halfSecond = TimeUnit.MILLISECONDS.toNanos(500);
+        assertTrue(rateLimiter.isAllowed("reads", "u1", halfSecond).isAllowed());
+        assertFalse(rateLimiter.isAllowed("reads", "u1", halfSecond).isAllowed());
+
+        long tenSeconds = TimeUnit.SECONDS.toNanos(10);
+        assertEquals("2", rateLimiter.isAllowed("reads", "u1", tenSeconds).getHeaders()
+                .get("X-RateLimit-Remaining"));
+    }
+
+    @Test
+    void testBucketsAreKeptPerRouteAndKey() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.isAllowed("reads", "u1", 0);
+        }
+
+        assertFalse(rateLimiter.isAllowed("reads", "u1", 0).isAllowed());
+        assertTrue(rateLimiter.isAllowed("reads", "u2", 0).isAllowed());
+        //routes without settings use the defaults
+        assertTrue(rateLimiter.isAllowed("writes", "u1", 0).isAllowed());
+    }
+}
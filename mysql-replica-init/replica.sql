@@ -0,0 +1,11 @@
+-- replicate everything from the mysqldb primary, positioned by GTID
+CHANGE REPLICATION SOURCE TO
+    SOURCE_HOST = 'mysqldb',
+    SOURCE_USER = 'root',
+    SOURCE_PASSWORD = 'pass123',
+    SOURCE_AUTO_POSITION = 1,
+    GET_SOURCE_PUBLIC_KEY = 1;
+START REPLICA;
+
+-- the schema and data only change through replication
+SET GLOBAL super_read_only = ON;
@@ -1,18 +1,94 @@
 package com.efuture.notification;
 
-import com.efuture.notification.dto.ProductCreationEvent;
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.notification.dedup.EventDeduplicator;
+import com.efuture.notification.service.NotificationService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.List;
+
+import static org.springframework.kafka.support.serializer.SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER;
+
 
 @Slf4j
 @Component
 public class KafkaJsonConsumer {
+
+    private static final LogAccessor LOG = new LogAccessor(KafkaJsonConsumer.class);
+
+    private final NotificationService notificationService;
+    private final EventDeduplicator eventDeduplicator;
+    private final Timer processingTimer;
+    private final Timer eventLag;
+    private final DistributionSummary batchSize;
+
+    public KafkaJsonConsumer(NotificationService notificationService, EventDeduplicator eventDeduplicator,
+                             MeterRegistry meterRegistry) {
+        this.notificationService = notificationService;
+        this.eventDeduplicator = eventDeduplicator;
+        this.processingTimer = Timer.builder("notification.batch.processing")
+                .description("Time to dispatch a batch of product events")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.eventLag = Timer.builder("notification.event.lag")
+                .description("Time from producing a product event until it is consumed")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("notification.batch.size")
+                .baseUnit("events")
+                .description("Product events received per poll")
+                .register(meterRegistry);
+    }
+
     @KafkaListener(topics = "product-topic", groupId = "group_id")
-    public void listen(ConsumerRecord<String, ProductCreationEvent> record) {
-        //consume product creation notifications and send notifications to relevant parties
-        log.info("Received Card Event: {}", record.value());
+    public void listen(List<ConsumerRecord<String, ProductCreationEvent>> records, Acknowledgment acknowledgment) {
+        //consume a poll worth of product creation notifications and send them to relevant parties as one batch
+        log.debug("Received {} product events", records.size());
+        long now = System.currentTimeMillis();
+        records.forEach(record -> eventLag.record(Duration.ofMillis(Math.max(0, now - record.timestamp()))));
+        batchSize.record(records.size());
+        int failed = firstUnreadable(records);
+        List<ConsumerRecord<String, ProductCreationEvent>> readable = records.subList(0, failed);
+
+        //redelivered events are skipped, and only recorded as seen once dispatched
+        List<ProductCreationEvent> unseen = eventDeduplicator.unseen(readable.stream().map(ConsumerRecord::value)
+                .toList());
+        if (!unseen.isEmpty()) {
+            processingTimer.record(() -> notificationService.dispatch(unseen));
+            eventDeduplicator.markSeen(unseen);
+        }
+        if (failed < records.size()) {
+            //the error handler commits the dispatched records, sends the unreadable one to the DLT and polls the
+            //rest again
+            throw new BatchListenerFailedException("Failed to deserialize product event", SerializationUtils
+                    .getExceptionFromHeader(records.get(failed), VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG), failed);
+        }
+        //commit the offsets of the whole batch once it has been dispatched
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Find the first record whose value could not be deserialized
+     * @param records records of the poll
+     * @return index of the record, the number of records if all were deserialized
+     */
+    private static int firstUnreadable(List<ConsumerRecord<String, ProductCreationEvent>> records) {
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).headers().lastHeader(VALUE_DESERIALIZER_EXCEPTION_HEADER) != null) {
+                return i;
+            }
+        }
+        return records.size();
     }
 }
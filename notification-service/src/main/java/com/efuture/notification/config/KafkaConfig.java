@@ -2,9 +2,17 @@ package com.efuture.notification.config;
 
 // Importing required classes
 
-import com.efuture.notification.dto.ProductCreationEvent;
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.events.kafka.ProductCreationEventDeserializer;
+import com.efuture.events.kafka.ProductCreationEventSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
@@ -12,11 +20,21 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.KafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
+import static com.efuture.notification.util.Constants.DEAD_LETTER_TOPIC_SUFFIX;
 import static com.efuture.notification.util.Constants.KAFKA_BOOTSTRAP_SERVERS;
 
 
@@ -24,36 +42,86 @@ import static com.efuture.notification.util.Constants.KAFKA_BOOTSTRAP_SERVERS;
 @Configuration
 public class KafkaConfig {
 
+    @Value("${spring.kafka.bootstrap-servers:" + KAFKA_BOOTSTRAP_SERVERS + "}")
+    private String bootstrapServers;
+
+    @Value("${notification.kafka.concurrency:1}")
+    private int concurrency;
+
+    @Value("${notification.kafka.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${notification.kafka.retry-interval:1s}")
+    private Duration retryInterval;
+
+    @Value("${notification.kafka.retry-attempts:2}")
+    private long retryAttempts;
 
     @Bean
-    public ConsumerFactory<String, ProductCreationEvent> consumerFactory() {
+    public ConsumerFactory<String, ProductCreationEvent> consumerFactory(MeterRegistry meterRegistry) {
 
         // Creating a Map of string-object pairs
         Map<String, Object> config = new HashMap<>();
 
         // Adding the Configuration
-        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, KAFKA_BOOTSTRAP_SERVERS);
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.GROUP_ID_CONFIG, "group_id");
         config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        //offsets are committed by the listener once a batch has been dispatched
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-
-        // Configure the JsonDeserializer
-        JsonDeserializer<ProductCreationEvent> deserializer = new JsonDeserializer<>(ProductCreationEvent.class);
-        deserializer.setRemoveTypeHeaders(false);
-        deserializer.addTrustedPackages("*");
-        deserializer.setUseTypeMapperForKey(true);
+        //binary and JSON records are told apart by their first byte, no type headers are needed;
+        //a record which cannot be read is handed to the listener with a null value instead of failing the poll
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, ProductCreationEventDeserializer.class);
+
+        DefaultKafkaConsumerFactory<String, ProductCreationEvent> consumerFactory = new DefaultKafkaConsumerFactory<>(
+                config, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new ProductCreationEventDeserializer()));
+        //expose the consumer client metrics, including the records lag per partition, through Micrometer
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return consumerFactory;
+    }
 
-        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(), deserializer);
+    /**
+     * Producer of the dead letter topic, writing the raw bytes of the records which could not be deserialized and
+     * the events which could not be dispatched
+     */
+    @Bean
+    public KafkaTemplate<String, Object> deadLetterKafkaTemplate() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        DelegatingByTypeSerializer valueSerializer = new DelegatingByTypeSerializer(Map.of(
+                byte[].class, new ByteArraySerializer(),
+                ProductCreationEvent.class, new ProductCreationEventSerializer()));
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config, new StringSerializer(),
+                valueSerializer));
     }
 
+    @Bean
+    public DefaultErrorHandler kafkaErrorHandler(KafkaTemplate<String, Object> deadLetterKafkaTemplate) {
+        //failed records go to <topic>.DLT, the partition is left to the producer so the DLT can have any size
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(deadLetterKafkaTemplate,
+                (record, exception) -> new TopicPartition(record.topic() + DEAD_LETTER_TOPIC_SUFFIX, -1));
+        return new DefaultErrorHandler(recoverer, new FixedBackOff(retryInterval.toMillis(), retryAttempts));
+    }
 
     @Bean
-    public KafkaListenerContainerFactory<?> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, ProductCreationEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+    public KafkaListenerContainerFactory<?> kafkaListenerContainerFactory(
+            ConsumerFactory<String, ProductCreationEvent> consumerFactory, DefaultErrorHandler kafkaErrorHandler) {
+        ConcurrentKafkaListenerContainerFactory<String, ProductCreationEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        //one listener call per poll, one consumer thread per partition up to the configured concurrency
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        //the records before a failed record are committed, the failed one is retried and then sent to the DLT
+        factory.setCommonErrorHandler(kafkaErrorHandler);
         return factory;
     }
 
 
-}
\ No newline at end of file
+}
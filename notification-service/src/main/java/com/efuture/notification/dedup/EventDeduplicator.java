@@ -0,0 +1,196 @@
+package com.efuture.notification.dedup;
+
+import com.efuture.events.ProductCreationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Filters out the product events already dispatched, which Kafka redelivers after producer retries, rebalances
+ * and restarts. Events are keyed by product id and sequence, in a {@link SeenEventSet}: a key of the exact window
+ * is a duplicate for sure, an older key reported by the Bloom filter is taken as a duplicate too, at the
+ * configured false positive rate.
+ * The set is written to a local file periodically and on shutdown, after the listener containers have stopped,
+ * and read back on startup, so a restart does not dispatch the replayed events again. The events dispatched
+ * after the last write before a crash are not in the file and can be dispatched twice.
+ */
+@Slf4j
+@Component
+public class EventDeduplicator {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final boolean enabled;
+    //null when the set is not persisted
+    private final Path file;
+    private final SeenEventSet seenEvents;
+    private final Counter exactDuplicates;
+    private final Counter probableDuplicates;
+    //keys added since the last write of the file
+    private long unsavedKeys;
+
+    public EventDeduplicator(@Value("${notification.dedup.enabled:true}") boolean enabled,
+                             @Value("${notification.dedup.window-size:200000}") int windowSize,
+                             @Value("${notification.dedup.generation-capacity:4000000}") long generationCapacity,
+                             @Value("${notification.dedup.generations:2}") int generations,
+                             @Value("${notification.dedup.false-positive-rate:0.00001}") double falsePositiveRate,
+                             @Value("${notification.dedup.file:}") String file,
+                             MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.file = enabled && !file.isBlank() ? Path.of(file) : null;
+        this.seenEvents = enabled ? load(() -> new SeenEventSet(windowSize, generationCapacity, generations,
+                falsePositiveRate)) : null;
+        this.exactDuplicates = duplicateCounter(meterRegistry, "exact");
+        this.probableDuplicates = duplicateCounter(meterRegistry, "probable");
+    }
+
+    /**
+     * Find the events not dispatched yet
+     * @param events events of a batch, in partition order
+     * @return events neither seen before nor repeated earlier in the batch, in batch order
+     */
+    public synchronized List<ProductCreationEvent> unseen(List<ProductCreationEvent> events) {
+        if (!enabled) {
+            return events;
+        }
+        List<ProductCreationEvent> unseen = new ArrayList<>(events.size());
+        Set<String> batchKeys = new HashSet<>();
+        for (ProductCreationEvent event : events) {
+            if (event.getProductId() == null) {
+                //no key, always dispatched
+                unseen.add(event);
+                continue;
+            }
+            switch (seenEvents.find(event.getProductId(), sequenceOf(event))) {
+                case EXACT -> exactDuplicates.increment();
+                case PROBABLE -> probableDuplicates.increment();
+                case NONE -> {
+                    if (batchKeys.add(event.getProductId() + ':' + sequenceOf(event))) {
+                        unseen.add(event);
+                    } else {
+                        exactDuplicates.increment();
+                    }
+                }
+            }
+        }
+        return unseen;
+    }
+
+    /**
+     * Record dispatched events, only once they have been dispatched so that a failed batch is dispatched again
+     * @param events dispatched events
+     */
+    public synchronized void markSeen(List<ProductCreationEvent> events) {
+        if (!enabled) {
+            return;
+        }
+        for (ProductCreationEvent event : events) {
+            if (event.getProductId() != null) {
+                seenEvents.add(event.getProductId(), sequenceOf(event));
+                unsavedKeys++;
+            }
+        }
+    }
+
+    /**
+     * Write the set to its file, replacing the previous one once complete
+     */
+    @Scheduled(fixedDelayString = "${notification.dedup.persist-interval:30s}")
+    public void persist() {
+        if (file == null) {
+            return;
+        }
+        SeenEventSet snapshot;
+        long savedKeys;
+        synchronized (this) {
+            if (unsavedKeys == 0) {
+                return;
+            }
+            //written outside the lock, so the listeners only wait for the copy
+            snapshot = seenEvents.copy();
+            savedKeys = unsavedKeys;
+            unsavedKeys = 0;
+        }
+        long start = System.nanoTime();
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path partial = Files.createTempFile(directory, file.getFileName().toString(), ".partial");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(partial), BUFFER_SIZE))) {
+                    snapshot.writeTo(out);
+                }
+                Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+            log.debug("Wrote seen events to {} in {} ms", file,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write seen events to {}", file, e);
+            synchronized (this) {
+                unsavedKeys += savedKeys;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        persist();
+    }
+
+    private SeenEventSet load(Supplier<SeenEventSet> emptySet) {
+        SeenEventSet loaded = emptySet.get();
+        if (file == null) {
+            return loaded;
+        }
+        long start = System.nanoTime();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file),
+                BUFFER_SIZE))) {
+            loaded.readFrom(in);
+            log.info("Loaded seen events from {} in {} ms", file,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return loaded;
+        } catch (NoSuchFileException e) {
+            log.info("No seen events at {}, starting empty", file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to load seen events from {}, starting empty", file, e);
+            //a failed read leaves the set partly read
+            return emptySet.get();
+        }
+        return loaded;
+    }
+
+    //the events of older producers have no sequence, a product is only created once
+    private static long sequenceOf(ProductCreationEvent event) {
+        return event.getSequence() == null ? 0 : event.getSequence();
+    }
+
+    private static Counter duplicateCounter(MeterRegistry meterRegistry, String match) {
+        return Counter.builder("notification.dedup.duplicates")
+                .tag("match", match)
+                .description("Redelivered product events which were not dispatched again")
+                .register(meterRegistry);
+    }
+}
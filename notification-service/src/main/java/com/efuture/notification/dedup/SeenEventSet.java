@@ -0,0 +1,301 @@
+package com.efuture.notification.dedup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Bounded set of the event keys seen, a key being a product id and an event sequence.
+ * The latest keys are held exactly, as 64-bit hashes in a ring of the window size indexed by an open addressing
+ * hash table. All keys are also added to a rolling Bloom filter of a few generations, each taking the capacity
+ * number of keys at the target false positive rate; once the current generation is full, the oldest one is
+ * cleared and takes the new keys. The filter remembers the last (generations - 1) * capacity keys at least,
+ * at a fixed memory cost, but a key it reports may be a false positive.
+ * The class is not thread safe.
+ */
+public class SeenEventSet {
+
+    public enum Match {
+        //not seen
+        NONE,
+        //seen within the exact window
+        EXACT,
+        //not in the exact window but reported by the Bloom filter, seen before or a false positive
+        PROBABLE
+    }
+
+    private static final int FORMAT_MAGIC = 0x5345454E;
+    private static final int FORMAT_VERSION = 1;
+    private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final int windowSize;
+    private final long capacity;
+    private final long bitsPerGeneration;
+    private final int hashes;
+
+    private final long[][] generations;
+    private final long[] generationSizes;
+    private int current;
+
+    //exact window: ring of the latest key hashes in insertion order, and their hash table, 0 being a free slot
+    private final long[] ring;
+    private int ringHead;
+    private int ringSize;
+    private final long[] table;
+    private final int tableMask;
+
+    /**
+     * @param windowSize number of latest keys held exactly
+     * @param capacity keys per Bloom filter generation
+     * @param generations number of Bloom filter generations, at least 2
+     * @param falsePositiveRate target false positive rate of a full generation
+     */
+    public SeenEventSet(int windowSize, long capacity, int generations, double falsePositiveRate) {
+        if (windowSize < 1 || capacity < 1 || generations < 2 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid seen event set size");
+        }
+        this.windowSize = windowSize;
+        this.capacity = capacity;
+        //optimal number of bits and hash functions for the capacity and the false positive rate
+        long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long words = (bits + 63) / 64;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Seen event set generation too large");
+        }
+        this.bitsPerGeneration = words * 64;
+        this.hashes = (int) Math.max(1, Math.min(30,
+                Math.round((double) bitsPerGeneration / capacity * Math.log(2))));
+        this.generations = new long[generations][(int) words];
+        this.generationSizes = new long[generations];
+        this.ring = new long[windowSize];
+        //at most half full, so that the probe sequences stay short
+        int tableSize = Integer.highestOneBit(Math.max(2, windowSize) * 2 - 1) << 1;
+        this.table = new long[tableSize];
+        this.tableMask = tableSize - 1;
+    }
+
+    /**
+     * Look a key up
+     * @param productId product id
+     * @param sequence event sequence
+     * @return how the key was seen
+     */
+    public Match find(String productId, long sequence) {
+        long hash1 = hash(productId, sequence, SEED_1);
+        if (tableContains(fingerprint(hash1))) {
+            return Match.EXACT;
+        }
+        long hash2 = hash(productId, sequence, SEED_2);
+        for (long[] generation : generations) {
+            if (bloomContains(generation, hash1, hash2)) {
+                return Match.PROBABLE;
+            }
+        }
+        return Match.NONE;
+    }
+
+    /**
+     * Add a key, evicting the oldest key of a full window to the Bloom filter
+     * @param productId product id
+     * @param sequence event sequence
+     */
+    public void add(String productId, long sequence) {
+        long hash1 = hash(productId, sequence, SEED_1);
+        long hash2 = hash(productId, sequence, SEED_2);
+        if (generationSizes[current] >= capacity) {
+            current = (current + 1) % generations.length;
+            Arrays.fill(generations[current], 0L);
+            generationSizes[current] = 0;
+        }
+        bloomAdd(generations[current], hash1, hash2);
+        generationSizes[current]++;
+
+        long fingerprint = fingerprint(hash1);
+        if (tableContains(fingerprint)) {
+            return;
+        }
+        if (ringSize == windowSize) {
+            tableRemove(ring[ringHead]);
+        } else {
+            ringSize++;
+        }
+        ring[ringHead] = fingerprint;
+        ringHead = (ringHead + 1) % windowSize;
+        tableAdd(fingerprint);
+    }
+
+    public SeenEventSet copy() {
+        return new SeenEventSet(this);
+    }
+
+    private SeenEventSet(SeenEventSet other) {
+        this.windowSize = other.windowSize;
+        this.capacity = other.capacity;
+        this.bitsPerGeneration = other.bitsPerGeneration;
+        this.hashes = other.hashes;
+        this.generations = new long[other.generations.length][];
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = other.generations[i].clone();
+        }
+        this.generationSizes = other.generationSizes.clone();
+        this.current = other.current;
+        this.ring = other.ring.clone();
+        this.ringHead = other.ringHead;
+        this.ringSize = other.ringSize;
+        this.table = other.table.clone();
+        this.tableMask = other.tableMask;
+    }
+
+    /**
+     * Write the whole set, sized by its parameters
+     * @param out target
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(windowSize);
+        out.writeLong(capacity);
+        out.writeLong(bitsPerGeneration);
+        out.writeInt(generations.length);
+        out.writeInt(current);
+        for (int i = 0; i < generations.length; i++) {
+            out.writeLong(generationSizes[i]);
+            writeLongs(out, generations[i]);
+        }
+        out.writeInt(ringHead);
+        out.writeInt(ringSize);
+        writeLongs(out, ring);
+    }
+
+    /**
+     * Read the keys of a set written with the same parameters, the hash table is rebuilt from the ring
+     * @param in source
+     * @throws IOException if the data is not a set of the same parameters
+     */
+    public void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT_MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a seen event set");
+        }
+        if (in.readInt() != windowSize || in.readLong() != capacity || in.readLong() != bitsPerGeneration
+                || in.readInt() != generations.length) {
+            throw new IOException("Seen event set written with other parameters");
+        }
+        int readCurrent = in.readInt();
+        if (readCurrent < 0 || readCurrent >= generations.length) {
+            throw new IOException("Malformed seen event set");
+        }
+        current = readCurrent;
+        for (int i = 0; i < generations.length; i++) {
+            generationSizes[i] = in.readLong();
+            readLongs(in, generations[i]);
+        }
+        ringHead = in.readInt();
+        ringSize = in.readInt();
+        if (ringHead < 0 || ringHead >= windowSize || ringSize < 0 || ringSize > windowSize) {
+            throw new IOException("Malformed seen event set");
+        }
+        readLongs(in, ring);
+        Arrays.fill(table, 0L);
+        for (int i = 0; i < ringSize; i++) {
+            tableAdd(ring[Math.floorMod(ringHead - 1 - i, windowSize)]);
+        }
+    }
+
+    private boolean bloomContains(long[] generation, long hash1, long hash2) {
+        long combined = hash1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.unsignedMultiplyHigh(combined, bitsPerGeneration);
+            if ((generation[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += hash2;
+        }
+        return true;
+    }
+
+    private void bloomAdd(long[] generation, long hash1, long hash2) {
+        long combined = hash1;
+        for (int i = 0; i < hashes; i++) {
+            //maps the hash uniformly to [0, bits) without a division
+            long bit = Math.unsignedMultiplyHigh(combined, bitsPerGeneration);
+            generation[(int) (bit >>> 6)] |= 1L << bit;
+            combined += hash2;
+        }
+    }
+
+    private boolean tableContains(long fingerprint) {
+        for (int slot = slot(fingerprint); table[slot] != 0; slot = (slot + 1) & tableMask) {
+            if (table[slot] == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void tableAdd(long fingerprint) {
+        int slot = slot(fingerprint);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & tableMask;
+        }
+        table[slot] = fingerprint;
+    }
+
+    /**
+     * Remove with backward shifting, so that the probe sequences need no tombstones
+     */
+    private void tableRemove(long fingerprint) {
+        int gap = slot(fingerprint);
+        while (table[gap] != fingerprint) {
+            if (table[gap] == 0) {
+                return;
+            }
+            gap = (gap + 1) & tableMask;
+        }
+        for (int slot = (gap + 1) & tableMask; table[slot] != 0; slot = (slot + 1) & tableMask) {
+            //an entry moves back into the gap unless its home slot lies between the gap and its slot
+            if (((slot - slot(table[slot])) & tableMask) >= ((slot - gap) & tableMask)) {
+                table[gap] = table[slot];
+                gap = slot;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    private int slot(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & tableMask;
+    }
+
+    //never 0, the free slot marker
+    private static long fingerprint(long hash) {
+        return hash | 1;
+    }
+
+    static long hash(String productId, long sequence, long seed) {
+        long hash = seed;
+        for (int i = 0; i < productId.length(); i++) {
+            hash = (hash ^ productId.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash ^ mix(sequence + seed));
+    }
+
+    //finalizer of MurmurHash3
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void readLongs(DataInputStream in, long[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readLong();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.efuture.notification.service;
+
+import com.efuture.events.ProductCreationEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Slf4j
+@Service
+public class NotificationService {
+
+    /**
+     * Send the notifications of a batch of product creation events to the relevant parties
+     * @param events product creation events, in partition order
+     */
+    public void dispatch(List<ProductCreationEvent> events) {
+        //notifications are currently logged, one message per batch
+        log.info("Dispatching notifications for {} created products", events.size());
+        if (log.isDebugEnabled()) {
+            events.forEach(event -> log.debug("Product created: {}", event));
+        }
+    }
+}
@@ -2,4 +2,5 @@ package com.efuture.notification.util;
 
 public class Constants {
     public static final String KAFKA_BOOTSTRAP_SERVERS = "kafka:9092";
+    public static final String DEAD_LETTER_TOPIC_SUFFIX = ".DLT";
 }
@@ -0,0 +1,132 @@
+package com.efuture.notification;
+
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.notification.dedup.EventDeduplicator;
+import com.efuture.notification.service.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaJsonConsumerTest {
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private KafkaJsonConsumer kafkaJsonConsumer;
+
+    @BeforeEach
+    void setUp() {
+        kafkaJsonConsumer = new KafkaJsonConsumer(notificationService,
+                new EventDeduplicator(true, 100, 1000, 2, 0.001, "", meterRegistry), meterRegistry);
+    }
+
+    @Test
+    void testListenDispatchesBatchAndAcknowledges() {
+        ProductCreationEvent first = event("1");
+        ProductCreationEvent second = event("2");
+
+        kafkaJsonConsumer.listen(List.of(record(0, first), record(1, second)), acknowledgment);
+
+        verify(notificationService).dispatch(List.of(first, second));
+        verify(acknowledgment).acknowledge();
+        assertEquals(1, meterRegistry.get("notification.batch.size").summary().count());
+        assertEquals(2, meterRegistry.get("notification.event.lag").timer().count());
+    }
+
+    @Test
+    void testListenSkipsRedeliveredEvents() {
+        ProductCreationEvent first = event("1");
+        ProductCreationEvent second = event("2");
+        kafkaJsonConsumer.listen(List.of(record(0, first)), acknowledgment);
+
+        //redelivered after a producer retry, then within the same poll
+        kafkaJsonConsumer.listen(List.of(record(1, event("1")), record(2, second), record(3, event("2"))),
+                acknowledgment);
+
+        verify(notificationService).dispatch(List.of(first));
+        verify(notificationService).dispatch(List.of(second));
+        verify(acknowledgment, times(2)).acknowledge();
+        assertEquals(2, meterRegistry.get("notification.dedup.duplicates").tag("match", "exact").counter().count());
+    }
+
+    @Test
+    void testListenDispatchesFailedBatchAgain() {
+        ProductCreationEvent first = event("1");
+        doThrow(new IllegalStateException("unreachable")).doNothing().when(notificationService)
+                .dispatch(List.of(first));
+
+        assertThrows(IllegalStateException.class,
+                () -> kafkaJsonConsumer.listen(List.of(record(0, first)), acknowledgment));
+        kafkaJsonConsumer.listen(List.of(record(0, first)), acknowledgment);
+
+        verify(notificationService, times(2)).dispatch(List.of(first));
+    }
+
+    @Test
+    void testListenStopsAtUnreadableRecord() {
+        ProductCreationEvent first = event("1");
+        List<ConsumerRecord<String, ProductCreationEvent>> records = List.of(record(0, first), unreadable(1),
+                record(2, event("3")));
+
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+                () -> kafkaJsonConsumer.listen(records, acknowledgment));
+
+        //the readable records before it are dispatched, the offsets are left to the error handler
+        assertEquals(1, exception.getIndex());
+        assertInstanceOf(DeserializationException.class, exception.getCause());
+        verify(notificationService).dispatch(List.of(first));
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void testListenWithUnreadableFirstRecordDispatchesNothing() {
+        assertThrows(BatchListenerFailedException.class,
+                () -> kafkaJsonConsumer.listen(List.of(unreadable(0)), acknowledgment));
+
+        verifyNoInteractions(notificationService);
+    }
+
+    private static ProductCreationEvent event(String productId) {
+        return ProductCreationEvent.builder().productId(productId).name("p" + productId).sequence(0L).build();
+    }
+
+    private static ConsumerRecord<String, ProductCreationEvent> record(long offset, ProductCreationEvent event) {
+        return new ConsumerRecord<>("product-topic", 0, offset, event.getProductId(), event);
+    }
+
+    /**
+     * Record as handed over by the ErrorHandlingDeserializer for a value it could not deserialize
+     */
+    private static ConsumerRecord<String, ProductCreationEvent> unreadable(long offset) {
+        ConsumerRecord<String, ProductCreationEvent> record = new ConsumerRecord<>("product-topic", 0, offset,
+                "bad", null);
+        SerializationUtils.deserializationException(record.headers(), new byte[]{1, 2},
+                new IllegalStateException("corrupt"), false);
+        return record;
+    }
+}
@@ -0,0 +1,107 @@
+package com.efuture.notification.config;
+
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.events.kafka.ProductCreationEventSerializer;
+import com.efuture.notification.service.NotificationService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "notification.kafka.retry-interval=10ms",
+        "notification.dedup.file="
+})
+@EmbeddedKafka(partitions = 1, topics = {"product-topic", "product-topic.DLT"})
+class KafkaConfigTest {
+
+    private static final byte[] CORRUPT_VALUE = {(byte) 0xEF, 0x7F, 0x00};
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    @Test
+    void testUnreadableRecordGoesToDeadLetterTopicAndTheRestIsDispatched() throws Exception {
+        List<ProductCreationEvent> dispatched = new ArrayList<>();
+        doAnswer(invocation -> dispatched.addAll(invocation.getArgument(0)))
+                .when(notificationService).dispatch(anyList());
+        ProductCreationEvent first = ProductCreationEvent.builder().productId("1").name("p1").build();
+        ProductCreationEvent second = ProductCreationEvent.builder().productId("2").name("p2").build();
+
+        KafkaTemplate<String, byte[]> producer = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                KafkaTestUtils.producerProps(embeddedKafka), new StringSerializer(), new ByteArraySerializer()));
+        try (ProductCreationEventSerializer serializer = new ProductCreationEventSerializer()) {
+            producer.send(new ProducerRecord<>("product-topic", "1", serializer.serialize("product-topic", first)));
+            producer.send(new ProducerRecord<>("product-topic", "bad", CORRUPT_VALUE));
+            producer.send(new ProducerRecord<>("product-topic", "2", serializer.serialize("product-topic", second)));
+            producer.flush();
+        }
+
+        verify(notificationService, timeout(10_000).atLeastOnce()).dispatch(anyList());
+        try (Consumer<String, byte[]> deadLetters = deadLetterConsumer()) {
+            ConsumerRecord<String, byte[]> deadLetter = KafkaTestUtils.getSingleRecord(deadLetters,
+                    "product-topic.DLT", Duration.ofSeconds(10));
+            assertEquals("bad", deadLetter.key());
+            assertArrayEquals(CORRUPT_VALUE, deadLetter.value());
+        }
+        TopicPartition partition = new TopicPartition("product-topic", 0);
+        Map<TopicPartition, OffsetAndMetadata> committed = awaitCommittedOffset(partition, 3);
+        assertEquals(3, committed.get(partition).offset());
+        assertEquals(List.of("1", "2"), dispatched.stream().map(ProductCreationEvent::getProductId).toList());
+    }
+
+    private Consumer<String, byte[]> deadLetterConsumer() {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("dlt-reader", "false", embeddedKafka);
+        Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ByteArrayDeserializer()).createConsumer();
+        embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "product-topic.DLT");
+        return consumer;
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> awaitCommittedOffset(TopicPartition partition, long offset)
+            throws InterruptedException {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("group_id", "false", embeddedKafka);
+        try (Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ByteArrayDeserializer()).createConsumer()) {
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.of(partition));
+            for (int i = 0; i < 100 && (committed.get(partition) == null
+                    || committed.get(partition).offset() < offset); i++) {
+                Thread.sleep(100);
+                committed = consumer.committed(Set.of(partition));
+            }
+            return committed;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.efuture.notification.dedup;
+
+import com.efuture.events.ProductCreationEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventDeduplicatorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testEventsAreKeyedByProductIdAndSequence() {
+        EventDeduplicator eventDeduplicator = deduplicator(true, "");
+        eventDeduplicator.markSeen(List.of(event("1", 0L)));
+
+        List<ProductCreationEvent> unseen = eventDeduplicator.unseen(List.of(event("1", 0L), event("1", 1L),
+                event("2", 0L)));
+
+        assertEquals(List.of("1:1", "2:0"), unseen.stream()
+                .map(event -> event.getProductId() + ':' + event.getSequence())
+                .toList());
+        //the events of older producers have no sequence, which is that of a new product
+        assertTrue(eventDeduplicator.unseen(List.of(event("1", null))).isEmpty());
+    }
+
+    @Test
+    void testSeenEventsSurviveARestart() throws IOException {
+        Path file = directory.resolve("dedup").resolve("seen-events.bin");
+        EventDeduplicator eventDeduplicator = deduplicator(true, file.toString());
+        eventDeduplicator.markSeen(List.of(event("1", 0L), event("2", 0L)));
+
+        eventDeduplicator.close();
+
+        assertTrue(Files.exists(file));
+        try (var files = Files.list(file.getParent())) {
+            //no partial file is left behind
+            assertEquals(1, files.count());
+        }
+        EventDeduplicator restarted = deduplicator(true, file.toString());
+        assertEquals(List.of("3"), restarted.unseen(List.of(event("1", 0L), event("2", 0L), event("3", 0L)))
+                .stream().map(ProductCreationEvent::getProductId).toList());
+    }
+
+    @Test
+    void testUnreadableFileStartsEmpty() throws IOException {
+        Path file = Files.writeString(directory.resolve("seen-events.bin"), "garbage");
+
+        EventDeduplicator eventDeduplicator = deduplicator(true, file.toString());
+
+        assertEquals(1, eventDeduplicator.unseen(List.of(event("1", 0L))).size());
+    }
+
+    @Test
+    void testDisabledDeduplicatorKeepsAllEvents() {
+        Path file = directory.resolve("seen-events.bin");
+        EventDeduplicator eventDeduplicator = deduplicator(false, file.toString());
+        eventDeduplicator.markSeen(List.of(event("1", 0L)));
+
+        assertEquals(1, eventDeduplicator.unseen(List.of(event("1", 0L))).size());
+        eventDeduplicator.close();
+        assertFalse(Files.exists(file));
+    }
+
+    private EventDeduplicator deduplicator(boolean enabled, String file) {
+        return new EventDeduplicator(enabled, 100, 1000, 2, 0.001, file, meterRegistry);
+    }
+
+    private static ProductCreationEvent event(String productId, Long sequence) {
+        return ProductCreationEvent.builder().productId(productId).sequence(sequence).build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.efuture.notification.dedup;
+
+import com.efuture.notification.dedup.SeenEventSet.Match;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeenEventSetTest {
+
+    @Test
+    void testKeysOfTheWindowAreFoundExactly() {
+        SeenEventSet seenEvents = new SeenEventSet(4, 100, 2, 0.001);
+
+        seenEvents.add("1", 0);
+        seenEvents.add("1", 1);
+
+        assertEquals(Match.EXACT, seenEvents.find("1", 0));
+        assertEquals(Match.EXACT, seenEvents.find("1", 1));
+        assertEquals(Match.NONE, seenEvents.find("1", 2));
+        assertEquals(Match.NONE, seenEvents.find("10", 0));
+    }
+
+    @Test
+    void testKeysEvictedFromTheWindowAreFoundByTheBloomFilter() {
+        SeenEventSet seenEvents = new SeenEventSet(8, 1000, 2, 0.0001);
+
+        for (int id = 0; id < 100; id++) {
+            seenEvents.add(String.valueOf(id), 0);
+        }
+
+        assertEquals(Match.PROBABLE, seenEvents.find("0", 0));
+        assertEquals(Match.EXACT, seenEvents.find("99", 0));
+        //the evicted keys left no stale entries in the hash table
+        for (int id = 0; id < 92; id++) {
+            assertEquals(Match.PROBABLE, seenEvents.find(String.valueOf(id), 0));
+        }
+    }
+
+    @Test
+    void testOldestGenerationIsForgotten() {
+        SeenEventSet seenEvents = new SeenEventSet(1, 10, 2, 0.0001);
+
+        for (int id = 0; id < 30; id++) {
+            seenEvents.add(String.valueOf(id), 0);
+        }
+
+        //the first generation was cleared for the keys 20 to 29
+        assertEquals(Match.NONE, seenEvents.find("0", 0));
+        assertEquals(Match.PROBABLE, seenEvents.find("15", 0));
+    }
+
+    @Test
+    void testFalsePositiveRateOfFullGenerations() {
+        SeenEventSet seenEvents = new SeenEventSet(1000, 100_000, 2, 0.001);
+        for (int id = 0; id < 200_000; id++) {
+            seenEvents.add(String.valueOf(id), 1);
+        }
+
+        int falsePositives = 0;
+        for (int id = 0; id < 100_000; id++) {
+            if (seenEvents.find(String.valueOf(id), 2) != Match.NONE) {
+                falsePositives++;
+            }
+        }
+
+        //two full generations are checked, twice the rate of one
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testWriteAndReadBack() throws IOException {
+        SeenEventSet seenEvents = new SeenEventSet(4, 100, 2, 0.001);
+        for (int id = 0; id < 6; id++) {
+            seenEvents.add(String.valueOf(id), 3);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        seenEvents.writeTo(new DataOutputStream(bytes));
+
+        SeenEventSet read = new SeenEventSet(4, 100, 2, 0.001);
+        read.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(Match.PROBABLE, read.find("0", 3));
+        assertEquals(Match.EXACT, read.find("5", 3));
+        assertEquals(Match.NONE, read.find("5", 4));
+        //the window goes on from where it was
+        read.add("6", 3);
+        assertEquals(Match.PROBABLE, read.find("2", 3));
+        assertEquals(Match.EXACT, read.find("3", 3));
+    }
+
+    @Test
+    void testReadRejectsOtherParameters() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new SeenEventSet(4, 100, 2, 0.001).writeTo(new DataOutputStream(bytes));
+
+        SeenEventSet other = new SeenEventSet(8, 100, 2, 0.001);
+        assertThrows(IOException.class,
+                () -> other.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+}
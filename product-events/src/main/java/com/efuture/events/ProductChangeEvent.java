@@ -0,0 +1,41 @@
+package com.efuture.events;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * Change of a product, carrying the whole product as of the change.
+ * The sequence is the product version after the change: it grows with every change of the product, so a consumer
+ * skips the events with a sequence not above the one it has applied. As the last event of a product holds its
+ * current state, the change topic is log compacted and consumers can bootstrap from it.
+ */
+@ToString
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductChangeEvent implements ProductEvent {
+    @JsonProperty("change_type")
+    private ProductChangeType changeType;
+    @JsonProperty("product_id")
+    private String productId;
+    private Long sequence;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    //price before the change, only set on price changes
+    @JsonProperty("previous_price")
+    private BigDecimal previousPrice;
+    private String category;
+    private String status;
+}
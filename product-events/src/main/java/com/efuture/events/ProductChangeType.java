@@ -0,0 +1,31 @@
+package com.efuture.events;
+
+import lombok.Getter;
+
+/**
+ * Kind of a {@link ProductChangeEvent}, with the code it is written as in the binary format
+ */
+@Getter
+public enum ProductChangeType {
+    CREATED(1),
+    //any change other than the price
+    UPDATED(2),
+    //a change of the price, along with any other change
+    PRICE_CHANGED(3),
+    DELETED(4);
+
+    private final int code;
+
+    ProductChangeType(int code) {
+        this.code = code;
+    }
+
+    public static ProductChangeType of(int code) {
+        for (ProductChangeType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown product change type " + code);
+    }
+}
@@ -1,4 +1,4 @@
-package com.efuture.product.dto;
+package com.efuture.events;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -18,10 +18,12 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class ProductCreationEvent {
+public class ProductCreationEvent implements ProductEvent {
     @JsonProperty("product_id")
     private String productId;
     private String name;
     private BigDecimal price;
     private String category;
+    //product version, 0 for a new product, absent from the events of older producers
+    private Long sequence;
 }
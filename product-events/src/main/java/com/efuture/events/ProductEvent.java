@@ -0,0 +1,10 @@
+package com.efuture.events;
+
+/**
+ * Event about one product. Records are keyed by the product id, so the events of a product stay in order on any
+ * number of partitions.
+ */
+public interface ProductEvent {
+
+    String getProductId();
+}
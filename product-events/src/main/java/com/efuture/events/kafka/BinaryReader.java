@@ -0,0 +1,96 @@
+package com.efuture.events.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reader of the encodings of the {@link BinaryWriter}. The fields missing at the end of an older record are read
+ * as null.
+ */
+final class BinaryReader {
+    private final byte[] data;
+    private int position;
+
+    BinaryReader(byte[] data) {
+        this.data = data;
+    }
+
+    boolean hasRemaining() {
+        return position < data.length;
+    }
+
+    byte readByte() {
+        if (position >= data.length) {
+            throw new SerializationException("Truncated product event");
+        }
+        return data[position++];
+    }
+
+    int readVarint() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint in product event");
+    }
+
+    long readVarlong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varlong in product event");
+    }
+
+    byte[] readBytes() {
+        int length = readVarint() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > data.length - position) {
+            throw new SerializationException("Truncated product event");
+        }
+        byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    String readString() {
+        if (!hasRemaining()) {
+            return null;
+        }
+        byte[] bytes = readBytes();
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    BigDecimal readDecimal() {
+        if (!hasRemaining()) {
+            return null;
+        }
+        int scale = readVarint();
+        if (scale == 0) {
+            return null;
+        }
+        byte[] unscaled = readBytes();
+        if (unscaled == null || unscaled.length == 0) {
+            throw new SerializationException("Malformed price in product event");
+        }
+        return new BigDecimal(new BigInteger(unscaled), unzigzag(scale - 1));
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
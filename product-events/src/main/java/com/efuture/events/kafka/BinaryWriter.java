@@ -0,0 +1,85 @@
+package com.efuture.events.kafka;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writer of the binary event encodings into a buffer of the exact record size, computed upfront with the size
+ * methods. Strings and byte arrays are written as a varint of length + 1 (0 for null) and their bytes, decimals as
+ * a varint of the zigzag encoded scale + 1 (0 for null), then the unscaled value bytes.
+ */
+final class BinaryWriter {
+    private final byte[] buffer;
+    private int position;
+
+    BinaryWriter(int capacity) {
+        this.buffer = new byte[capacity];
+    }
+
+    void writeByte(int value) {
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarlong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeBytes(byte[] bytes) {
+        if (bytes == null) {
+            writeVarint(0);
+            return;
+        }
+        writeVarint(bytes.length + 1);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    void writeDecimal(BigDecimal value) {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        writeVarint(zigzag(value.scale()) + 1);
+        writeBytes(value.unscaledValue().toByteArray());
+    }
+
+    byte[] toByteArray() {
+        return buffer;
+    }
+
+    static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int sizeOf(byte[] bytes) {
+        return bytes == null ? 1 : varintSize(bytes.length + 1) + bytes.length;
+    }
+
+    static int sizeOf(BigDecimal value) {
+        return value == null ? 1 : varintSize(zigzag(value.scale()) + 1) + sizeOf(value.unscaledValue().toByteArray());
+    }
+
+    static int varintSize(int value) {
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    static int varlongSize(long value) {
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+}
@@ -0,0 +1,13 @@
+package com.efuture.events.kafka;
+
+/**
+ * Wire format of the product events, selected with the product.events.format serializer property
+ */
+public enum EventFormat {
+    BINARY,
+    JSON;
+
+    public static EventFormat of(Object value) {
+        return value == null ? BINARY : valueOf(value.toString().trim().toUpperCase());
+    }
+}
@@ -0,0 +1,76 @@
+package com.efuture.events.kafka;
+
+import com.efuture.events.ProductChangeEvent;
+import com.efuture.events.ProductChangeType;
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * Compact binary encoding of {@link ProductChangeEvent}, with the same layout rules as the
+ * {@link ProductCreationEventCodec}: the magic byte and the schema version, then the fields in declaration order.
+ * The change type is written as a varint of its code (0 for null) and the sequence as a varlong of the sequence + 1
+ * (0 for null).
+ */
+public final class ProductChangeEventCodec {
+
+    public static final byte SCHEMA_VERSION = 1;
+
+    private ProductChangeEventCodec() {
+    }
+
+    public static byte[] encode(ProductChangeEvent event) {
+        int changeType = event.getChangeType() == null ? 0 : event.getChangeType().getCode();
+        long sequence = event.getSequence() == null ? 0 : event.getSequence() + 1;
+        byte[] productId = BinaryWriter.utf8(event.getProductId());
+        byte[] name = BinaryWriter.utf8(event.getName());
+        byte[] description = BinaryWriter.utf8(event.getDescription());
+        byte[] category = BinaryWriter.utf8(event.getCategory());
+        byte[] status = BinaryWriter.utf8(event.getStatus());
+
+        BinaryWriter writer = new BinaryWriter(2 + BinaryWriter.varintSize(changeType)
+                + BinaryWriter.sizeOf(productId) + BinaryWriter.varlongSize(sequence) + BinaryWriter.sizeOf(name)
+                + BinaryWriter.sizeOf(description) + BinaryWriter.sizeOf(event.getPrice())
+                + BinaryWriter.sizeOf(event.getPreviousPrice()) + BinaryWriter.sizeOf(category)
+                + BinaryWriter.sizeOf(status));
+        writer.writeByte(ProductCreationEventCodec.MAGIC);
+        writer.writeByte(SCHEMA_VERSION);
+        writer.writeVarint(changeType);
+        writer.writeBytes(productId);
+        writer.writeVarlong(sequence);
+        writer.writeBytes(name);
+        writer.writeBytes(description);
+        writer.writeDecimal(event.getPrice());
+        writer.writeDecimal(event.getPreviousPrice());
+        writer.writeBytes(category);
+        writer.writeBytes(status);
+        return writer.toByteArray();
+    }
+
+    public static ProductChangeEvent decode(byte[] data) {
+        BinaryReader reader = new BinaryReader(data);
+        if (reader.readByte() != ProductCreationEventCodec.MAGIC) {
+            throw new SerializationException("Not a binary product event");
+        }
+        byte version = reader.readByte();
+        if (version < 1 || version > SCHEMA_VERSION) {
+            throw new SerializationException("Unsupported product event schema version " + version);
+        }
+        int changeType = reader.readVarint();
+        ProductChangeEvent.ProductChangeEventBuilder builder = ProductChangeEvent.builder();
+        try {
+            builder.changeType(changeType == 0 ? null : ProductChangeType.of(changeType));
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Unsupported product event change type " + changeType, e);
+        }
+        builder.productId(reader.readString());
+        long sequence = reader.hasRemaining() ? reader.readVarlong() : 0;
+        return builder
+                .sequence(sequence == 0 ? null : sequence - 1)
+                .name(reader.readString())
+                .description(reader.readString())
+                .price(reader.readDecimal())
+                .previousPrice(reader.readDecimal())
+                .category(reader.readString())
+                .status(reader.readString())
+                .build();
+    }
+}
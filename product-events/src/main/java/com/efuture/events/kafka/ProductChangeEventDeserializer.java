@@ -0,0 +1,35 @@
+package com.efuture.events.kafka;
+
+import com.efuture.events.ProductChangeEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Kafka deserializer of {@link ProductChangeEvent}, detecting the format of each record like the
+ * {@link ProductCreationEventDeserializer}
+ */
+public class ProductChangeEventDeserializer implements Deserializer<ProductChangeEvent> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL);
+
+    @Override
+    public ProductChangeEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (ProductCreationEventCodec.isBinary(data)) {
+            return ProductChangeEventCodec.decode(data);
+        }
+        try {
+            return OBJECT_MAPPER.readValue(data, ProductChangeEvent.class);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to deserialize product event", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.efuture.events.kafka;
+
+import com.efuture.events.ProductCreationEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * Compact binary encoding of {@link ProductCreationEvent}.
+ * A record starts with the magic byte and the schema version, followed by the fields in declaration order.
+ * Strings are written as a varint of length + 1 (0 for null) and their UTF-8 bytes, prices as a varint of the
+ * zigzag encoded scale + 1 (0 for null), then the length and bytes of the unscaled value, and the sequence as a
+ * varlong of the sequence + 1 (0 for null).
+ * New fields are only ever appended, so a reader ignores the trailing fields it does not know and decodes the
+ * fields missing from an older record as null. The schema version changes on incompatible changes only, and
+ * a reader rejects the versions it does not know.
+ */
+public final class ProductCreationEventCodec {
+
+    //never the first byte of a JSON document, so both formats can share a topic
+    public static final byte MAGIC = 0x00;
+    public static final byte SCHEMA_VERSION = 1;
+
+    private ProductCreationEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(ProductCreationEvent event) {
+        byte[] productId = BinaryWriter.utf8(event.getProductId());
+        byte[] name = BinaryWriter.utf8(event.getName());
+        byte[] category = BinaryWriter.utf8(event.getCategory());
+        long sequence = event.getSequence() == null ? 0 : event.getSequence() + 1;
+
+        BinaryWriter writer = new BinaryWriter(2 + BinaryWriter.sizeOf(productId) + BinaryWriter.sizeOf(name)
+                + BinaryWriter.sizeOf(event.getPrice()) + BinaryWriter.sizeOf(category)
+                + BinaryWriter.varlongSize(sequence));
+        writer.writeByte(MAGIC);
+        writer.writeByte(SCHEMA_VERSION);
+        writer.writeBytes(productId);
+        writer.writeBytes(name);
+        writer.writeDecimal(event.getPrice());
+        writer.writeBytes(category);
+        writer.writeVarlong(sequence);
+        return writer.toByteArray();
+    }
+
+    public static ProductCreationEvent decode(byte[] data) {
+        BinaryReader reader = new BinaryReader(data);
+        if (reader.readByte() != MAGIC) {
+            throw new SerializationException("Not a binary product event");
+        }
+        byte version = reader.readByte();
+        if (version < 1 || version > SCHEMA_VERSION) {
+            throw new SerializationException("Unsupported product event schema version " + version);
+        }
+        ProductCreationEvent event = ProductCreationEvent.builder()
+                .productId(reader.readString())
+                .name(reader.readString())
+                .price(reader.readDecimal())
+                .category(reader.readString())
+                .build();
+        long sequence = reader.hasRemaining() ? reader.readVarlong() : 0;
+        event.setSequence(sequence == 0 ? null : sequence - 1);
+        return event;
+    }
+}
@@ -0,0 +1,35 @@
+package com.efuture.events.kafka;
+
+import com.efuture.events.ProductCreationEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Kafka deserializer of {@link ProductCreationEvent}.
+ * The format is detected from the first byte of each record, so consumers read both the binary and the JSON
+ * records while producers are switched between the formats.
+ */
+public class ProductCreationEventDeserializer implements Deserializer<ProductCreationEvent> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Override
+    public ProductCreationEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (ProductCreationEventCodec.isBinary(data)) {
+            return ProductCreationEventCodec.decode(data);
+        }
+        try {
+            return OBJECT_MAPPER.readValue(data, ProductCreationEvent.class);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to deserialize product event", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.efuture.events.kafka;
+
+import com.efuture.events.ProductCreationEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * Kafka serializer of {@link ProductCreationEvent}, writing the binary format by default or plain JSON without
+ * type headers when product.events.format is json
+ */
+public class ProductCreationEventSerializer implements Serializer<ProductCreationEvent> {
+
+    public static final String FORMAT_CONFIG = "product.events.format";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private EventFormat format = EventFormat.BINARY;
+
+    public ProductCreationEventSerializer() {
+    }
+
+    public ProductCreationEventSerializer(EventFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (configs.containsKey(FORMAT_CONFIG)) {
+            format = EventFormat.of(configs.get(FORMAT_CONFIG));
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, ProductCreationEvent event) {
+        if (event == null) {
+            return null;
+        }
+        if (format == EventFormat.BINARY) {
+            return ProductCreationEventCodec.encode(event);
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Failed to serialize product event", e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.efuture.events.kafka;
+
+import com.efuture.events.ProductChangeEvent;
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.events.ProductEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * Kafka serializer of all {@link ProductEvent}s, for producers publishing both the creation and the change events.
+ * It writes the binary format of the event by default or plain JSON without type headers when
+ * product.events.format is json, as the {@link ProductCreationEventSerializer} does.
+ */
+public class ProductEventSerializer implements Serializer<ProductEvent> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private EventFormat format = EventFormat.BINARY;
+
+    public ProductEventSerializer() {
+    }
+
+    public ProductEventSerializer(EventFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (configs.containsKey(ProductCreationEventSerializer.FORMAT_CONFIG)) {
+            format = EventFormat.of(configs.get(ProductCreationEventSerializer.FORMAT_CONFIG));
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, ProductEvent event) {
+        if (event == null) {
+            return null;
+        }
+        if (format == EventFormat.BINARY) {
+            return switch (event) {
+                case ProductCreationEvent creation -> ProductCreationEventCodec.encode(creation);
+                case ProductChangeEvent change -> ProductChangeEventCodec.encode(change);
+                default -> throw new SerializationException("Unsupported product event " + event.getClass());
+            };
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Failed to serialize product event", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.efuture.events.kafka;
+
+import com.efuture.events.ProductChangeEvent;
+import com.efuture.events.ProductChangeType;
+import com.efuture.events.ProductCreationEvent;
+import com.efuture.events.ProductEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductChangeEventCodecTest {
+
+    private final ProductChangeEventDeserializer deserializer = new ProductChangeEventDeserializer();
+
+    @Test
+    void testBinaryRoundTrip() {
+        ProductChangeEvent event = ProductChangeEvent.builder()
+                .changeType(ProductChangeType.PRICE_CHANGED)
+                .productId("123456")
+                .sequence(5_000_000_000L)
+                .name("hand bag - ☂")
+                .description("leather")
+                .price(new BigDecimal("2500.005"))
+                .previousPrice(new BigDecimal("2700"))
+                .category("fashion")
+                .status("A")
+                .build();
+
+        byte[] data = new ProductEventSerializer().serialize("product-changes", event);
+        ProductChangeEvent decoded = deserializer.deserialize("product-changes", data);
+
+        assertEquals(ProductCreationEventCodec.MAGIC, data[0]);
+        assertEquals(ProductChangeType.PRICE_CHANGED, decoded.getChangeType());
+        assertEquals("123456", decoded.getProductId());
+        assertEquals(5_000_000_000L, decoded.getSequence());
+        assertEquals("hand bag - ☂", decoded.getName());
+        assertEquals("leather", decoded.getDescription());
+        assertEquals(new BigDecimal("2500.005"), decoded.getPrice());
+        assertEquals(new BigDecimal("2700"), decoded.getPreviousPrice());
+        assertEquals("fashion", decoded.getCategory());
+        assertEquals("A", decoded.getStatus());
+    }
+
+    @Test
+    void testBinaryRoundTripOfNullFields() {
+        ProductChangeEvent decoded = ProductChangeEventCodec.decode(ProductChangeEventCodec.encode(
+                ProductChangeEvent.builder().changeType(ProductChangeType.DELETED).productId("1").sequence(0L).build()));
+
+        assertEquals(ProductChangeType.DELETED, decoded.getChangeType());
+        assertEquals(0L, decoded.getSequence());
+        assertNull(decoded.getName());
+        assertNull(decoded.getPreviousPrice());
+        assertNull(decoded.getStatus());
+    }
+
+    @Test
+    void testSerializerWritesEachEventInItsOwnEncoding() {
+        ProductEvent creation = ProductCreationEvent.builder().productId("7").name("shoe").build();
+        ProductEventSerializer serializer = new ProductEventSerializer();
+
+        byte[] data = serializer.serialize("product-topic", creation);
+
+        assertEquals("shoe", ProductCreationEventCodec.decode(data).getName());
+    }
+
+    @Test
+    void testJsonRoundTrip() {
+        ProductEventSerializer jsonSerializer = new ProductEventSerializer();
+        jsonSerializer.configure(Map.of(ProductCreationEventSerializer.FORMAT_CONFIG, "json"), false);
+        ProductChangeEvent event = ProductChangeEvent.builder()
+                .changeType(ProductChangeType.UPDATED).productId("7").sequence(3L).price(BigDecimal.TEN).build();
+
+        byte[] json = jsonSerializer.serialize("product-changes", event);
+        ProductChangeEvent decoded = deserializer.deserialize("product-changes", json);
+
+        assertEquals(ProductChangeType.UPDATED, decoded.getChangeType());
+        assertEquals(3L, decoded.getSequence());
+        assertEquals(BigDecimal.TEN, decoded.getPrice());
+        //null fields are left out
+        assertFalse(new String(json, StandardCharsets.UTF_8).contains("previous_price"));
+    }
+
+    @Test
+    void testDecodeRejectsUnknownChangeTypes() {
+        byte[] data = ProductChangeEventCodec.encode(ProductChangeEvent.builder()
+                .changeType(ProductChangeType.CREATED).productId("1").build());
+        data[2] = 100;
+
+        assertThrows(SerializationException.class, () -> ProductChangeEventCodec.decode(data));
+    }
+}
@@ -0,0 +1,103 @@
+package com.efuture.events.kafka;
+
+import com.efuture.events.ProductCreationEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductCreationEventCodecTest {
+
+    private final ProductCreationEventDeserializer deserializer = new ProductCreationEventDeserializer();
+
+    @Test
+    void testBinaryRoundTrip() {
+        ProductCreationEvent event = ProductCreationEvent.builder()
+                .productId("123456")
+                .name("hand bag - ☂")
+                .price(new BigDecimal("-2500.005"))
+                .category("fashion")
+                .sequence(0L)
+                .build();
+
+        byte[] data = new ProductCreationEventSerializer().serialize("product-topic", event);
+        ProductCreationEvent decoded = deserializer.deserialize("product-topic", data);
+
+        assertEquals(ProductCreationEventCodec.MAGIC, data[0]);
+        assertEquals("123456", decoded.getProductId());
+        assertEquals("hand bag - ☂", decoded.getName());
+        assertEquals(new BigDecimal("-2500.005"), decoded.getPrice());
+        assertEquals(3, decoded.getPrice().scale());
+        assertEquals("fashion", decoded.getCategory());
+        assertEquals(0L, decoded.getSequence());
+    }
+
+    @Test
+    void testBinaryRoundTripOfNullFields() {
+        byte[] data = ProductCreationEventCodec.encode(ProductCreationEvent.builder().productId("1").build());
+        ProductCreationEvent decoded = ProductCreationEventCodec.decode(data);
+
+        assertEquals("1", decoded.getProductId());
+        assertNull(decoded.getName());
+        assertNull(decoded.getPrice());
+        assertNull(decoded.getCategory());
+        assertNull(decoded.getSequence());
+    }
+
+    @Test
+    void testDecodeOfRecordsWithoutSequence() {
+        byte[] data = ProductCreationEventCodec.encode(ProductCreationEvent.builder()
+                .productId("1").category("fashion").sequence(5L).build());
+
+        //as written before the sequence was appended
+        ProductCreationEvent decoded = ProductCreationEventCodec.decode(Arrays.copyOf(data, data.length - 1));
+
+        assertEquals("fashion", decoded.getCategory());
+        assertNull(decoded.getSequence());
+    }
+
+    @Test
+    void testBinaryIsSmallerThanJson() {
+        ProductCreationEvent event = ProductCreationEvent.builder()
+                .productId("123456").name("hand bag - 2").price(new BigDecimal("2500.00")).category("fashion").build();
+        ProductCreationEventSerializer jsonSerializer = new ProductCreationEventSerializer();
+        jsonSerializer.configure(Map.of(ProductCreationEventSerializer.FORMAT_CONFIG, "json"), false);
+
+        byte[] binary = new ProductCreationEventSerializer().serialize("product-topic", event);
+        byte[] json = jsonSerializer.serialize("product-topic", event);
+
+        assertTrue(binary.length * 2 < json.length);
+        assertEquals("hand bag - 2", deserializer.deserialize("product-topic", json).getName());
+    }
+
+    @Test
+    void testJsonFallback() {
+        byte[] json = "{\"product_id\":\"7\",\"name\":\"shoe\",\"price\":10.5,\"category\":\"fashion\",\"extra\":1}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        ProductCreationEvent decoded = deserializer.deserialize("product-topic", json);
+
+        assertEquals("7", decoded.getProductId());
+        assertEquals(new BigDecimal("10.5"), decoded.getPrice());
+    }
+
+    @Test
+    void testDecodeRejectsNewerSchemaAndTruncatedRecords() {
+        byte[] data = ProductCreationEventCodec.encode(ProductCreationEvent.builder()
+                .productId("1").name("hand bag").build());
+        byte[] newer = data.clone();
+        newer[1] = ProductCreationEventCodec.SCHEMA_VERSION + 1;
+
+        assertThrows(SerializationException.class, () -> ProductCreationEventCodec.decode(newer));
+        assertThrows(SerializationException.class,
+                () -> ProductCreationEventCodec.decode(Arrays.copyOf(data, data.length - 5)));
+    }
+}